@@ -2,12 +2,23 @@ package com.mockholm.commands;
 
 import com.mockholm.config.BranchType;
 import com.mockholm.config.GitConfiguration;
+import com.mockholm.config.ReleaseNotesType;
+import com.mockholm.notes.ChangelogWriter;
+import com.mockholm.notes.NdjsonReleaseNotesWriter;
+import com.mockholm.notes.ReleaseNotesEngine;
+import com.mockholm.notes.ReleaseNotesFormatter;
+import com.mockholm.utils.CommitGraphUtils;
 import com.mockholm.utils.GitCredentialUtils;
+import com.mockholm.utils.GitRepositoryRegistry;
 import com.mockholm.utils.GitUtils;
+import com.mockholm.utils.RemoteRefSnapshot;
+import com.mockholm.utils.TagIndex;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
@@ -21,14 +32,13 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.time.LocalDate;
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static com.mockholm.utils.GitCredentialUtils.SSH_REMOTE;
 
@@ -45,13 +55,17 @@ public class GitCommand {
 
     private boolean shouldSkipNext = false;
 
+    /** Ref updates queued for {@link #pushQueued(GitConfiguration)}, keyed by remote ref name. */
+    private final Map<String, RefSpec> queuedPushes = new LinkedHashMap<>();
+
     /**
      * Creates a GitCommand instance using the current working directory as the repository path.
+     * The repository handle is borrowed from the {@link GitRepositoryRegistry}.
      *
      * @throws IOException if the Git repository cannot be opened from the current directory
      */
     public GitCommand() throws IOException {
-        this.git = Git.open(new File("."));
+        this.git = GitRepositoryRegistry.borrow();
         this.log = null;
     }
 
@@ -63,10 +77,7 @@ public class GitCommand {
      * @throws IOException if the Git repository cannot be opened from the given path
      */
     public GitCommand(String gitPath) throws IOException {
-        String resolvedPath = Optional.ofNullable(gitPath)
-                .filter(path -> !path.isBlank())
-                .orElse(".");
-        this.git = Git.open(new File(resolvedPath));
+        this.git = GitRepositoryRegistry.borrow(gitPath);
         this.log = null;
     }
 
@@ -79,7 +90,7 @@ public class GitCommand {
      * @throws IOException if the Git repository cannot be opened from the current directory
      */
     public GitCommand(Log log) throws IOException {
-        this.git = Git.open(new File("."));
+        this.git = GitRepositoryRegistry.borrow();
         this.log = log;
     }
 
@@ -93,10 +104,7 @@ public class GitCommand {
      * @throws IOException if the Git repository cannot be opened from the given path
      */
     public GitCommand(Log log, String gitPath) throws IOException {
-        String resolvedPath = Optional.ofNullable(gitPath)
-                .filter(path -> !path.isBlank())
-                .orElse(".");
-        this.git = Git.open(new File(resolvedPath));
+        this.git = GitRepositoryRegistry.borrow(gitPath);
         this.log = log;
     }
 
@@ -147,16 +155,150 @@ public class GitCommand {
     }
 
     /**
-     * Opens the current Git repository and logs the name of the currently checked-out branch.
+     * Gets the remote ref snapshot shared by every GitCommand on this repository.
+     *
+     * @return the shared {@link RemoteRefSnapshot}
+     */
+    private RemoteRefSnapshot remoteRefs() {
+        return GitRepositoryRegistry.getRemoteRefSnapshot(git.getRepository());
+    }
+
+    /**
+     * Applies the remote ref snapshot time-to-live from the given configuration.
+     *
+     * @param configuration the git configuration holding the time-to-live
+     */
+    private void applyRemoteRefTtl(GitConfiguration configuration) {
+        remoteRefs().setTtl(Duration.ofSeconds(configuration.getRemoteRefTtl()));
+    }
+
+    /**
+     * Lists the branches and tags of origin in one round trip using HTTPS authentication.
+     *
+     * @param credentialsProvider the credentials provider for remote access
+     * @return a loader for the {@link RemoteRefSnapshot}
+     */
+    private RemoteRefSnapshot.Loader lsRemote(CredentialsProvider credentialsProvider) {
+        return () -> git.lsRemote()
+                .setRemote("origin")
+                .setHeads(true)
+                .setTags(true)
+                .setCredentialsProvider(credentialsProvider)
+                .call();
+    }
+
+    /**
+     * Lists the branches and tags of the SSH remote in one round trip.
+     *
+     * @param sshCallback the SSH transport configuration callback
+     * @return a loader for the {@link RemoteRefSnapshot}
+     */
+    private RemoteRefSnapshot.Loader lsRemote(TransportConfigCallback sshCallback) {
+        return () -> git.lsRemote()
+                .setRemote(SSH_REMOTE)
+                .setHeads(true)
+                .setTags(true)
+                .setTransportConfigCallback(sshCallback)
+                .call();
+    }
+
+    /**
+     * Checks whether a local remote-tracking ref already points at the commit the remote advertises,
+     * in which case fetching the branch again would not change anything.
+     *
+     * @param remote         the remote whose snapshot is consulted
+     * @param trackingRemote the remote name used in the local remote-tracking ref
+     * @param branch         the short branch name
+     * @param loader         lists the remote when the snapshot is missing or expired
+     * @return true if {@code refs/remotes/<trackingRemote>/<branch>} matches the remote
+     * @throws IOException     if the local ref cannot be read
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    private boolean isTrackingRefCurrent(String remote, String trackingRemote, String branch,
+                                         RemoteRefSnapshot.Loader loader) throws IOException, GitAPIException {
+        ObjectId localId = git.getRepository().resolve("refs/remotes/" + trackingRemote + "/" + branch);
+        Optional<ObjectId> fetchedId = remoteRefs().getFetched(remote, "refs/heads/" + branch);
+        if (fetchedId.isPresent()) {
+            return fetchedId.get().equals(localId);
+        }
+        Optional<ObjectId> remoteId = remoteRefs().getObjectId(remote, "refs/heads/" + branch, loader);
+        return remoteId.isPresent() && remoteId.get().equals(localId);
+    }
+
+    /**
+     * Returns the tag that belongs to a branch by the plugin's naming convention,
+     * e.g. {@code release-1.2.0} for {@code release/1.2.0}.
+     *
+     * @param branch the short branch name
+     * @return the matching tag name, or {@code null} if the branch has no prefix
+     */
+    private String matchingTag(String branch) {
+        int slash = branch.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        return branch.substring(0, slash) + "-" + branch.substring(slash + 1);
+    }
+
+    /**
+     * Fetches only the given branches, and their matching tags, instead of every ref on the remote.
+     * Branches whose remote-tracking ref is already current, and branches the remote does not have,
+     * are skipped; if nothing is left the fetch is not run at all. Fetched refs are recorded in the
+     * remote ref snapshot so later steps in the chain do not fetch them again.
+     *
+     * @param fetch          a fetch command with authentication already configured
+     * @param remote         the remote to fetch from
+     * @param trackingRemote the remote name used in the local remote-tracking refs
+     * @param loader         lists the remote when the snapshot is missing or expired
+     * @param branches       the short names of the branches to fetch
+     * @throws IOException     if a local ref cannot be read
+     * @throws GitAPIException if the remote cannot be listed or the fetch fails
+     */
+    private void fetchBranches(FetchCommand fetch, String remote, String trackingRemote,
+                               RemoteRefSnapshot.Loader loader, String... branches) throws IOException, GitAPIException {
+        RemoteRefSnapshot snapshot = remoteRefs();
+        Map<String, ObjectId> wanted = new LinkedHashMap<>();
+        List<RefSpec> refSpecs = new ArrayList<>();
+
+        for (String branch : branches) {
+            String branchRef = "refs/heads/" + branch;
+            Optional<ObjectId> branchId = snapshot.getObjectId(remote, branchRef, loader);
+            if (branchId.isPresent() && !isTrackingRefCurrent(remote, trackingRemote, branch, loader)) {
+                wanted.put(branchRef, branchId.get());
+                refSpecs.add(new RefSpec("+" + branchRef + ":refs/remotes/" + trackingRemote + "/" + branch));
+            }
+
+            String tag = matchingTag(branch);
+            if (tag != null && git.getRepository().exactRef("refs/tags/" + tag) == null) {
+                Optional<ObjectId> tagId = snapshot.getObjectId(remote, "refs/tags/" + tag, loader);
+                if (tagId.isPresent()) {
+                    wanted.put("refs/tags/" + tag, tagId.get());
+                    refSpecs.add(new RefSpec("+refs/tags/" + tag + ":refs/tags/" + tag));
+                }
+            }
+        }
+
+        if (refSpecs.isEmpty()) {
+            info("Refs for " + String.join(", ", branches) + " are up to date, skipping fetch from " + remote);
+            return;
+        }
+
+        fetch.setRemote(remote)
+                .setRefSpecs(refSpecs)
+                .call();
+        wanted.forEach((refName, id) -> snapshot.markFetched(remote, refName, id));
+        info("Fetched " + String.join(", ", wanted.keySet()) + " from " + remote);
+    }
+
+    /**
+     * Logs the name of the currently checked-out branch.
      *
      * @return this GitCommand instance
-     * @throws RuntimeException if the repository cannot be opened or the branch cannot be determined
+     * @throws RuntimeException if the branch cannot be determined
      */
     public GitCommand gitInfo() {
         String branch = "";
-        Git git = null;
         try {
-            git = Git.open(new File("."));
             branch = git.getRepository().getBranch();
             log.info("current branch is: " + branch);
         } catch (IOException e) {
@@ -174,12 +316,13 @@ public class GitCommand {
      * @return GitCommand
      */
     public GitCommand changeBranch(String targetBranch, GitConfiguration configuration) {
+        applyRemoteRefTtl(configuration);
         if (GitCredentialUtils.isSSH(configuration.getScm())) {
             info("using ssh");
             return changeBranch(targetBranch, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -191,8 +334,9 @@ public class GitCommand {
 
     /**
      * using HTTPS authentication.
-     * If the branch exists locally, it switches directly. If not, it attempts to fetch from origin.
-     * If the branch exists remotely, it is created locally and tracked. Otherwise, a new local-only
+     * If the branch exists locally, it switches directly. If not, it looks the branch up in the
+     * remote ref snapshot. If the branch exists remotely, it is fetched only when the local
+     * remote-tracking ref is behind, then created locally and tracked. Otherwise, a new local-only
      * branch is created.
      *
      * @param targetBranch        the name of the branch to switch to
@@ -218,19 +362,12 @@ public class GitCommand {
                 return this;
             }
 
-            git.fetch()
-                    .setRemote("origin")
-                    .setCredentialsProvider(credentialsProvider)
-                    .call();
-
-            boolean remoteExists = git.branchList()
-                    .setListMode(ListBranchCommand.ListMode.REMOTE)
-                    .call()
-                    .stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/remotes/origin/" + targetBranch));
+            RemoteRefSnapshot.Loader loader = lsRemote(credentialsProvider);
+            boolean remoteExists = remoteRefs().hasBranch("origin", targetBranch, loader);
 
             if (remoteExists) {
-                git.fetch().setCredentialsProvider(credentialsProvider).call();
+                fetchBranches(git.fetch().setCredentialsProvider(credentialsProvider),
+                        "origin", "origin", loader, targetBranch);
                 git.checkout()
                         .setCreateBranch(true)
                         .setName(targetBranch)
@@ -251,8 +388,9 @@ public class GitCommand {
 
     /**
      * Changes the current Git branch to the specified target branch using SSH authentication.
-     * If the branch exists locally, it switches directly. If not, it attempts to fetch from origin.
-     * If the branch exists remotely, it is created locally and tracked. Otherwise, a new local-only
+     * If the branch exists locally, it switches directly. If not, it looks the branch up in the
+     * remote ref snapshot. If the branch exists remotely, it is fetched only when the local
+     * remote-tracking ref is behind, then created locally and tracked. Otherwise, a new local-only
      * branch is created.
      *
      * @param targetBranch the name of the branch to switch to
@@ -284,20 +422,13 @@ public class GitCommand {
 
             GitCredentialUtils.addSSHRemote(git);
 
-            git.fetch()
-                    .setRemote(SSH_REMOTE)
-                    .setTransportConfigCallback(sshCallback)
-                    .call();
-
-            boolean remoteExists = git.branchList()
-                    .setListMode(ListBranchCommand.ListMode.REMOTE)
-                    .call()
-                    .stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/remotes/"+SSH_REMOTE+"/" + targetBranch));
+            RemoteRefSnapshot.Loader loader = lsRemote(sshCallback);
+            boolean remoteExists = remoteRefs().hasBranch(SSH_REMOTE, targetBranch, loader);
 
             if (remoteExists) {
                 info("has remote");
-                git.fetch().setRemote(SSH_REMOTE).setTransportConfigCallback(sshCallback).call();
+                fetchBranches(git.fetch().setTransportConfigCallback(sshCallback),
+                        SSH_REMOTE, SSH_REMOTE, loader, targetBranch);
                 git.checkout()
                         .setCreateBranch(true)
                         .setName(targetBranch)
@@ -327,13 +458,14 @@ public class GitCommand {
      * @throws RuntimeException if the branch creation fails
      */
     public GitCommand createBranch(String branchName, GitConfiguration configuration) {
+        applyRemoteRefTtl(configuration);
 
         if (GitCredentialUtils.isSSH(configuration.getScm())) {
             info("Using SSH to fetch branch data: " + branchName);
             return createBranch(branchName, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -366,18 +498,12 @@ public class GitCommand {
                 return this;
             }
 
-            git.fetch()
-                    .setRemote("origin")
-                    .setCredentialsProvider(credentialsProvider)
-                    .call();
-
-            boolean remoteExists = git.branchList()
-                    .setListMode(ListBranchCommand.ListMode.REMOTE)
-                    .call()
-                    .stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/remotes/origin/" + branchName));
+            RemoteRefSnapshot.Loader loader = lsRemote(credentialsProvider);
+            boolean remoteExists = remoteRefs().hasBranch("origin", branchName, loader);
 
             if (remoteExists) {
+                fetchBranches(git.fetch().setCredentialsProvider(credentialsProvider),
+                        "origin", "origin", loader, branchName);
                 git.checkout()
                         .setCreateBranch(true)
                         .setName(branchName)
@@ -393,7 +519,7 @@ public class GitCommand {
                 info("Created new local branch '" + branchName + "'.");
             }
 
-        } catch (GitAPIException e) {
+        } catch (IOException | GitAPIException e) {
             error("Failed to create branch: " + branchName, e);
             throw new RuntimeException("Failed to create branch: " + branchName, e);
         }
@@ -421,23 +547,17 @@ public class GitCommand {
 
             GitCredentialUtils.addSSHRemote(git);
 
-            git.fetch()
-                    .setRemote(SSH_REMOTE)
-                    .setTransportConfigCallback(sshCallback)
-                    .call();
-
-            boolean remoteExists = git.branchList()
-                    .setListMode(ListBranchCommand.ListMode.REMOTE)
-                    .call()
-                    .stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/remotes/origin/" + branchName));
+            RemoteRefSnapshot.Loader loader = lsRemote(sshCallback);
+            boolean remoteExists = remoteRefs().hasBranch(SSH_REMOTE, branchName, loader);
 
             if (remoteExists) {
+                fetchBranches(git.fetch().setTransportConfigCallback(sshCallback),
+                        SSH_REMOTE, SSH_REMOTE, loader, branchName);
                 git.checkout()
                         .setCreateBranch(true)
                         .setName(branchName)
                         .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.TRACK)
-                        .setStartPoint("origin/" + branchName)
+                        .setStartPoint(SSH_REMOTE + "/" + branchName)
                         .call();
                 info("Created and checked out branch '" + branchName + "' tracking origin.");
             } else {
@@ -448,7 +568,7 @@ public class GitCommand {
                 info("Created new local branch '" + branchName + "'.");
             }
 
-        } catch (GitAPIException e) {
+        } catch (IOException | GitAPIException e) {
             error("Failed to create branch: " + branchName, e);
             throw new RuntimeException("Failed to create branch: " + branchName, e);
         } catch (URISyntaxException e) {
@@ -477,7 +597,7 @@ public class GitCommand {
                 return pushBranch(transport -> {
                     if (transport instanceof SshTransport) {
                         SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                     }
                 });
             } else {
@@ -510,6 +630,7 @@ public class GitCommand {
                     .setRefSpecs(new RefSpec(currentBranch + ":" + currentBranch))
                     .setCredentialsProvider(credentialsProvider)
                     .call();
+            remoteRefs().invalidateAll();
             info("Pushed local branch '" + currentBranch + "' to origin.");
         } catch (IOException | GitAPIException e) {
             error("Failed to push branch", e);
@@ -534,6 +655,7 @@ public class GitCommand {
                     .setRefSpecs(new RefSpec(currentBranch + ":" + currentBranch))
                     .setTransportConfigCallback(sshCallback)
                     .call();
+            remoteRefs().invalidateAll();
             info("Pushed local branch '" + currentBranch + "' to origin.");
         } catch (IOException | GitAPIException | URISyntaxException e) {
             error("Failed to push branch", e);
@@ -579,7 +701,7 @@ public class GitCommand {
             return pushTag(tag, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -608,6 +730,7 @@ public class GitCommand {
                     .setRefSpecs(tagRefSpec)
                     .setCredentialsProvider(credentialsProvider)
                     .call();
+            remoteRefs().invalidateAll();
             info("Tag '" + tag + "' pushed to origin.");
         } catch (GitAPIException e) {
             error("Failed to push tag: " + tag, e);
@@ -633,6 +756,7 @@ public class GitCommand {
                     .setRefSpecs(tagRefSpec)
                     .setTransportConfigCallback(sshCallback)
                     .call();
+            remoteRefs().invalidateAll();
             info("Tag '" + tag + "' pushed to origin.");
         } catch (GitAPIException | URISyntaxException e) {
             error("Failed to push tag: " + tag, e);
@@ -666,7 +790,7 @@ public class GitCommand {
                 return removeTag(tag, transport -> {
                     if (transport instanceof SshTransport) {
                         SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                     }
                 });
             } else {
@@ -716,6 +840,7 @@ public class GitCommand {
                     .setCredentialsProvider(credentialsProvider)
                     .call();
 
+            remoteRefs().invalidateAll();
             info("Tag '" + tag + "' deleted from origin.");
         } catch (GitAPIException e) {
             error("Failed to remove tag: " + tag, e);
@@ -756,6 +881,7 @@ public class GitCommand {
                     .setTransportConfigCallback(sshCallback)
                     .call();
 
+            remoteRefs().invalidateAll();
             info("Tag '" + tag + "' deleted from origin.");
         } catch (GitAPIException | URISyntaxException e) {
             error("Failed to remove tag: " + tag, e);
@@ -766,7 +892,7 @@ public class GitCommand {
 
     /**
      * Checks whether a branch with the given name exists locally or remotely on origin,
-     * performing a fetch operation using the appropriate authentication strategy.
+     * consulting the remote ref snapshot using the appropriate authentication strategy.
      *
      * @param branchName    the name of the branch to check
      * @param configuration the Git configuration containing authentication and server details
@@ -774,12 +900,13 @@ public class GitCommand {
      * @throws RuntimeException if an error occurs during the check
      */
     public boolean checkIfBranchExists(String branchName, GitConfiguration configuration) {
+        applyRemoteRefTtl(configuration);
         if (GitCredentialUtils.isSSH(configuration.getScm())) {
             info("Using SSH to check existence of branch: " + branchName);
             return checkIfBranchExists(branchName, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -796,7 +923,7 @@ public class GitCommand {
 
     /**
      * Checks whether a branch with the given name exists locally or remotely on origin,
-     * performing a fetch operation using HTTPS authentication before checking.
+     * consulting the remote ref snapshot using HTTPS authentication.
      *
      * @param branchName          the name of the branch to check
      * @param credentialsProvider the credentials provider for remote access
@@ -805,21 +932,12 @@ public class GitCommand {
      */
     public boolean checkIfBranchExists(String branchName, CredentialsProvider credentialsProvider) {
         try {
-            git.fetch()
-                    .setRemote("origin")
-                    .setCredentialsProvider(credentialsProvider)
-                    .call();
-
             boolean localExists = git.branchList()
                     .call()
                     .stream()
                     .anyMatch(ref -> ref.getName().equals("refs/heads/" + branchName));
 
-            boolean remoteExists = git.branchList()
-                    .setListMode(ListBranchCommand.ListMode.REMOTE)
-                    .call()
-                    .stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/remotes/origin/" + branchName));
+            boolean remoteExists = remoteRefs().hasBranch("origin", branchName, lsRemote(credentialsProvider));
 
             if (localExists) info("Branch '" + branchName + "' exists locally.");
             if (remoteExists) info("Branch '" + branchName + "' exists on origin.");
@@ -834,7 +952,7 @@ public class GitCommand {
 
     /**
      * Checks whether a branch with the given name exists locally or remotely on origin,
-     * performing a fetch operation using SSH authentication before checking.
+     * consulting the remote ref snapshot using SSH authentication.
      *
      * @param branchName  the name of the branch to check
      * @param sshCallback the SSH transport configuration callback
@@ -844,21 +962,13 @@ public class GitCommand {
     public boolean checkIfBranchExists(String branchName, TransportConfigCallback sshCallback) {
         try {
             GitCredentialUtils.addSSHRemote(git);
-            git.fetch()
-                    .setRemote(SSH_REMOTE)
-                    .setTransportConfigCallback(sshCallback)
-                    .call();
 
             boolean localExists = git.branchList()
                     .call()
                     .stream()
                     .anyMatch(ref -> ref.getName().equals("refs/heads/" + branchName));
 
-            boolean remoteExists = git.branchList()
-                    .setListMode(ListBranchCommand.ListMode.REMOTE)
-                    .call()
-                    .stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/remotes/origin/" + branchName));
+            boolean remoteExists = remoteRefs().hasBranch(SSH_REMOTE, branchName, lsRemote(sshCallback));
 
             if (localExists) info("Branch '" + branchName + "' exists locally.");
             if (remoteExists) info("Branch '" + branchName + "' exists on origin.");
@@ -880,12 +990,13 @@ public class GitCommand {
      * @throws RuntimeException if the check operation fails
      */
     public boolean checkIfTagExists(String tagName, GitConfiguration configuration) {
+        applyRemoteRefTtl(configuration);
         if (GitCredentialUtils.isSSH(configuration.getScm())) {
             info("Using SSH to check existence of tag: " + tagName);
             return checkIfTagExists(tagName, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -915,14 +1026,7 @@ public class GitCommand {
                     .stream()
                     .anyMatch(ref -> ref.getName().equals("refs/tags/" + tagName));
 
-            Collection<Ref> remoteTags = git.lsRemote()
-                    .setRemote("origin")
-                    .setTags(true)
-                    .setCredentialsProvider(credentialsProvider)
-                    .call();
-
-            boolean remoteExists = remoteTags.stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/tags/" + tagName));
+            boolean remoteExists = remoteRefs().hasTag("origin", tagName, lsRemote(credentialsProvider));
 
             if (localExists) info("Tag '" + tagName + "' exists locally.");
             if (remoteExists) info("Tag '" + tagName + "' exists on origin.");
@@ -953,14 +1057,7 @@ public class GitCommand {
 
             GitCredentialUtils.addSSHRemote(git);
 
-            Collection<Ref> remoteTags = git.lsRemote()
-                    .setRemote(SSH_REMOTE)
-                    .setTags(true)
-                    .setTransportConfigCallback(sshCallback)
-                    .call();
-
-            boolean remoteExists = remoteTags.stream()
-                    .anyMatch(ref -> ref.getName().equals("refs/tags/" + tagName));
+            boolean remoteExists = remoteRefs().hasTag(SSH_REMOTE, tagName, lsRemote(sshCallback));
 
             if (localExists) info("Tag '" + tagName + "' exists locally.");
             if (remoteExists) info("Tag '" + tagName + "' exists on origin.");
@@ -1057,6 +1154,50 @@ public class GitCommand {
         return this;
     }
 
+    /**
+     * Checks whether origin has a branch, as of the last fetch, by its remote-tracking ref.
+     * Unlike {@link #checkIfBranchExists(String, GitConfiguration)}, a local branch of that name does not count.
+     *
+     * @param branchName the name of the branch
+     * @return {@code true} if {@code refs/remotes/origin/<branchName>} exists
+     * @throws RuntimeException if the ref cannot be read
+     */
+    public boolean hasRemoteTrackingBranch(String branchName) {
+        try {
+            return git.getRepository().exactRef(Constants.R_REMOTES + "origin/" + branchName) != null;
+        } catch (IOException e) {
+            error("Failed to read remote-tracking branch " + branchName, e);
+            throw new RuntimeException("Failed to read remote-tracking branch " + branchName, e);
+        }
+    }
+
+    /**
+     * Resets the current branch, the index and the working directory to a ref,
+     * discarding local commits and changes (equivalent to 'git reset --hard &lt;ref&gt;').
+     * Nothing is done if the ref does not exist, e.g. a branch that is not on the remote yet.
+     *
+     * @param ref the ref or commit to reset to, e.g. {@code refs/remotes/origin/development}
+     * @return this GitCommand instance
+     * @throws RuntimeException if the reset operation fails
+     */
+    public GitCommand resetTo(String ref) {
+        try {
+            if (git.getRepository().resolve(ref) == null) {
+                info("Nothing to reset to, '" + ref + "' does not exist.");
+                return this;
+            }
+            git.reset()
+                    .setMode(org.eclipse.jgit.api.ResetCommand.ResetType.HARD)
+                    .setRef(ref)
+                    .call();
+            info("Reset to '" + ref + "'.");
+        } catch (IOException | GitAPIException e) {
+            error("Failed to reset to '" + ref + "'", e);
+            throw new RuntimeException("Failed to reset to " + ref, e);
+        }
+        return this;
+    }
+
     /**
      * Performs a hard reset on the specified file pattern, discarding all changes
      * in the working directory and index for those files. If no pattern is provided
@@ -1094,7 +1235,7 @@ public class GitCommand {
             return pull(transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -1116,7 +1257,7 @@ public class GitCommand {
      * @throws RuntimeException if the pull operation fails
      */
     public GitCommand pull(CredentialsProvider credentialsProvider) {
-        try (Git git = Git.open(new File("."))) {
+        try {
             Repository repo = git.getRepository();
             ObjectId oldHead = repo.resolve("HEAD^{tree}");
 
@@ -1173,7 +1314,7 @@ public class GitCommand {
      * @throws RuntimeException if the pull operation fails
      */
     public GitCommand pull(TransportConfigCallback sshCallback) {
-        try (Git git = Git.open(new File("."))) {
+        try {
             Repository repo = git.getRepository();
             ObjectId oldHead = repo.resolve("HEAD^{tree}");
 
@@ -1240,7 +1381,7 @@ public class GitCommand {
             return push(transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -1262,8 +1403,7 @@ public class GitCommand {
      * @throws RuntimeException if the push operation fails
      */
     public GitCommand push(CredentialsProvider credentialsProvider) {
-        try (Git git = Git.open(new File("."))) {
-
+        try {
             Iterable<PushResult> results = git.push()
                     .setRemote("origin")
                     .setCredentialsProvider(credentialsProvider)
@@ -1277,8 +1417,9 @@ public class GitCommand {
                             update.getRemoteName()));
                 }
             }
+            remoteRefs().invalidateAll();
             info("Push to origin completed successfully.");
-        } catch (GitAPIException | IOException e) {
+        } catch (GitAPIException e) {
             error("Failed to push changes", e);
             throw new RuntimeException("Failed to push changes", e);
         }
@@ -1293,7 +1434,7 @@ public class GitCommand {
      * @throws RuntimeException if the push operation fails
      */
     public GitCommand push(TransportConfigCallback sshCallback) {
-        try (Git git = Git.open(new File("."))) {
+        try {
             GitCredentialUtils.addSSHRemote(git);
 
             Iterable<PushResult> results = git.push()
@@ -1309,14 +1450,174 @@ public class GitCommand {
                             update.getRemoteName()));
                 }
             }
+            remoteRefs().invalidateAll();
             info("Push to SSH remote completed successfully.");
-        } catch (GitAPIException | IOException | URISyntaxException e) {
+        } catch (GitAPIException | URISyntaxException e) {
             error("Failed to push changes via SSH", e);
             throw new RuntimeException("Failed to push changes", e);
         }
         return this;
     }
 
+    /**
+     * Queues the current local branch for the next {@link #pushQueued(GitConfiguration)}.
+     *
+     * @return this GitCommand instance
+     * @throws RuntimeException if the current branch cannot be determined
+     */
+    public GitCommand queueBranchPush() {
+        try {
+            return queueBranchPush(git.getRepository().getBranch());
+        } catch (IOException e) {
+            error("Failed to determine current branch", e);
+            throw new RuntimeException("Failed to queue current branch", e);
+        }
+    }
+
+    /**
+     * Queues a local branch for the next {@link #pushQueued(GitConfiguration)}.
+     * The branch is pushed at the commit it points to when the queue is pushed.
+     *
+     * @param branchName the short name of the local branch
+     * @return this GitCommand instance
+     */
+    public GitCommand queueBranchPush(String branchName) {
+        String refName = Constants.R_HEADS + branchName;
+        queuedPushes.put(refName, new RefSpec(refName + ":" + refName));
+        info("Queued branch '" + branchName + "' for push.");
+        return this;
+    }
+
+    /**
+     * Queues a local tag for the next {@link #pushQueued(GitConfiguration)}.
+     *
+     * @param tag the name of the tag
+     * @return this GitCommand instance
+     */
+    public GitCommand queueTagPush(String tag) {
+        String refName = Constants.R_TAGS + tag;
+        queuedPushes.put(refName, new RefSpec(refName + ":" + refName));
+        info("Queued tag '" + tag + "' for push.");
+        return this;
+    }
+
+    /**
+     * Pushes every queued branch and tag in a single atomic push, using the appropriate authentication strategy.
+     * Either all refs are updated on the remote or none are.
+     *
+     * @param configuration the Git configuration containing authentication and server details
+     * @return this GitCommand instance
+     * @throws RuntimeException if the push fails or the remote rejects any of the refs
+     */
+    public GitCommand pushQueued(GitConfiguration configuration) {
+        if (GitCredentialUtils.isSSH(configuration.getScm())) {
+            info("Using SSH for atomic push");
+            return pushQueued(transport -> {
+                if (transport instanceof SshTransport) {
+                    SshTransport sshTransport = (SshTransport) transport;
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
+                }
+            });
+        } else {
+            info("Using HTTPS credentials for atomic push");
+            String password = configuration.getSettings()
+                    .getServer(configuration.getServerKey())
+                    .getPassword();
+            CredentialsProvider credentialsProvider = GitCredentialUtils.getUserProvider(password);
+            return pushQueued(credentialsProvider);
+        }
+    }
+
+    /**
+     * Pushes every queued branch and tag to the origin remote in a single atomic push using HTTPS authentication.
+     *
+     * @param credentialsProvider the credentials provider for remote access
+     * @return this GitCommand instance
+     * @throws RuntimeException if the push fails or the remote rejects any of the refs
+     */
+    public GitCommand pushQueued(CredentialsProvider credentialsProvider) {
+        if (queuedPushes.isEmpty()) {
+            info("Nothing queued to push.");
+            return this;
+        }
+        try {
+            Iterable<PushResult> results = git.push()
+                    .setRemote("origin")
+                    .setRefSpecs(new ArrayList<>(queuedPushes.values()))
+                    .setAtomic(true)
+                    .setCredentialsProvider(credentialsProvider)
+                    .call();
+            checkAtomicPush(results);
+            info("Atomic push to origin completed successfully.");
+        } catch (GitAPIException e) {
+            error("Failed to push queued refs", e);
+            throw new RuntimeException("Failed to push queued refs", e);
+        } finally {
+            queuedPushes.clear();
+            remoteRefs().invalidateAll();
+        }
+        return this;
+    }
+
+    /**
+     * Pushes every queued branch and tag to the SSH remote in a single atomic push using SSH authentication.
+     *
+     * @param sshCallback the SSH transport configuration callback
+     * @return this GitCommand instance
+     * @throws RuntimeException if the push fails or the remote rejects any of the refs
+     */
+    public GitCommand pushQueued(TransportConfigCallback sshCallback) {
+        if (queuedPushes.isEmpty()) {
+            info("Nothing queued to push.");
+            return this;
+        }
+        try {
+            GitCredentialUtils.addSSHRemote(git);
+
+            Iterable<PushResult> results = git.push()
+                    .setRemote(SSH_REMOTE)
+                    .setRefSpecs(new ArrayList<>(queuedPushes.values()))
+                    .setAtomic(true)
+                    .setTransportConfigCallback(sshCallback)
+                    .call();
+            checkAtomicPush(results);
+            info("Atomic push to SSH remote completed successfully.");
+        } catch (GitAPIException | URISyntaxException e) {
+            error("Failed to push queued refs via SSH", e);
+            throw new RuntimeException("Failed to push queued refs", e);
+        } finally {
+            queuedPushes.clear();
+            remoteRefs().invalidateAll();
+        }
+        return this;
+    }
+
+    /**
+     * Logs the status of every ref in an atomic push and fails if any of them was not applied.
+     *
+     * @param results the push results
+     * @throws RuntimeException if a ref was rejected, in which case the remote applied none of them
+     */
+    private void checkAtomicPush(Iterable<PushResult> results) {
+        List<String> rejected = new ArrayList<>();
+        for (PushResult result : results) {
+            for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+                info(String.format("Update status: %s - %s → %s",
+                        update.getStatus(),
+                        update.getSrcRef(),
+                        update.getRemoteName()));
+                if (update.getStatus() != RemoteRefUpdate.Status.OK
+                        && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+                    rejected.add(update.getRemoteName() + " (" + update.getStatus()
+                            + (update.getMessage() != null ? ": " + update.getMessage() : "") + ")");
+                }
+            }
+        }
+        if (!rejected.isEmpty()) {
+            throw new RuntimeException("Atomic push rejected, no refs were updated: " + String.join(", ", rejected));
+        }
+    }
+
     /**
      * Fetches changes from the origin remote using the appropriate authentication strategy.
      *
@@ -1330,7 +1631,7 @@ public class GitCommand {
             return fetch(transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -1425,7 +1726,7 @@ public class GitCommand {
             return deleteRemoteBranch(branchName, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -1454,6 +1755,7 @@ public class GitCommand {
                     .setRefSpecs(refSpec)
                     .setCredentialsProvider(credentialsProvider)
                     .call();
+            remoteRefs().invalidateAll();
             info("Deleted remote branch: " + branchName);
         } catch (GitAPIException e) {
             error("Failed to delete remote branch: " + branchName, e);
@@ -1479,6 +1781,7 @@ public class GitCommand {
                     .setRefSpecs(refSpec)
                     .setTransportConfigCallback(sshCallback)
                     .call();
+            remoteRefs().invalidateAll();
             info("Deleted remote branch: " + branchName);
         } catch (GitAPIException | URISyntaxException e) {
             error("Failed to delete remote branch: " + branchName, e);
@@ -1522,7 +1825,7 @@ public class GitCommand {
             return deleteRemoteTag(tagName, transport -> {
                 if (transport instanceof SshTransport) {
                     SshTransport sshTransport = (SshTransport) transport;
-                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                 }
             });
         } else {
@@ -1551,6 +1854,7 @@ public class GitCommand {
                     .setRefSpecs(refSpec)
                     .setCredentialsProvider(credentialsProvider)
                     .call();
+            remoteRefs().invalidateAll();
             info("Deleted remote tag: " + tagName);
         } catch (GitAPIException e) {
             error("Failed to delete remote tag: " + tagName, e);
@@ -1576,6 +1880,7 @@ public class GitCommand {
                     .setRefSpecs(refSpec)
                     .setTransportConfigCallback(sshCallback)
                     .call();
+            remoteRefs().invalidateAll();
             info("Deleted remote tag: " + tagName);
         } catch (GitAPIException | URISyntaxException e) {
             error("Failed to delete remote tag: " + tagName, e);
@@ -1585,31 +1890,56 @@ public class GitCommand {
     }
 
     /**
-     * Closes the underlying Git repository, releasing any held resources.
-     * After calling this method, no further Git operations should be performed
-     * with this instance.
+     * Releases this instance's handle on the shared Git repository.
+     * The repository itself stays open in the {@link GitRepositoryRegistry} until the
+     * mojo execution ends. After calling this method, no further Git operations should
+     * be performed with this instance.
      *
      * @return this GitCommand instance
      */
     public GitCommand close() {
         git.close();
-        info("Closed git repository.");
+        info("Released git repository.");
         return this;
     }
 
     /**
      * Executes the provided {@link PomCommand} using the specified {@link Consumer}.
      * This is a flexible way to apply operations or transformations on a Maven POM file.
+     * The POMs changed by the step are written once when it ends, before any following Git command.
+     * If the step fails, its changes are dropped instead, so no later step writes them.
      *
      * @param pomCommandConsumer the consumer that defines how the command should be executed
      * @param command            the PomCommand instance to execute
      * @return this GitCommand instance
+     * @throws RuntimeException if the step fails or a changed POM cannot be written
      */
     public GitCommand runPomCommands(@NotNull Consumer<PomCommand> pomCommandConsumer, PomCommand command) {
-        pomCommandConsumer.accept(command);
+        try {
+            pomCommandConsumer.accept(command);
+            command.flush();
+        } catch (MojoExecutionException | RuntimeException e) {
+            discardPomChanges(command);
+            error("Failed to write pom.xml", e);
+            throw e instanceof RuntimeException ? (RuntimeException) e
+                    : new RuntimeException("Failed to write pom.xml", e);
+        }
         return this;
     }
 
+    /**
+     * Drops the unwritten POM changes of a failed step, keeping the original failure.
+     *
+     * @param command the PomCommand of the step
+     */
+    private void discardPomChanges(PomCommand command) {
+        try {
+            command.discard();
+        } catch (MojoExecutionException e) {
+            error("Failed to drop changes to pom.xml", e);
+        }
+    }
+
     /**
      * Executes the provided {@link ShellCommand} using the specified {@link Consumer}.
      * Run a shell command.
@@ -1632,22 +1962,28 @@ public class GitCommand {
      */
     public GitCommand mergeBranches(@NotNull String from, @NotNull String to, GitConfiguration configuration) {
         try {
-            // Determine fetch strategy
+            applyRemoteRefTtl(configuration);
+
+            // Determine fetch strategy, fetching only the two branches involved in the merge
             if (GitCredentialUtils.isSSH(configuration.getScm())) {
                 info("Using SSH for branch fetch before merge");
-                fetch(transport -> {
+                TransportConfigCallback sshCallback = transport -> {
                     if (transport instanceof SshTransport) {
                         SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
+                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
                     }
-                });
+                };
+                GitCredentialUtils.addSSHRemote(git);
+                fetchBranches(git.fetch().setTransportConfigCallback(sshCallback),
+                        SSH_REMOTE, "origin", lsRemote(sshCallback), from, to);
             } else {
                 info("Using HTTPS credentials for branch fetch before merge");
                 String password = configuration.getSettings()
                         .getServer(configuration.getServerKey())
                         .getPassword();
                 CredentialsProvider credentialsProvider = GitCredentialUtils.getUserProvider(password);
-                fetch(credentialsProvider);
+                fetchBranches(git.fetch().setCredentialsProvider(credentialsProvider),
+                        "origin", "origin", lsRemote(credentialsProvider), from, to);
             }
 
             List<Ref> refs = git.branchList().setListMode(ListBranchCommand.ListMode.ALL).call();
@@ -1709,7 +2045,7 @@ public class GitCommand {
                     throw new RuntimeException("Merge failed: " + result.getMergeStatus());
             }
 
-        } catch (GitAPIException | IOException e) {
+        } catch (GitAPIException | IOException | URISyntaxException e) {
             error("Error merging " + from + " into " + to, e);
             throw new RuntimeException("Failed to merge branches", e);
         }
@@ -1871,101 +2207,285 @@ public class GitCommand {
     }
 
     /**
-     * Generates release notes between two Git refs and appends them in reverse order to a changelog file.
+     * Fetches the history release notes are generated from, using the configured fetch mode if one is set
+     * and the plain fetch for the remote's protocol otherwise.
+     *
+     * @param configuration the Git configuration for credentials and fetch mode
+     */
+    private void fetchForReleaseNotes(GitConfiguration configuration) {
+        if (configuration.getFetchMode() != null) {
+            info("Fetching with mode " + configuration.getFetchMode());
+            GitUtils.safeFetch(git, configuration, log, configuration.getFetchMode());
+        } else {
+            fetch(configuration);
+        }
+    }
+
+    /**
+     * Generates release notes since the previous tag in one or more layouts and writes each to a changelog file,
+     * at the configured {@link com.mockholm.config.ChangelogPosition}, replacing any section already written for
+     * {@code toRef}.
      *
      * @param toRef         the ending Git reference (e.g., current tag)
      * @param configuration the Git configuration for credentials
      * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @param types         the layouts to generate
      * @return this GitCommand instance
      * @throws RuntimeException if Git operations or file writing fails
      */
-    public GitCommand generateReleaseNotes(String toRef, GitConfiguration configuration, String changelogPath) {
-        String fromRef = GitUtils.getPreviousTag(git, configuration, log);
-        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath);
+    public GitCommand generateReleaseNotes(String toRef, GitConfiguration configuration, String changelogPath,
+                                           ReleaseNotesType... types) {
+        return generateReleaseNotes(toRef, configuration, changelogPath, List.of(), types);
+    }
+
+    /**
+     * Generates release notes since the previous tag in one or more layouts, for the whole repository and for
+     * each module directory.
+     *
+     * @param toRef         the ending Git reference (e.g., current tag)
+     * @param configuration the Git configuration for credentials
+     * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @param modules       the module directories receiving their own changelog
+     * @param types         the layouts to generate
+     * @return this GitCommand instance
+     * @throws RuntimeException if Git operations or file writing fails
+     */
+    public GitCommand generateReleaseNotes(String toRef, GitConfiguration configuration, String changelogPath,
+                                           Collection<File> modules, ReleaseNotesType... types) {
+        String fromRef = GitUtils.getPreviousTag(git, configuration, log, toRef);
+        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath, modules, types);
     }
 
     /**
-     * Generates release notes between two Git refs and appends them in reverse order to a changelog file.
+     * Generates release notes between two Git refs in one or more layouts and writes them to a changelog file.
+     * <p>
+     * The remote is fetched once and the range is walked once, whatever the number of layouts; every commit is
+     * handed to the formatter of each requested {@link ReleaseNotesType}. The layouts are written in the
+     * order the types are given, at the configured {@link com.mockholm.config.ChangelogPosition}, replacing
+     * any sections already written for {@code toRef}. The changelog is replaced atomically once complete.
      *
      * @param fromRef       the starting Git reference (e.g., previous tag)
      * @param toRef         the ending Git reference (e.g., current tag)
      * @param configuration the Git configuration for credentials
      * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @param types         the layouts to generate
      * @return this GitCommand instance
      * @throws RuntimeException if Git operations or file writing fails
      */
-    public GitCommand generateReleaseNotes(String fromRef, String toRef, GitConfiguration configuration, String changelogPath) {
+    public GitCommand generateReleaseNotes(String fromRef, String toRef, GitConfiguration configuration,
+                                           String changelogPath, ReleaseNotesType... types) {
+        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath, List.of(), types);
+    }
+
+    /**
+     * Generates release notes between two Git refs in one or more layouts, for the whole repository and for
+     * each module directory.
+     * <p>
+     * Each module gets a changelog with the same file name in its own directory, listing only the commits that
+     * change files below it. The module changelogs come out of the same fetch and walk as the aggregate one;
+     * every commit is diffed once against its parents to find the modules it touches. Modules outside the
+     * work tree, and the work tree root, are covered by the aggregate changelog only. When
+     * {@link GitConfiguration#getNotesJsonPath()} is set, one JSON record per commit is streamed there as well.
+     *
+     * @param fromRef       the starting Git reference (e.g., previous tag)
+     * @param toRef         the ending Git reference (e.g., current tag)
+     * @param configuration the Git configuration for credentials
+     * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @param modules       the module directories receiving their own changelog
+     * @param types         the layouts to generate
+     * @return this GitCommand instance
+     * @throws RuntimeException if Git operations or file writing fails
+     */
+    public GitCommand generateReleaseNotes(String fromRef, String toRef, GitConfiguration configuration,
+                                           String changelogPath, Collection<File> modules,
+                                           ReleaseNotesType... types) {
         if (changelogPath == null || changelogPath.isEmpty()) {
             changelogPath = "CHANGELOG.md";
         }
 
         try {
             // 🔐 Fetch latest from origin
-            if (GitCredentialUtils.isSSH(configuration.getScm())) {
-                info("Fetching with SSH");
-                fetch(transport -> {
-                    if (transport instanceof SshTransport) {
-                        SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
-                    }
-                });
-            } else {
-                info("Fetching with HTTPS credentials");
-                CredentialsProvider credentialsProvider =
-                        GitCredentialUtils.getUserProvider(
-                                configuration.getSettings()
-                                        .getServer(configuration.getServerKey())
-                                        .getPassword()
-                        );
-                fetch(credentialsProvider);
+            fetchForReleaseNotes(configuration);
+
+            // Deepen a shallow clone until the whole range is present
+            GitUtils.ensureHistory(git, configuration, log, fromRef, toRef);
+
+            if (configuration.isCommitGraph()) {
+                CommitGraphUtils.update(git, log);
             }
 
-            // Resolve refs safely to commits
-            RevWalk revWalk = new RevWalk(git.getRepository());
-            info("fromRef: "+fromRef);
-            RevCommit fromCommit = revWalk.parseCommit(git.getRepository().resolve(fromRef));
-            info("toRef: "+toRef);
-            RevCommit toCommit = revWalk.parseCommit(git.getRepository().resolve(toRef));
-
-            Iterable<RevCommit> commits = git.log().addRange(fromCommit, toCommit).call();
-            revWalk.close();
-
-            List<String> commitLines = new ArrayList<>();
-            for (RevCommit commit : commits) {
-                String shortHash = commit.getId().abbreviate(7).name();
-                String message = commit.getShortMessage();
-                String author = commit.getAuthorIdent().getName();
-                commitLines.add(String.format("- [%s] %s (by %s)", shortHash, message, author));
+            // ✅ Peel tags and resolve refs to commits
+            RevCommit fromCommit;
+            RevCommit toCommit;
+            try (RevWalk revWalk = new RevWalk(git.getRepository())) {
+                info("fromRef: " + fromRef);
+                fromCommit = revWalk.parseCommit(git.getRepository().resolve(fromRef));
+                info("toRef: " + toRef);
+                toCommit = revWalk.parseCommit(git.getRepository().resolve(toRef));
             }
 
-            // ⏪ Reverse order
-            Collections.reverse(commitLines);
+            ReleaseNotesEngine engine = new ReleaseNotesEngine(git.getRepository(), configuration, log);
+            for (ReleaseNotesType type : new LinkedHashSet<>(Arrays.asList(types))) {
+                engine.addFormatter(ReleaseNotesFormatter.of(type));
+            }
 
-            StringBuilder notes = new StringBuilder();
-            notes.append("### ").append(toRef).append("\n\n");
-            for (String line : commitLines) {
-                notes.append(line).append("\n");
+            // 📦 Module directories relative to the work tree
+            Path workTree = git.getRepository().getWorkTree().toPath().toAbsolutePath().normalize();
+            Map<String, Path> moduleChangelogs = new LinkedHashMap<>();
+            for (File module : modules) {
+                Path moduleDir = module.toPath().toAbsolutePath().normalize();
+                if (!moduleDir.startsWith(workTree) || moduleDir.equals(workTree)) {
+                    continue;
+                }
+                String relative = workTree.relativize(moduleDir).toString().replace(File.separatorChar, '/');
+                moduleChangelogs.put(relative, moduleDir.resolve(Path.of(changelogPath).getFileName()));
             }
 
-            Files.write(
-                    Path.of(changelogPath),
-                    notes.toString().getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.APPEND
-            );
+            // 📝 Stream into temporary copies of the changelogs and swap them in once complete
+            List<ChangelogWriter> changelogs = new ArrayList<>();
+            NdjsonReleaseNotesWriter records = null;
+            try {
+                if (configuration.getNotesJsonPath() != null && !configuration.getNotesJsonPath().isBlank()) {
+                    records = new NdjsonReleaseNotesWriter(Path.of(configuration.getNotesJsonPath()));
+                    engine.addSink(records);
+                }
+
+                ChangelogWriter changelog = new ChangelogWriter(Path.of(changelogPath),
+                        configuration.getChangelogPosition(), toRef);
+                changelogs.add(changelog);
+                Map<String, Writer> moduleWriters = new LinkedHashMap<>();
+                for (Map.Entry<String, Path> module : moduleChangelogs.entrySet()) {
+                    ChangelogWriter moduleChangelog = new ChangelogWriter(module.getValue(),
+                            configuration.getChangelogPosition(), toRef);
+                    changelogs.add(moduleChangelog);
+                    moduleWriters.put(module.getKey(), moduleChangelog.getWriter());
+                }
+
+                engine.generate(fromCommit, toCommit, toRef, changelog.getWriter(), moduleWriters);
+                for (ChangelogWriter writer : changelogs) {
+                    writer.commit();
+                }
+                if (records != null) {
+                    records.commit();
+                }
+            } finally {
+                for (ChangelogWriter writer : changelogs) {
+                    writer.close();
+                }
+                if (records != null) {
+                    records.close();
+                }
+            }
 
-            info("Reverse-ordered release notes appended to " + changelogPath);
+            info("Release notes written to the " + configuration.getChangelogPosition().name().toLowerCase()
+                    + " of " + changelogPath
+                    + (moduleChangelogs.isEmpty() ? "" : " and of " + moduleChangelogs.size() + " module changelogs"));
             return this;
 
-        } catch (GitAPIException | IOException e) {
-            error("Failed to generate and export reverse release notes", e);
-            throw new RuntimeException("Release note generation and export failed", e);
+        } catch (IOException e) {
+            error("Failed to generate release notes", e);
+            throw new RuntimeException("Release note generation failed", e);
+        }
+    }
+
+    /**
+     * Writes release notes for every release tag at once, e.g. when the plugin is adopted on an existing repository.
+     * <p>
+     * Instead of generating notes for each pair of consecutive tags, which walks overlapping history again for
+     * every release, the history is walked once from all release tags and each commit is listed under the
+     * oldest release containing it. Releases are ordered by the version in their tag name, as the
+     * {@link TagIndex} keeps them, so tags made out of order still land in the right place; pre-release tags are
+     * skipped, and sections already written for any of the releases are replaced.
+     *
+     * @param tagPrefix     the prefix of the release tags, e.g. {@code release-}
+     * @param configuration the Git configuration for credentials
+     * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @param types         the layouts to generate
+     * @return this GitCommand instance
+     * @throws RuntimeException if Git operations or file writing fails
+     */
+    public GitCommand backfillReleaseNotes(String tagPrefix, GitConfiguration configuration, String changelogPath,
+                                           ReleaseNotesType... types) {
+        if (changelogPath == null || changelogPath.isEmpty()) {
+            changelogPath = "CHANGELOG.md";
+        }
+
+        try {
+            // 🔐 Fetch latest from origin
+            fetchForReleaseNotes(configuration);
+
+            List<String> releases = TagIndex.open(git.getRepository()).getReleases(tagPrefix).stream()
+                    .map(TagIndex.Tag::getName)
+                    .collect(Collectors.toList());
+            if (releases.isEmpty()) {
+                warn("No release tags found with prefix " + tagPrefix);
+                return this;
+            }
+            info(String.format("Backfilling %d releases from %s to %s",
+                    releases.size(), releases.get(0), releases.get(releases.size() - 1)));
+
+            // Deepen a shallow clone until every release is present
+            GitUtils.ensureHistory(git, configuration, log, releases.get(0), releases.get(releases.size() - 1));
+
+            if (configuration.isCommitGraph()) {
+                CommitGraphUtils.update(git, log);
+            }
+
+            ReleaseNotesEngine engine = new ReleaseNotesEngine(git.getRepository(), configuration, log);
+            for (ReleaseNotesType type : new LinkedHashSet<>(Arrays.asList(types))) {
+                engine.addFormatter(ReleaseNotesFormatter.of(type));
+            }
+
+            // 📝 Stream into a temporary copy of the changelog and swap it in once complete
+            try (ChangelogWriter changelog = new ChangelogWriter(Path.of(changelogPath),
+                    configuration.getChangelogPosition(), releases)) {
+                engine.backfill(releases, changelog.getWriter());
+                changelog.commit();
+            }
+
+            info("Backfilled release notes written to " + changelogPath);
+            return this;
+
+        } catch (IOException e) {
+            error("Failed to backfill release notes", e);
+            throw new RuntimeException("Release note backfill failed", e);
         }
     }
 
+    /**
+     * Generates release notes since the previous tag into a changelog file, written at the configured {@link com.mockholm.config.ChangelogPosition}, replacing
+     * any section already written for {@code toRef}.
+     *
+     * @param toRef         the ending Git reference (e.g., current tag)
+     * @param configuration the Git configuration for credentials
+     * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @return this GitCommand instance
+     * @throws RuntimeException if Git operations or file writing fails
+     */
+    public GitCommand generateReleaseNotes(String toRef, GitConfiguration configuration, String changelogPath) {
+        String fromRef = GitUtils.getPreviousTag(git, configuration, log, toRef);
+        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath);
+    }
+
+    /**
+     * Generates release notes between two Git refs into a changelog file, written at the configured {@link com.mockholm.config.ChangelogPosition}, replacing
+     * any section already written for {@code toRef}.
+     *
+     * @param fromRef       the starting Git reference (e.g., previous tag)
+     * @param toRef         the ending Git reference (e.g., current tag)
+     * @param configuration the Git configuration for credentials
+     * @param changelogPath optional path to save the changelog file (defaults to CHANGELOG.md)
+     * @return this GitCommand instance
+     * @throws RuntimeException if Git operations or file writing fails
+     */
+    public GitCommand generateReleaseNotes(String fromRef, String toRef, GitConfiguration configuration, String changelogPath) {
+        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath, ReleaseNotesType.STANDARD);
+    }
+
     /**
      * Parses and categorizes commits between two refs using Conventional Commit messages.
-     * Appends structured release notes to a changelog file.
+     * Writes structured release notes to a changelog file, at the configured
+     * {@link com.mockholm.config.ChangelogPosition}, replacing any section already written for {@code toRef}.
      *
      * @param toRef         the ending Git reference (e.g., current tag)
      * @param configuration the Git configuration for authentication
@@ -1974,13 +2494,14 @@ public class GitCommand {
      * @throws RuntimeException if Git operations fail
      */
     public GitCommand generateCategorizedReleaseNotes(String toRef, GitConfiguration configuration, String changelogPath) {
-        String fromRef = GitUtils.getPreviousTag(git, configuration, log);
+        String fromRef = GitUtils.getPreviousTag(git, configuration, log, toRef);
         return generateCategorizedReleaseNotes(fromRef, toRef, configuration, changelogPath);
     }
 
     /**
      * Parses and categorizes commits between two refs using Conventional Commit messages.
-     * Appends structured release notes to a changelog file.
+     * Writes structured release notes to a changelog file, at the configured
+     * {@link com.mockholm.config.ChangelogPosition}, replacing any section already written for {@code toRef}.
      *
      * @param fromRef       the starting Git reference (e.g., previous tag)
      * @param toRef         the ending Git reference (e.g., current tag)
@@ -1990,96 +2511,13 @@ public class GitCommand {
      * @throws RuntimeException if Git operations fail
      */
     public GitCommand generateCategorizedReleaseNotes(String fromRef, String toRef, GitConfiguration configuration, String changelogPath) {
-        if (changelogPath == null || changelogPath.isEmpty()) {
-            changelogPath = "CHANGELOG.md";
-        }
-
-        Map<String, List<String>> sections = new LinkedHashMap<>();
-        sections.put("✨ Features", new ArrayList<>());
-        sections.put("🐛 Fixes", new ArrayList<>());
-        sections.put("🧹 Chores", new ArrayList<>());
-        sections.put("📚 Documentation", new ArrayList<>());
-        sections.put("🔧 Others", new ArrayList<>());
-
-        try {
-            // ⬇️ Fetch latest history
-            if (GitCredentialUtils.isSSH(configuration.getScm())) {
-                info("Fetching with SSH");
-                fetch(transport -> {
-                    if (transport instanceof SshTransport) {
-                        SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
-                    }
-                });
-            } else {
-                info("Fetching with HTTPS credentials");
-                CredentialsProvider credentialsProvider =
-                        GitCredentialUtils.getUserProvider(
-                                configuration.getSettings()
-                                        .getServer(configuration.getServerKey())
-                                        .getPassword()
-                        );
-                fetch(credentialsProvider);
-            }
-
-            // ✅ Peel tags and ensure commits
-            RevWalk revWalk = new RevWalk(git.getRepository());
-            RevCommit fromCommit = revWalk.parseCommit(git.getRepository().resolve(fromRef));
-            RevCommit toCommit = revWalk.parseCommit(git.getRepository().resolve(toRef));
-
-            Iterable<RevCommit> commits = git.log().addRange(fromCommit, toCommit).call();
-            revWalk.close();
-
-            for (RevCommit commit : commits) {
-                String message = commit.getShortMessage();
-                String author = commit.getAuthorIdent().getName();
-                String shortHash = commit.getId().abbreviate(7).name();
-                String entry = String.format("- [%s] %s (by %s)", shortHash, message, author);
-
-                if (message.startsWith("feat:")) {
-                    sections.get("✨ Features").add(entry);
-                } else if (message.startsWith("fix:")) {
-                    sections.get("🐛 Fixes").add(entry);
-                } else if (message.startsWith("chore:")) {
-                    sections.get("🧹 Chores").add(entry);
-                } else if (message.startsWith("docs:")) {
-                    sections.get("📚 Documentation").add(entry);
-                } else {
-                    sections.get("🔧 Others").add(entry);
-                }
-            }
-
-            StringBuilder notes = new StringBuilder();
-            notes.append("### ").append(toRef).append(" — ").append(LocalDate.now()).append("\n\n");
-            for (Map.Entry<String, List<String>> entry : sections.entrySet()) {
-                if (!entry.getValue().isEmpty()) {
-                    notes.append("#### ").append(entry.getKey()).append("\n");
-                    for (String line : entry.getValue()) {
-                        notes.append(line).append("\n");
-                    }
-                    notes.append("\n");
-                }
-            }
-
-            Files.write(
-                    Path.of(changelogPath),
-                    notes.toString().getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.APPEND
-            );
-
-            info("Categorized release notes appended to " + changelogPath);
-            return this;
-
-        } catch (GitAPIException | IOException e) {
-            error("Failed to generate categorized release notes", e);
-            throw new RuntimeException("Categorized release note generation failed", e);
-        }
+        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath, ReleaseNotesType.CATEGORY);
     }
 
     /**
      * Generates structured release notes based on BranchType enum from Conventional Commit prefixes.
-     * Appends categorized notes to a changelog file.
+     * Writes categorized notes to a changelog file, at the configured
+     * {@link com.mockholm.config.ChangelogPosition}, replacing any section already written for {@code toRef}.
      *
      * @param toRef         the ending Git reference (e.g., current tag)
      * @param configuration the Git configuration for authentication
@@ -2088,13 +2526,14 @@ public class GitCommand {
      * @throws RuntimeException if Git operations or file writing fails
      */
     public GitCommand generateBranchTypeReleaseNotes(String toRef, GitConfiguration configuration, String changelogPath) {
-        String fromRef = GitUtils.getPreviousTag(git, configuration, log);
+        String fromRef = GitUtils.getPreviousTag(git, configuration, log, toRef);
         return generateBranchTypeReleaseNotes(fromRef,toRef, configuration, changelogPath);
     }
 
     /**
      * Generates structured release notes based on BranchType enum from Conventional Commit prefixes.
-     * Appends categorized notes to a changelog file.
+     * Writes categorized notes to a changelog file, at the configured
+     * {@link com.mockholm.config.ChangelogPosition}, replacing any section already written for {@code toRef}.
      *
      * @param fromRef       the starting Git reference (e.g., previous tag)
      * @param toRef         the ending Git reference (e.g., current tag)
@@ -2104,91 +2543,7 @@ public class GitCommand {
      * @throws RuntimeException if Git operations or file writing fails
      */
     public GitCommand generateBranchTypeReleaseNotes(String fromRef, String toRef, GitConfiguration configuration, String changelogPath) {
-        if (changelogPath == null || changelogPath.isEmpty()) {
-            changelogPath = "CHANGELOG.md";
-        }
-
-        Map<BranchType, List<String>> categorizedNotes = new EnumMap<>(BranchType.class);
-        for (BranchType type : BranchType.values()) {
-            categorizedNotes.put(type, new ArrayList<>());
-        }
-
-        try {
-            // ⬇️ Fetch latest from origin
-            if (GitCredentialUtils.isSSH(configuration.getScm())) {
-                info("Fetching with SSH");
-                git.fetch()
-                        .setRemote("origin")
-                        .setTransportConfigCallback(transport -> {
-                            if (transport instanceof SshTransport) {
-                                SshTransport sshTransport = (SshTransport) transport;
-                                sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
-                            }
-                        })
-                        .call();
-            } else {
-                info("Fetching with HTTPS credentials");
-                CredentialsProvider credentialsProvider =
-                        GitCredentialUtils.getUserProvider(
-                                configuration.getSettings()
-                                        .getServer(configuration.getServerKey())
-                                        .getPassword()
-                        );
-                git.fetch()
-                        .setRemote("origin")
-                        .setCredentialsProvider(credentialsProvider)
-                        .call();
-            }
-
-            // ✅ Resolve refs to commits
-            RevWalk revWalk = new RevWalk(git.getRepository());
-            RevCommit fromCommit = revWalk.parseCommit(git.getRepository().resolve(fromRef));
-            RevCommit toCommit = revWalk.parseCommit(git.getRepository().resolve(toRef));
-            Iterable<RevCommit> commits = git.log().addRange(fromCommit, toCommit).call();
-            revWalk.close();
-
-            for (RevCommit commit : commits) {
-                String message = commit.getShortMessage();
-                String author = commit.getAuthorIdent().getName();
-                String shortHash = commit.getId().abbreviate(7).name();
-                String line = String.format("- [%s] %s (by %s)", shortHash, message, author);
-
-                BranchType match = Arrays.stream(BranchType.values())
-                        .filter(type -> message.toLowerCase().startsWith(type.getValue() + ":"))
-                        .findFirst()
-                        .orElse(BranchType.FEATURE); // Fallback
-
-                categorizedNotes.get(match).add(line);
-            }
-
-            StringBuilder notes = new StringBuilder();
-            notes.append("### ").append(toRef).append(" — ").append(LocalDate.now()).append("\n\n");
-
-            for (BranchType type : BranchType.values()) {
-                List<String> entries = categorizedNotes.get(type);
-                if (!entries.isEmpty()) {
-                    notes.append("#### ").append(type.getUppercaseValue()).append("\n");
-                    for (String entry : entries) {
-                        notes.append(entry).append("\n");
-                    }
-                    notes.append("\n");
-                }
-            }
-
-            Files.write(
-                    Path.of(changelogPath),
-                    notes.toString().getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.APPEND
-            );
-
-            info("BranchType release notes appended to " + changelogPath);
-            return this;
-
-        } catch (GitAPIException | IOException e) {
-            error("Failed to generate BranchType release notes", e);
-            throw new RuntimeException("BranchType release note generation failed", e);
-        }
+        return generateReleaseNotes(fromRef, toRef, configuration, changelogPath, ReleaseNotesType.BRANCH);
     }
 
-}
\ No newline at end of file
+}
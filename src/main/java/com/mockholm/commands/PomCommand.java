@@ -1,43 +1,63 @@
 package com.mockholm.commands;
 
-import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
-import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import com.mockholm.utils.ModuleTree;
+import com.mockholm.utils.PomModelCache;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Command utility for reading, updating, and propagating version information
  * across a Maven {@code pom.xml} file and its modules.
  * <p>
+ * Models come from the {@link PomModelCache}, so each POM is parsed once however many steps read it.
+ * Updates change the cached models only; {@link #flush()}, which
+ * {@link GitCommand#runPomCommands(java.util.function.Consumer, PomCommand)} calls when the step ends,
+ * writes each modified POM once, replacing just the version text so comments and formatting are kept.
+ * <p>
  * Designed for use in plugin contexts where logging and lifecycle control are needed.
  */
 public class PomCommand {
-    private final Model model;
+    private final File pomFile;
     private String version;
     private final Log log;
     private final String baseDir;
 
+    /** The project version replaced by the last {@link #updatePomVersion()}. */
+    private String previousVersion;
+
+    /** Number of threads reading and updating module POMs. */
+    private int parallelism = ModuleTree.DEFAULT_PARALLELISM;
+
+    /** Time spent updating each module in the last {@link #updateModules()}. */
+    private final Map<ModuleTree.Module, Long> updateNanos = new ConcurrentHashMap<>();
+
     /**
      * Constructs a {@code PomCommand} for the specified base directory,
-     * loading the primary {@code pom.xml} into memory.
+     * loading the primary {@code pom.xml} into the model cache.
      *
      * @param baseDir the root directory containing the {@code pom.xml}
      * @param log the Maven plugin logger for output messages
      * @throws RuntimeException if the {@code pom.xml} cannot be read
      */
     public PomCommand(String baseDir, Log log) {
-        File pomFile = new File(baseDir, "pom.xml");
+        this.pomFile = new File(baseDir, "pom.xml");
 
-        try (FileReader reader = new FileReader(pomFile)) {
-            MavenXpp3Reader pomReader = new MavenXpp3Reader();
-            this.model = pomReader.read(reader);
+        try {
+            PomModelCache.get(pomFile);
             this.log = log;
             this.baseDir = baseDir;
         } catch (IOException | XmlPullParserException e) {
@@ -57,24 +77,27 @@ public class PomCommand {
     }
 
     /**
-     * Updates the main {@code pom.xml} file with the version previously set via {@link #setVersion(String)}.
+     * Sets the number of threads {@link #updateModules()} reads and updates module POMs with.
+     *
+     * @param parallelism the number of threads, at least 1
+     * @return this {@code PomCommand} instance for chaining
+     */
+    public PomCommand setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * Updates the main {@code pom.xml} model with the version previously set via {@link #setVersion(String)}.
+     * The file is written by {@link #flush()}.
      *
      * @return this {@code PomCommand} instance
-     * @throws MojoExecutionException if the POM file cannot be read or written
+     * @throws MojoExecutionException if the POM file cannot be read
      */
     public PomCommand updatePomVersion() throws MojoExecutionException {
-        File pomFile = new File(baseDir, "pom.xml");
-
-        try (FileReader reader = new FileReader(pomFile)) {
-            MavenXpp3Reader pomReader = new MavenXpp3Reader();
-            Model model = pomReader.read(reader);
-
-            model.setVersion(version);
-
-            try (FileWriter writer = new FileWriter(pomFile)) {
-                MavenXpp3Writer pomWriter = new MavenXpp3Writer();
-                pomWriter.write(writer, model);
-            }
+        try {
+            previousVersion = PomModelCache.get(pomFile).getVersion();
+            PomModelCache.setProjectVersion(pomFile, version);
 
             log.info("Version updated to " + version);
 
@@ -86,60 +109,173 @@ public class PomCommand {
     }
 
     /**
-     * Iterates through all declared modules in the parent {@code pom.xml} and updates
-     * their parent version references to match the current version.
+     * Updates every module of the build, following nested aggregators however deep, to the current version.
+     * <p>
+     * A module follows the main POM when it declares the version the main POM had before
+     * {@link #updatePomVersion()}, or declares none and inherits from a parent that follows it. Such modules get the
+     * new version, and every module whose parent follows the main POM, found through the parent's
+     * {@code relativePath} or coordinates, gets the new parent version. Modules with a version of their own, and
+     * parents outside the build, are left alone. The POMs are read and updated on a pool of
+     * {@link #setParallelism(int)} threads, and the time spent on each module is logged.
+     * The files are written by {@link #flush()}.
      *
      * @return this {@code PomCommand} instance
      * @throws MojoExecutionException if any module fails to update
      */
     public PomCommand updateModules() throws MojoExecutionException {
-        if (model.getModules() != null && !model.getModules().isEmpty()) {
-            for (String module : model.getModules()) {
-                File modulePom = new File(module, "pom.xml");
-                if (modulePom.exists()) {
-                    String moduleBaseDir = modulePom.getParentFile().getAbsolutePath();
-                    log.info("Updating module: " + moduleBaseDir);
-                    updateModuleParentVersion(moduleBaseDir);
+        long start = System.nanoTime();
+        updateNanos.clear();
+        ModuleTree tree;
+        try {
+            // read again, the branch may have changed since this command was created
+            tree = ModuleTree.walk(pomFile, parallelism);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read the modules of pom.xml", e);
+        }
+        String previous = previousVersion != null ? previousVersion : tree.getRoot().getVersion();
+
+        // decided before any change, from the versions the modules were read with
+        Map<ModuleTree.Module, Boolean> following = new HashMap<>();
+        List<ModuleTree.Module> modules = tree.getModules().subList(1, tree.size());
+        List<Callable<String>> updates = new ArrayList<>();
+        try {
+            for (ModuleTree.Module module : modules) {
+                boolean updateVersion = module.getModel().getVersion() != null
+                        && isFollowing(tree, module, previous, following);
+                ModuleTree.Module parent = tree.getParent(module);
+                boolean updateParent = parent != null && isFollowing(tree, parent, previous, following);
+                updates.add(() -> updateModule(module, updateVersion, updateParent));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to resolve module parents", e);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int updated = 0;
+        long slowestNanos = 0;
+        ModuleTree.Module slowest = null;
+        try {
+            List<Future<String>> results = pool.invokeAll(updates);
+            for (int i = 0; i < modules.size(); i++) {
+                ModuleTree.Module module = modules.get(i);
+                String change = results.get(i).get();
+                long nanos = module.getReadNanos() + updateNanos.getOrDefault(module, 0L);
+                if (change != null) {
+                    updated++;
+                    log.info(String.format("Updated module %s: %s (%d ms)", module, change,
+                            TimeUnit.NANOSECONDS.toMillis(nanos)));
                 } else {
-                    log.warn("Module pom.xml not found: " + modulePom.getAbsolutePath());
+                    log.debug(String.format("Module %s does not follow version %s, left unchanged", module, previous));
+                }
+                if (nanos > slowestNanos) {
+                    slowestNanos = nanos;
+                    slowest = module;
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while updating modules", e);
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException("Failed to update module: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
         }
+
+        log.info(String.format("Updated %d of %d module(s) to %s in %d ms on %d thread(s)%s", updated,
+                modules.size(), version, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), parallelism,
+                slowest == null ? "" : String.format("; slowest %s (%d ms)", slowest,
+                        TimeUnit.NANOSECONDS.toMillis(slowestNanos))));
         return this;
     }
 
     /**
-     * Updates the parent version in a module's {@code pom.xml}.
-     * Called internally from {@link #updateModules()}.
+     * Writes every POM of the project changed since the last flush, once each.
      *
-     * @param baseDir the directory where the module's {@code pom.xml} resides
-     * @throws MojoExecutionException if the module POM cannot be updated
+     * @return this {@code PomCommand} instance
+     * @throws MojoExecutionException if a POM cannot be written
      */
-    private void updateModuleParentVersion(String baseDir) throws MojoExecutionException {
-        File pomFile = new File(baseDir, "pom.xml");
-
-        try (FileReader reader = new FileReader(pomFile)) {
-            MavenXpp3Reader pomReader = new MavenXpp3Reader();
-            Model model = pomReader.read(reader);
+    public PomCommand flush() throws MojoExecutionException {
+        try {
+            PomModelCache.flush(log, new File(baseDir));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write pom.xml", e);
+        }
+        return this;
+    }
 
-            if (model.getParent() != null) {
-                model.getParent().setVersion(version);
-            } else {
-                log.warn("No parent defined in pom.xml");
+    /**
+     * Drops the changes made to the POMs of the project since the last flush, so they are not written by a
+     * later step, e.g. on another branch.
+     *
+     * @return this {@code PomCommand} instance
+     * @throws MojoExecutionException if the project directory cannot be resolved
+     */
+    public PomCommand discard() throws MojoExecutionException {
+        try {
+            int discarded = PomModelCache.discard(new File(baseDir));
+            if (discarded > 0) {
+                log.warn("Dropped unwritten changes to " + discarded + " POM file(s)");
             }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to drop changes to pom.xml", e);
+        }
+        return this;
+    }
 
-            try (FileWriter writer = new FileWriter(pomFile)) {
-                MavenXpp3Writer pomWriter = new MavenXpp3Writer();
-                pomWriter.write(writer, model);
+    /**
+     * Updates the project and parent versions of one module's {@code pom.xml} model.
+     * Called on the pool of {@link #updateModules()}.
+     *
+     * @param module        the module
+     * @param updateVersion whether the module declares a version following the main POM
+     * @param updateParent  whether the parent of the module follows the main POM
+     * @return a description of the change, or {@code null} if the module was left unchanged
+     * @throws MojoExecutionException if the module POM cannot be updated
+     */
+    private String updateModule(ModuleTree.Module module, boolean updateVersion, boolean updateParent)
+            throws MojoExecutionException {
+        long start = System.nanoTime();
+        List<String> changes = new ArrayList<>();
+        try {
+            if (updateVersion) {
+                PomModelCache.setProjectVersion(module.getPomFile(), version);
+                changes.add("version");
+            }
+            if (updateParent) {
+                PomModelCache.setParentVersion(module.getPomFile(), version);
+                changes.add("parent version");
             }
-
-            log.info("Parent version updated to " + version);
-
         } catch (IOException | XmlPullParserException e) {
-            throw new MojoExecutionException("Failed to update parent version in pom.xml", e);
+            throw new MojoExecutionException("Failed to update " + module.getPomFile(), e);
+        } finally {
+            updateNanos.put(module, System.nanoTime() - start);
         }
+        return changes.isEmpty() ? null : String.join(" and ", changes) + " set to " + version;
     }
 
-    
-
+    /**
+     * Checks whether a module carries the version of the main POM, declaring it or inheriting it from a
+     * parent of the build that does.
+     */
+    private static boolean isFollowing(ModuleTree tree, ModuleTree.Module module, String previous,
+            Map<ModuleTree.Module, Boolean> following) throws IOException {
+        if (module == tree.getRoot()) {
+            return true;
+        }
+        Boolean known = following.get(module);
+        if (known != null) {
+            return known;
+        }
+        // guards against parents that form a cycle
+        following.put(module, false);
+        boolean result;
+        if (module.getModel().getVersion() != null) {
+            result = module.getModel().getVersion().equals(previous);
+        } else {
+            ModuleTree.Module parent = tree.getParent(module);
+            result = parent != null && isFollowing(tree, parent, previous, following);
+        }
+        following.put(module, result);
+        return result;
+    }
 }
@@ -0,0 +1,11 @@
+package com.mockholm.config;
+
+/**
+ * Used to determine where a new release section is placed in the changelog
+ */
+public enum ChangelogPosition {
+    /** Above the previous releases, below any preamble such as the document title*/
+    TOP,
+    /** After the previous releases*/
+    BOTTOM
+}
@@ -0,0 +1,11 @@
+package com.mockholm.config;
+
+/**
+ * Used to determine how the coordinates of the modules are read when collating artifacts
+ */
+public enum CollateMode {
+    /** Reads the raw POMs, inheriting groupId and version from the parents in memory, and falls back to {@link #PROJECT_BUILDER} for POMs it cannot resolve, missing module POMs and modules declared in profiles*/
+    RAW,
+    /** Builds every module with the Maven project builder*/
+    PROJECT_BUILDER
+}
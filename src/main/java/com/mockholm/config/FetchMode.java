@@ -1,7 +1,19 @@
 package com.mockholm.config;
 
+/**
+ * Used to determine which refs, and how much of their history, a fetch downloads
+ */
 public enum FetchMode {
+    /** All branches with full history*/
     BRANCHES,
+    /** All tags with full history*/
     TAGS,
-    BOTH
-}
\ No newline at end of file
+    /** All branches and tags with full history*/
+    BOTH,
+    /** Branches and tags limited to the last {@link GitConfiguration#getFetchDepth()} commits*/
+    SHALLOW,
+    /** Branches and tags limited to commits made after {@link GitConfiguration#getFetchSince()}*/
+    SINCE,
+    /** Branches and tags with all commits and trees but without file contents (partial clone filter {@code blob:none})*/
+    FILTER_BLOB_NONE
+}
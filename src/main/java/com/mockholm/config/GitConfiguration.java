@@ -3,12 +3,23 @@ package com.mockholm.config;
 import org.apache.maven.model.Scm;
 import org.apache.maven.settings.Settings;
 
+import java.time.Instant;
+
 /**
  * Encapsulates Git-related configuration including authentication,
  * source control metadata, Maven settings, and push behavior.
  */
 public class GitConfiguration {
 
+    /** Default number of seconds a remote ref snapshot is reused. */
+    public static final long DEFAULT_REMOTE_REF_TTL = 60;
+
+    /** Default number of commits fetched per ref in {@link FetchMode#SHALLOW} mode. */
+    public static final int DEFAULT_FETCH_DEPTH = 50;
+
+    /** Default prefix of the release tags, the release branch name followed by a dash. */
+    public static final String DEFAULT_TAG_PREFIX = "release-";
+
     /** The key used to authenticate with the Git server. */
     String serverKey;
 
@@ -21,6 +32,33 @@ public class GitConfiguration {
     /** Indicates whether changes should be pushed to the remote Git repository. */
     boolean pushChanges;
 
+    /** Seconds a remote ref snapshot is reused before the remote is listed again. */
+    long remoteRefTtl = DEFAULT_REMOTE_REF_TTL;
+
+    /** How much history fetches download, or {@code null} for full history. */
+    FetchMode fetchMode;
+
+    /** Number of commits fetched per ref in {@link FetchMode#SHALLOW} mode, and the first step when deepening. */
+    int fetchDepth = DEFAULT_FETCH_DEPTH;
+
+    /** Oldest commit time fetched in {@link FetchMode#SINCE} mode. */
+    Instant fetchSince;
+
+    /** Whether the commit-graph is written or refreshed before release note range walks. */
+    boolean commitGraph;
+
+    /** Whether release notes resume from the checkpoint left by the previous run. */
+    boolean incrementalNotes;
+
+    /** Where new release sections are placed in the changelog. */
+    ChangelogPosition changelogPosition = ChangelogPosition.TOP;
+
+    /** File receiving one JSON record per release note commit, or {@code null} for none. */
+    String notesJsonPath;
+
+    /** Prefix of the release tags fetched and searched, or an empty string for every tag. */
+    String tagPrefix = DEFAULT_TAG_PREFIX;
+
     /**
      * Gets the Git server authentication key.
      *
@@ -139,4 +177,265 @@ public class GitConfiguration {
     public void setPushChanges(boolean pushChanges) {
         this.pushChanges = pushChanges;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the number of seconds a remote ref snapshot is reused before the remote is listed again.
+     *
+     * @return the snapshot time-to-live in seconds
+     */
+    public long getRemoteRefTtl() {
+        return remoteRefTtl;
+    }
+
+    /**
+     * Sets the remote ref snapshot time-to-live and returns the current instance.
+     *
+     * @param remoteRefTtl the time-to-live in seconds, 0 to list the remote on every lookup
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withRemoteRefTtl(long remoteRefTtl) {
+        this.remoteRefTtl = remoteRefTtl;
+        return this;
+    }
+
+    /**
+     * Sets the remote ref snapshot time-to-live.
+     *
+     * @param remoteRefTtl the time-to-live in seconds, 0 to list the remote on every lookup
+     */
+    public void setRemoteRefTtl(long remoteRefTtl) {
+        this.remoteRefTtl = remoteRefTtl;
+    }
+
+    /**
+     * Gets how much history fetches download.
+     *
+     * @return the fetch mode, or {@code null} for full history
+     */
+    public FetchMode getFetchMode() {
+        return fetchMode;
+    }
+
+    /**
+     * Sets how much history fetches download and returns the current instance.
+     *
+     * @param fetchMode the fetch mode, or {@code null} for full history
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withFetchMode(FetchMode fetchMode) {
+        this.fetchMode = fetchMode;
+        return this;
+    }
+
+    /**
+     * Sets how much history fetches download.
+     *
+     * @param fetchMode the fetch mode, or {@code null} for full history
+     */
+    public void setFetchMode(FetchMode fetchMode) {
+        this.fetchMode = fetchMode;
+    }
+
+    /**
+     * Gets the number of commits fetched per ref in {@link FetchMode#SHALLOW} mode.
+     *
+     * @return the fetch depth
+     */
+    public int getFetchDepth() {
+        return fetchDepth;
+    }
+
+    /**
+     * Sets the number of commits fetched per ref in {@link FetchMode#SHALLOW} mode and returns the current instance.
+     *
+     * @param fetchDepth the fetch depth
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withFetchDepth(int fetchDepth) {
+        this.fetchDepth = fetchDepth;
+        return this;
+    }
+
+    /**
+     * Sets the number of commits fetched per ref in {@link FetchMode#SHALLOW} mode.
+     *
+     * @param fetchDepth the fetch depth
+     */
+    public void setFetchDepth(int fetchDepth) {
+        this.fetchDepth = fetchDepth;
+    }
+
+    /**
+     * Gets the oldest commit time fetched in {@link FetchMode#SINCE} mode.
+     *
+     * @return the shallow-since instant
+     */
+    public Instant getFetchSince() {
+        return fetchSince;
+    }
+
+    /**
+     * Sets the oldest commit time fetched in {@link FetchMode#SINCE} mode and returns the current instance.
+     *
+     * @param fetchSince the shallow-since instant
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withFetchSince(Instant fetchSince) {
+        this.fetchSince = fetchSince;
+        return this;
+    }
+
+    /**
+     * Sets the oldest commit time fetched in {@link FetchMode#SINCE} mode.
+     *
+     * @param fetchSince the shallow-since instant
+     */
+    public void setFetchSince(Instant fetchSince) {
+        this.fetchSince = fetchSince;
+    }
+
+    /**
+     * Indicates whether the commit-graph is written or refreshed before release note range walks.
+     *
+     * @return true if the commit-graph is maintained
+     */
+    public boolean isCommitGraph() {
+        return commitGraph;
+    }
+
+    /**
+     * Sets whether the commit-graph is maintained and returns the current instance.
+     *
+     * @param commitGraph true to write or refresh the commit-graph before walking a range
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withCommitGraph(boolean commitGraph) {
+        this.commitGraph = commitGraph;
+        return this;
+    }
+
+    /**
+     * Sets whether the commit-graph is maintained.
+     *
+     * @param commitGraph true to write or refresh the commit-graph before walking a range
+     */
+    public void setCommitGraph(boolean commitGraph) {
+        this.commitGraph = commitGraph;
+    }
+
+    /**
+     * Indicates whether release notes resume from the checkpoint left by the previous run.
+     *
+     * @return true if only commits newer than the checkpoint are walked
+     */
+    public boolean isIncrementalNotes() {
+        return incrementalNotes;
+    }
+
+    /**
+     * Sets whether release notes resume from the previous run's checkpoint and returns the current instance.
+     *
+     * @param incrementalNotes true to walk only the commits added since the last run
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withIncrementalNotes(boolean incrementalNotes) {
+        this.incrementalNotes = incrementalNotes;
+        return this;
+    }
+
+    /**
+     * Sets whether release notes resume from the previous run's checkpoint.
+     *
+     * @param incrementalNotes true to walk only the commits added since the last run
+     */
+    public void setIncrementalNotes(boolean incrementalNotes) {
+        this.incrementalNotes = incrementalNotes;
+    }
+
+    /**
+     * Gets where new release sections are placed in the changelog.
+     *
+     * @return the changelog position
+     */
+    public ChangelogPosition getChangelogPosition() {
+        return changelogPosition;
+    }
+
+    /**
+     * Sets where new release sections are placed in the changelog and returns the current instance.
+     *
+     * @param changelogPosition the position, {@code null} for {@link ChangelogPosition#TOP}
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withChangelogPosition(ChangelogPosition changelogPosition) {
+        setChangelogPosition(changelogPosition);
+        return this;
+    }
+
+    /**
+     * Sets where new release sections are placed in the changelog.
+     *
+     * @param changelogPosition the position, {@code null} for {@link ChangelogPosition#TOP}
+     */
+    public void setChangelogPosition(ChangelogPosition changelogPosition) {
+        this.changelogPosition = changelogPosition == null ? ChangelogPosition.TOP : changelogPosition;
+    }
+
+    /**
+     * Gets the file receiving one JSON record per release note commit.
+     *
+     * @return the NDJSON file path, or {@code null} if no records are written
+     */
+    public String getNotesJsonPath() {
+        return notesJsonPath;
+    }
+
+    /**
+     * Sets the file receiving one JSON record per release note commit and returns the current instance.
+     *
+     * @param notesJsonPath the NDJSON file path, or {@code null} to write no records
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withNotesJsonPath(String notesJsonPath) {
+        this.notesJsonPath = notesJsonPath;
+        return this;
+    }
+
+    /**
+     * Sets the file receiving one JSON record per release note commit.
+     *
+     * @param notesJsonPath the NDJSON file path, or {@code null} to write no records
+     */
+    public void setNotesJsonPath(String notesJsonPath) {
+        this.notesJsonPath = notesJsonPath;
+    }
+
+    /**
+     * Gets the prefix of the release tags that tag fetches are narrowed to.
+     *
+     * @return the tag prefix, e.g. {@code release-}, or an empty string for every tag
+     */
+    public String getTagPrefix() {
+        return tagPrefix;
+    }
+
+    /**
+     * Sets the prefix of the release tags that tag fetches are narrowed to and returns the current instance.
+     *
+     * @param tagPrefix the tag prefix, {@code null} or empty to fetch every tag
+     * @return the updated GitConfiguration object
+     */
+    public GitConfiguration withTagPrefix(String tagPrefix) {
+        setTagPrefix(tagPrefix);
+        return this;
+    }
+
+    /**
+     * Sets the prefix of the release tags that tag fetches are narrowed to.
+     *
+     * @param tagPrefix the tag prefix, {@code null} or empty to fetch every tag
+     */
+    public void setTagPrefix(String tagPrefix) {
+        this.tagPrefix = tagPrefix == null ? "" : tagPrefix;
+    }
+}
@@ -0,0 +1,171 @@
+package com.mockholm.config;
+
+/**
+ * JGit pack and window cache settings chosen by the user.
+ * <p>
+ * Sizes are strings with an optional {@code k}, {@code m} or {@code g} suffix, e.g. {@code 512m}.
+ * Any value left unset is sized automatically from the repository's pack size and the JVM heap
+ * by {@link com.mockholm.utils.WindowCacheUtils}.
+ */
+public class PackCacheConfiguration {
+
+    /** Maximum number of bytes of pack data held in memory, or {@code null} to auto-size. */
+    String packedGitLimit;
+
+    /** Size of each window read from a pack file, or {@code null} to auto-size. */
+    String packedGitWindowSize;
+
+    /** Whether pack files are read through memory-mapped windows, or {@code null} to auto-size. */
+    Boolean packedGitMMAP;
+
+    /** Maximum number of bytes of reconstructed delta bases kept in memory, or {@code null} to auto-size. */
+    String deltaBaseCacheLimit;
+
+    /** Objects larger than this are streamed instead of loaded whole, or {@code null} to auto-size. */
+    String streamFileThreshold;
+
+    /**
+     * Gets the packed git limit.
+     *
+     * @return the limit with an optional size suffix, or {@code null} to auto-size
+     */
+    public String getPackedGitLimit() {
+        return packedGitLimit;
+    }
+
+    /**
+     * Sets the packed git limit and returns the current instance.
+     *
+     * @param packedGitLimit the limit, e.g. {@code 1g}, or {@code null} to auto-size
+     * @return the updated PackCacheConfiguration object
+     */
+    public PackCacheConfiguration withPackedGitLimit(String packedGitLimit) {
+        this.packedGitLimit = packedGitLimit;
+        return this;
+    }
+
+    /**
+     * Sets the packed git limit.
+     *
+     * @param packedGitLimit the limit, e.g. {@code 1g}, or {@code null} to auto-size
+     */
+    public void setPackedGitLimit(String packedGitLimit) {
+        this.packedGitLimit = packedGitLimit;
+    }
+
+    /**
+     * Gets the pack window size.
+     *
+     * @return the window size with an optional size suffix, or {@code null} to auto-size
+     */
+    public String getPackedGitWindowSize() {
+        return packedGitWindowSize;
+    }
+
+    /**
+     * Sets the pack window size and returns the current instance.
+     *
+     * @param packedGitWindowSize the window size, a power of two such as {@code 64k}, or {@code null} to auto-size
+     * @return the updated PackCacheConfiguration object
+     */
+    public PackCacheConfiguration withPackedGitWindowSize(String packedGitWindowSize) {
+        this.packedGitWindowSize = packedGitWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the pack window size.
+     *
+     * @param packedGitWindowSize the window size, a power of two such as {@code 64k}, or {@code null} to auto-size
+     */
+    public void setPackedGitWindowSize(String packedGitWindowSize) {
+        this.packedGitWindowSize = packedGitWindowSize;
+    }
+
+    /**
+     * Gets whether pack files are memory-mapped.
+     *
+     * @return true or false, or {@code null} to auto-size
+     */
+    public Boolean getPackedGitMMAP() {
+        return packedGitMMAP;
+    }
+
+    /**
+     * Sets whether pack files are memory-mapped and returns the current instance.
+     *
+     * @param packedGitMMAP true to memory-map pack files, or {@code null} to auto-size
+     * @return the updated PackCacheConfiguration object
+     */
+    public PackCacheConfiguration withPackedGitMMAP(Boolean packedGitMMAP) {
+        this.packedGitMMAP = packedGitMMAP;
+        return this;
+    }
+
+    /**
+     * Sets whether pack files are memory-mapped.
+     *
+     * @param packedGitMMAP true to memory-map pack files, or {@code null} to auto-size
+     */
+    public void setPackedGitMMAP(Boolean packedGitMMAP) {
+        this.packedGitMMAP = packedGitMMAP;
+    }
+
+    /**
+     * Gets the delta base cache limit.
+     *
+     * @return the limit with an optional size suffix, or {@code null} to auto-size
+     */
+    public String getDeltaBaseCacheLimit() {
+        return deltaBaseCacheLimit;
+    }
+
+    /**
+     * Sets the delta base cache limit and returns the current instance.
+     *
+     * @param deltaBaseCacheLimit the limit, e.g. {@code 64m}, or {@code null} to auto-size
+     * @return the updated PackCacheConfiguration object
+     */
+    public PackCacheConfiguration withDeltaBaseCacheLimit(String deltaBaseCacheLimit) {
+        this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+        return this;
+    }
+
+    /**
+     * Sets the delta base cache limit.
+     *
+     * @param deltaBaseCacheLimit the limit, e.g. {@code 64m}, or {@code null} to auto-size
+     */
+    public void setDeltaBaseCacheLimit(String deltaBaseCacheLimit) {
+        this.deltaBaseCacheLimit = deltaBaseCacheLimit;
+    }
+
+    /**
+     * Gets the stream file threshold.
+     *
+     * @return the threshold with an optional size suffix, or {@code null} to auto-size
+     */
+    public String getStreamFileThreshold() {
+        return streamFileThreshold;
+    }
+
+    /**
+     * Sets the stream file threshold and returns the current instance.
+     *
+     * @param streamFileThreshold the threshold, e.g. {@code 100m}, or {@code null} to auto-size
+     * @return the updated PackCacheConfiguration object
+     */
+    public PackCacheConfiguration withStreamFileThreshold(String streamFileThreshold) {
+        this.streamFileThreshold = streamFileThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the stream file threshold.
+     *
+     * @param streamFileThreshold the threshold, e.g. {@code 100m}, or {@code null} to auto-size
+     */
+    public void setStreamFileThreshold(String streamFileThreshold) {
+        this.streamFileThreshold = streamFileThreshold;
+    }
+}
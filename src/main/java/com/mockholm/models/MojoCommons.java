@@ -1,6 +1,7 @@
 package com.mockholm.models;
 
 import com.mockholm.config.Branch;
+import com.mockholm.config.GitConfiguration;
 
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.logging.Log;
@@ -45,6 +46,9 @@ public class MojoCommons {
     /** The name of the release branch to be created. */
     private String releaseBranch;
 
+    /** Seconds a remote ref snapshot is reused before the remote is listed again. */
+    private long remoteRefTtl = GitConfiguration.DEFAULT_REMOTE_REF_TTL;
+
     /**
      * Gets the Maven logger.
      *
@@ -334,5 +338,33 @@ public class MojoCommons {
     public void setReleaseBranch(String releaseBranch) {
         this.releaseBranch = releaseBranch;
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Gets the number of seconds a remote ref snapshot is reused.
+     *
+     * @return the snapshot time-to-live in seconds
+     */
+    public long getRemoteRefTtl() {
+        return remoteRefTtl;
+    }
+
+    /**
+     * Sets the remote ref snapshot time-to-live and returns the updated instance.
+     *
+     * @param remoteRefTtl the time-to-live in seconds
+     * @return the updated MojoCommons object
+     */
+    public MojoCommons withRemoteRefTtl(long remoteRefTtl) {
+        this.remoteRefTtl = remoteRefTtl;
+        return this;
+    }
+
+    /**
+     * Sets the remote ref snapshot time-to-live.
+     *
+     * @param remoteRefTtl the time-to-live in seconds
+     */
+    public void setRemoteRefTtl(long remoteRefTtl) {
+        this.remoteRefTtl = remoteRefTtl;
+    }
+}
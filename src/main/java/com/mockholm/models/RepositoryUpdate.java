@@ -0,0 +1,198 @@
+package com.mockholm.models;
+
+/**
+ * The outcome of propagating dependency versions to one repository: whether its POMs changed and were pushed,
+ * how long each step took, and why it failed if it did.
+ */
+public class RepositoryUpdate {
+
+    /**
+     * What happened to a repository.
+     */
+    public enum Status {
+        /** Dependencies were updated, committed and pushed */
+        UPDATED,
+        /** No dependency needed a new version, nothing was committed */
+        UP_TO_DATE,
+        /** The branch does not exist in the repository, nothing was changed */
+        SKIPPED,
+        /** The repository could not be cloned, updated or pushed */
+        FAILED
+    }
+
+    private final String url;
+    private Status status;
+    private int pomCount;
+    private long syncMillis;
+    private long updateMillis;
+    private long pushMillis;
+    private String message;
+
+    /**
+     * Creates the outcome of a repository, failed until it is told otherwise.
+     *
+     * @param url the URL of the repository
+     */
+    public RepositoryUpdate(String url) {
+        this.url = url;
+        this.status = Status.FAILED;
+    }
+
+    /**
+     * Returns the URL of the repository.
+     *
+     * @return the repository URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Returns what happened to the repository.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets what happened to the repository.
+     *
+     * @param status the status
+     * @return this RepositoryUpdate instance
+     */
+    public RepositoryUpdate withStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Returns the number of POM files changed.
+     *
+     * @return the number of POMs written
+     */
+    public int getPomCount() {
+        return pomCount;
+    }
+
+    /**
+     * Sets the number of POM files changed.
+     *
+     * @param pomCount the number of POMs written
+     * @return this RepositoryUpdate instance
+     */
+    public RepositoryUpdate withPomCount(int pomCount) {
+        this.pomCount = pomCount;
+        return this;
+    }
+
+    /**
+     * Returns the time spent cloning or fetching the repository and checking out the branch.
+     *
+     * @return the time in milliseconds
+     */
+    public long getSyncMillis() {
+        return syncMillis;
+    }
+
+    /**
+     * Sets the time spent cloning or fetching the repository and checking out the branch.
+     *
+     * @param syncMillis the time in milliseconds
+     * @return this RepositoryUpdate instance
+     */
+    public RepositoryUpdate withSyncMillis(long syncMillis) {
+        this.syncMillis = syncMillis;
+        return this;
+    }
+
+    /**
+     * Returns the time spent updating the POMs.
+     *
+     * @return the time in milliseconds
+     */
+    public long getUpdateMillis() {
+        return updateMillis;
+    }
+
+    /**
+     * Sets the time spent updating the POMs.
+     *
+     * @param updateMillis the time in milliseconds
+     * @return this RepositoryUpdate instance
+     */
+    public RepositoryUpdate withUpdateMillis(long updateMillis) {
+        this.updateMillis = updateMillis;
+        return this;
+    }
+
+    /**
+     * Returns the time spent committing and pushing the changes.
+     *
+     * @return the time in milliseconds
+     */
+    public long getPushMillis() {
+        return pushMillis;
+    }
+
+    /**
+     * Sets the time spent committing and pushing the changes.
+     *
+     * @param pushMillis the time in milliseconds
+     * @return this RepositoryUpdate instance
+     */
+    public RepositoryUpdate withPushMillis(long pushMillis) {
+        this.pushMillis = pushMillis;
+        return this;
+    }
+
+    /**
+     * Returns the total time spent on the repository.
+     *
+     * @return the time in milliseconds
+     */
+    public long getTotalMillis() {
+        return syncMillis + updateMillis + pushMillis;
+    }
+
+    /**
+     * Returns why the repository failed or was skipped.
+     *
+     * @return the message, or {@code null} if it was updated or up to date
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets why the repository failed or was skipped.
+     *
+     * @param message the message
+     * @return this RepositoryUpdate instance
+     */
+    public RepositoryUpdate withMessage(String message) {
+        this.message = message;
+        return this;
+    }
+
+    /**
+     * Produces a one-line report, formatted like:
+     * "UPDATED     1520 ms (sync 900, update 120, push 500) 3 POM(s) https://host/org/repo.git"
+     *
+     * @return the formatted report
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-10s %6d ms (sync %d, update %d, push %d)",
+                status, getTotalMillis(), syncMillis, updateMillis, pushMillis));
+        if (status == Status.UPDATED) {
+            sb.append(' ').append(pomCount).append(" POM(s)");
+        }
+        sb.append(' ').append(url);
+        if (message != null) {
+            sb.append(": ").append(message);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.mockholm.mojos;
+
+import com.mockholm.config.PackCacheConfiguration;
+import com.mockholm.utils.GitRepositoryRegistry;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Base of the mojos that walk the repository's history, holding the parameters that tune JGit's pack cache.
+ * Each parameter left unset is auto-sized from the size of the packs and the heap, see {@link PackCacheConfiguration}.
+ */
+public abstract class AbstractPackCacheMojo extends AbstractMojo {
+
+    /**
+     * Maximum bytes of pack data JGit keeps in memory, e.g. 1g. Auto-sized from the pack size and heap when unset.
+     */
+    @Parameter(property = "packedGitLimit", name = "packedGitLimit")
+    private String packedGitLimit;
+
+    /**
+     * Size of each window read from a pack file, a power of two such as 64k. Auto-sized when unset.
+     */
+    @Parameter(property = "packedGitWindowSize", name = "packedGitWindowSize")
+    private String packedGitWindowSize;
+
+    /**
+     * Whether pack files are memory-mapped. Enabled automatically when the packs exceed a quarter of the heap.
+     */
+    @Parameter(property = "packedGitMMAP", name = "packedGitMMAP")
+    private Boolean packedGitMMAP;
+
+    /**
+     * Maximum bytes of delta bases JGit keeps in memory, e.g. 64m. Auto-sized when unset.
+     */
+    @Parameter(property = "deltaBaseCacheLimit", name = "deltaBaseCacheLimit")
+    private String deltaBaseCacheLimit;
+
+    /**
+     * Objects larger than this are streamed instead of loaded whole, e.g. 100m. Auto-sized when unset.
+     */
+    @Parameter(property = "streamFileThreshold", name = "streamFileThreshold")
+    private String streamFileThreshold;
+
+    /**
+     * Installs the pack cache settings of this execution before the first repository is opened.
+     */
+    protected void configurePackCache() {
+        GitRepositoryRegistry.configurePackCache(new PackCacheConfiguration()
+                .withPackedGitLimit(packedGitLimit)
+                .withPackedGitWindowSize(packedGitWindowSize)
+                .withPackedGitMMAP(packedGitMMAP)
+                .withDeltaBaseCacheLimit(deltaBaseCacheLimit)
+                .withStreamFileThreshold(streamFileThreshold), getLog());
+    }
+}
@@ -0,0 +1,88 @@
+package com.mockholm.mojos;
+
+import com.mockholm.commands.GitCommand;
+import com.mockholm.config.*;
+import com.mockholm.utils.GitRepositoryRegistry;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+
+import java.io.IOException;
+
+/**
+ * This mojo is used to write release notes for every past release in one go.
+ * The history is walked once from all release tags and each commit is listed under the first release
+ * that contains it, instead of generating notes tag pair by tag pair.
+ */
+@Mojo(name = "backfill-notes", aggregator = true, defaultPhase = LifecyclePhase.NONE)
+public class BackfillNotesMojo extends AbstractPackCacheMojo {
+
+    /**
+     * The Maven project being built.
+     * This is used to access project properties and configuration.
+     */
+    @Parameter( defaultValue = "${project}", readonly = true )
+    private MavenProject project;
+
+    /**
+     * The settings for the Maven build, which may include repository configurations.
+     * This is used to access settings defined in the Maven settings.xml file.
+     */
+    @Parameter( defaultValue = "${settings}", readonly = true)
+    private Settings settings;
+
+    /**
+     * Used to choose which kinds of notes you want, e.g. CATEGORY or STANDARD,BRANCH; defaults to STANDARD.
+     * {@link ReleaseNotesType}
+     */
+    @Parameter(property = "notesType", name = "notesType")
+    private ReleaseNotesType[] notesType;
+
+    /**
+     * Name of the release branch; release tags are named after it, e.g. release-1.2.0, and notes are written
+     * for the tags with that prefix.
+     */
+    @Parameter(property = "releaseBranch", name = "releaseBranch", defaultValue = "release")
+    private String releaseBranch;
+
+    /**
+     * Where the release sections are placed in changelog.md; sections already written for any release are replaced.
+     * {@link ChangelogPosition}
+     */
+    @Parameter(property = "changelogPosition", name = "changelogPosition", defaultValue = "TOP")
+    private ChangelogPosition changelogPosition;
+
+    /**
+     * Writes or refreshes the commit-graph before walking the history.
+     */
+    @Parameter(property = "commitGraph", name = "commitGraph", defaultValue = "false")
+    private boolean commitGraph;
+
+    public void execute() {
+        String tagPrefix = releaseBranch + "-";
+        GitConfiguration gitConfiguration = new GitConfiguration()
+                .withServerKey(project.getProperties().getProperty("gitProvider"))
+                .withScm(project.getScm())
+                .withSettings(settings)
+                .withCommitGraph(commitGraph)
+                .withChangelogPosition(changelogPosition)
+                .withTagPrefix(tagPrefix);
+        try {
+            configurePackCache();
+            ReleaseNotesType[] types = notesType == null || notesType.length == 0
+                    ? new ReleaseNotesType[]{ReleaseNotesType.STANDARD}
+                    : notesType;
+            new GitCommand(getLog())
+                    .changeBranch(BranchType.DEVELOPMENT.getValue(), gitConfiguration)
+                    .gitInfo()
+                    .backfillReleaseNotes(tagPrefix, gitConfiguration, "changelog.md", types)
+                    .close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.mockholm.mojos;
 import com.mockholm.config.BranchType;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.BranchMojoCommons;
-import org.apache.maven.plugin.AbstractMojo;
+import com.mockholm.utils.GitRepositoryRegistry;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -16,7 +16,7 @@ import org.apache.maven.settings.Settings;
  * You must supply a type of branch and repoIndentity
  */
 @Mojo(name = "branch-end", aggregator = true, defaultPhase = LifecyclePhase.NONE)
-public class BranchEndMojo extends AbstractMojo {
+public class BranchEndMojo extends AbstractPackCacheMojo {
 
     /**
      * The Maven project being built.
@@ -39,6 +39,13 @@ public class BranchEndMojo extends AbstractMojo {
     @Parameter(property = "pushChanges", name ="pushChanges", defaultValue = "true")
     private boolean pushChanges;
 
+    /**
+     * Number of seconds the remote branch and tag listing is reused before origin is listed again.
+     * Set to 0 to list the remote on every lookup.
+     */
+    @Parameter(property = "remoteRefTtl", name = "remoteRefTtl", defaultValue = "60")
+    private long remoteRefTtl;
+
     /**
      * The settings for the Maven build, which may include repository configurations.
      * This is used to access settings defined in the Maven settings.xml file.
@@ -54,12 +61,18 @@ public class BranchEndMojo extends AbstractMojo {
 
     public void execute() {
         getLog().info(String.format("Creating branch of %s",branchType));
-        new BranchMojoCommons(new MojoCommons()
-                .withLog(getLog())
-                .withProject(project)
-                .withSettings(settings)
-                .withPushChanges(pushChanges)
-                .withRepoIdentity(repoIdentity)
-        ).executeEnd(BranchType.valueOf(branchType));
+        try {
+            configurePackCache();
+            new BranchMojoCommons(new MojoCommons()
+                    .withLog(getLog())
+                    .withProject(project)
+                    .withSettings(settings)
+                    .withPushChanges(pushChanges)
+                    .withRemoteRefTtl(remoteRefTtl)
+                    .withRepoIdentity(repoIdentity)
+            ).executeEnd(BranchType.valueOf(branchType));
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
     }
 }
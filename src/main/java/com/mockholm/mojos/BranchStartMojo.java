@@ -3,7 +3,7 @@ package com.mockholm.mojos;
 import com.mockholm.config.BranchType;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.BranchMojoCommons;
-import org.apache.maven.plugin.AbstractMojo;
+import com.mockholm.utils.GitRepositoryRegistry;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -18,7 +18,7 @@ import java.util.Optional;
  * You must supply a type of branch and repoIndentity
  */
 @Mojo(name = "branch-start", aggregator = true, defaultPhase = LifecyclePhase.NONE)
-public class BranchStartMojo extends AbstractMojo {
+public class BranchStartMojo extends AbstractPackCacheMojo {
 
     /**
      * The Maven project being built.
@@ -56,6 +56,13 @@ public class BranchStartMojo extends AbstractMojo {
     @Parameter(property = "pushChanges", name ="pushChanges", defaultValue = "true")
     private boolean pushChanges;
 
+    /**
+     * Number of seconds the remote branch and tag listing is reused before origin is listed again.
+     * Set to 0 to list the remote on every lookup.
+     */
+    @Parameter(property = "remoteRefTtl", name = "remoteRefTtl", defaultValue = "60")
+    private long remoteRefTtl;
+
     /**
      * Optional commit message instead of using a default.
      */
@@ -64,12 +71,18 @@ public class BranchStartMojo extends AbstractMojo {
 
     public void execute() {
         getLog().info(String.format("Creating branch of %s",branchType));
-        new BranchMojoCommons(new MojoCommons()
-                .withLog(getLog())
-                .withRepoIdentity(repoIdentity)
-                .withPushChanges(pushChanges)
-                .withProject(project)
-                .withSettings(settings))
-                .executeStart(BranchType.valueOf(branchType),Optional.ofNullable(commitMessage));
+        try {
+            configurePackCache();
+            new BranchMojoCommons(new MojoCommons()
+                    .withLog(getLog())
+                    .withRepoIdentity(repoIdentity)
+                    .withPushChanges(pushChanges)
+                    .withRemoteRefTtl(remoteRefTtl)
+                    .withProject(project)
+                    .withSettings(settings))
+                    .executeStart(BranchType.valueOf(branchType),Optional.ofNullable(commitMessage));
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
     }
 }
@@ -14,9 +14,11 @@ import org.apache.maven.project.ProjectBuilder;
 import org.apache.maven.settings.Settings;
 
 import com.mockholm.config.BranchType;
+import com.mockholm.config.CollateMode;
 import com.mockholm.config.CollateType;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.DependencyMojoCommons;
+import com.mockholm.utils.GitRepositoryRegistry;
 
 
 /**
@@ -86,6 +88,14 @@ public class CollateArtifactsMojo extends AbstractMojo{
     @Parameter(property = "collateType", name="collateType", defaultValue = "RELEASE")
     private String collateType;
 
+    /**
+     * How the coordinates of the modules are read.
+     * Default is "RAW", which reads the POMs without building the projects and falls back to
+     * "PROJECT_BUILDER" for POMs it cannot resolve.
+     */
+    @Parameter(property = "collateMode", name="collateMode", defaultValue = "RAW")
+    private CollateMode collateMode;
+
     /**
      * Executes the Mojo to start the dependency collation process.
      * This method initializes the MojoCommons context and calls the DependencyMojoCommons
@@ -100,6 +110,7 @@ public class CollateArtifactsMojo extends AbstractMojo{
         getLog().info("Release branch: " + releaseBranch);
         getLog().info("Release version: " + release);
         getLog().info("Collate type: " + collateType);
+        getLog().info("Collate mode: " + collateMode);
         getLog().info("Main or Master branch: " + mainOrMaster);
         getLog().info("------------------------------------");
 
@@ -114,7 +125,8 @@ public class CollateArtifactsMojo extends AbstractMojo{
                 .withRepoIdentity(repoIdentity);
 
         // Create an instance of DependencyMojo to handle the logic
-        DependencyMojoCommons dependencyMojo = new DependencyMojoCommons(commons);
+        DependencyMojoCommons dependencyMojo = new DependencyMojoCommons(commons)
+                .withCollateMode(collateMode);
 
         try {
             
@@ -127,6 +139,8 @@ public class CollateArtifactsMojo extends AbstractMojo{
             dependencyMojo.collateArtifacts(branchName, CollateType.valueOf(collateType));
         } catch (Exception e) {
             throw new MojoExecutionException("Error starting dependency branch", e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
         }
     }
 
@@ -0,0 +1,39 @@
+package com.mockholm.mojos;
+
+import com.mockholm.utils.CommitGraphUtils;
+import com.mockholm.utils.GitRepositoryRegistry;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.IOException;
+
+/**
+ * This mojo is used to write the repository's commit-graph.
+ * With the commit-graph in place, release note range walks read parents and commit times from
+ * the graph instead of parsing every commit in the history.
+ */
+@Mojo(name = "commit-graph", aggregator = true, defaultPhase = LifecyclePhase.NONE)
+public class CommitGraphMojo extends AbstractMojo {
+
+    /**
+     * Rewrites the commit-graph even if it already covers every branch and tag.
+     */
+    @Parameter(property = "force", name = "force", defaultValue = "false")
+    private boolean force;
+
+    public void execute() {
+        try {
+            if (force) {
+                CommitGraphUtils.write(GitRepositoryRegistry.borrow(), getLog());
+            } else {
+                CommitGraphUtils.update(GitRepositoryRegistry.borrow(), getLog());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mockholm.mojos;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+
+import com.mockholm.config.CollateType;
+import com.mockholm.models.MojoCommons;
+import com.mockholm.models.RepositoryUpdate;
+import com.mockholm.mojos.commons.DependencyMojoCommons;
+import com.mockholm.utils.GitRepositoryRegistry;
+
+/**
+ * This Mojo is used to update dependencies in a list of other repositories, e.g. every downstream repository
+ * of a platform release. Each repository is cloned or fetched into a local cache, updated as
+ * {@code update-dependencies} does, committed and pushed. Repositories are processed in parallel, and a
+ * repository that fails does not stop the others.
+ */
+@Mojo(name = "propagate-dependencies", aggregator = true, defaultPhase = LifecyclePhase.NONE)
+public class PropagateDependenciesMojo extends AbstractMojo {
+
+    /**
+     * The Maven project being built.
+     * This is used to access project properties and configuration.
+     */
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject currentProject;
+
+    /**
+     * The maven session {@link MavenSession}
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    /**
+     * The settings for the Maven build, which may include repository configurations.
+     * This is used to access the credentials of the Git server defined in the Maven settings.xml file.
+     */
+    @Parameter(defaultValue = "${settings}", readonly = true)
+    private Settings settings;
+
+    /**
+     * The repositories to update.
+     * This is a semicolon-separated list of Git URLs; whitespace and line breaks between them are ignored.
+     */
+    @Parameter(property = "repositories", name = "repositories", required = true)
+    private String repositories;
+
+    /**
+     * The artifacts to be updated.
+     * This is a semicolon-separated list of artifact identifiers.
+     */
+    @Parameter(property = "artifacts", name = "artifacts", required = true)
+    private String artifacts;
+
+    /**
+     * The release version, used to find the release branch of each repository.
+     * Required when collateType is "RELEASE".
+     */
+    @Parameter(property = "release", name = "release")
+    private String release;
+
+    /**
+     * The name of the release branch.
+     * Default is "release".
+     */
+    @Parameter(property = "releaseBranch", name = "releaseBranch", defaultValue = "release")
+    private String releaseBranch;
+
+    /**
+     * The type of collation to be performed.
+     * Default is "RELEASE", which updates the branch releaseBranch/release; "DEV" updates releaseBranch itself.
+     */
+    @Parameter(property = "collateType", name = "collateType", defaultValue = "RELEASE")
+    private String collateType;
+
+    /**
+     * The directory the repositories are cloned into, and fetched from on later runs.
+     */
+    @Parameter(property = "repositoryCache", name = "repositoryCache",
+            defaultValue = "${user.home}/.mutatio/repositories")
+    private File repositoryCache;
+
+    /**
+     * The number of repositories updated at the same time.
+     */
+    @Parameter(property = "parallelism", name = "parallelism", defaultValue = "4")
+    private int parallelism;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<String> urls = Arrays.stream(repositories.split("[;\\s]+"))
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (urls.isEmpty()) {
+            throw new MojoExecutionException("No repositories to update");
+        }
+        if (CollateType.RELEASE.name().equals(collateType) && (release == null || release.isBlank())) {
+            throw new MojoExecutionException("The release version is required with collateType RELEASE, "
+                    + "e.g. -Drelease=1.2.0");
+        }
+
+        getLog().info("Propagating dependencies...");
+        getLog().info("Release branch: " + releaseBranch);
+        getLog().info("Release version: " + release);
+        getLog().info("Collate type: " + collateType);
+        getLog().info("Repository cache: " + repositoryCache);
+        getLog().info("Repositories: ");
+        for (String url : urls) {
+            getLog().info(" - " + url);
+        }
+        getLog().info("------------------------------------");
+
+        MojoCommons commons = new MojoCommons()
+                .withLog(getLog())
+                .withProject(currentProject)
+                .withSession(session)
+                .withSettings(settings)
+                .withReleaseBranch(releaseBranch);
+
+        DependencyMojoCommons dependencyMojo = new DependencyMojoCommons(commons);
+
+        List<RepositoryUpdate> updates;
+        try {
+            String branchName = (CollateType.valueOf(collateType) == CollateType.RELEASE)
+                    ? dependencyMojo.getReleaseBranch(release)
+                    : releaseBranch;
+            getLog().info("Branch: " + branchName);
+            updates = dependencyMojo.propagateDependencies(urls, repositoryCache, branchName, artifacts,
+                    parallelism);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to propagate dependencies", e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
+
+        List<String> failed = updates.stream()
+                .filter(update -> update.getStatus() == RepositoryUpdate.Status.FAILED)
+                .map(RepositoryUpdate::getUrl)
+                .collect(Collectors.toList());
+        if (!failed.isEmpty()) {
+            throw new MojoFailureException("Failed to propagate dependencies to " + failed.size() + " of "
+                    + updates.size() + " repositories: " + String.join(", ", failed));
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.mockholm.mojos;
 import com.mockholm.config.BranchType;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.ReleaseMojoCommons;
-import org.apache.maven.plugin.AbstractMojo;
+import com.mockholm.utils.GitRepositoryRegistry;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -17,7 +17,7 @@ import org.apache.maven.settings.Settings;
  * It is typically called at the end of the build process to finalize the release branch.
  */
 @Mojo(name = "release-end", aggregator = true, defaultPhase = LifecyclePhase.NONE)
-public class ReleaseEndMojo extends AbstractMojo {
+public class ReleaseEndMojo extends AbstractPackCacheMojo {
 
     /**
      * The Maven project being built.
@@ -61,14 +61,27 @@ public class ReleaseEndMojo extends AbstractMojo {
     @Parameter(property = "pushChanges", name ="pushChanges", defaultValue = "true")
     private boolean pushChanges;
 
+    /**
+     * Number of seconds the remote branch and tag listing is reused before origin is listed again.
+     * Set to 0 to list the remote on every lookup.
+     */
+    @Parameter(property = "remoteRefTtl", name = "remoteRefTtl", defaultValue = "60")
+    private long remoteRefTtl;
+
     public void execute() throws MojoExecutionException, MojoFailureException {
 
-        new ReleaseMojoCommons(new MojoCommons()
-                .withLog(getLog())
-                .withPushChanges(pushChanges)
-                .withRepoIdentity(repoIdentity)
-                .withProject(project)
-                .withSettings(settings))
-                .executeEnd(release,mainOrMaster);
+        try {
+            configurePackCache();
+            new ReleaseMojoCommons(new MojoCommons()
+                    .withLog(getLog())
+                    .withPushChanges(pushChanges)
+                    .withRemoteRefTtl(remoteRefTtl)
+                    .withRepoIdentity(repoIdentity)
+                    .withProject(project)
+                    .withSettings(settings))
+                    .executeEnd(release,mainOrMaster);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
     }
 }
\ No newline at end of file
@@ -2,22 +2,29 @@ package com.mockholm.mojos;
 
 import com.mockholm.commands.GitCommand;
 import com.mockholm.config.*;
-import org.apache.maven.plugin.AbstractMojo;
+import com.mockholm.utils.GitRepositoryRegistry;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Settings;
 
+import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This mojo is used to generate release notes.
  * It can generate notes based on branch type, categorized changes, or standard release notes.
- * The type of notes to generate is specified by the {@link ReleaseNotesType} parameter.
+ * The types of notes to generate are specified by the {@link ReleaseNotesType} parameter; several
+ * types are generated from a single fetch and revision walk.
  */
 @Mojo(name = "release-notes", aggregator = true, defaultPhase = LifecyclePhase.NONE)
-public class ReleaseNotesMojo extends AbstractMojo {
+public class ReleaseNotesMojo extends AbstractPackCacheMojo {
 
     /**
      * The Maven project being built.
@@ -34,11 +41,38 @@ public class ReleaseNotesMojo extends AbstractMojo {
     private Settings settings;
 
     /**
-     * Used to choose which kind of notes you want.
+     * The maven session {@link MavenSession}, used to find the reactor modules
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    /**
+     * Also writes a changelog.md into every reactor module directory, listing only the commits that touch that module.
+     */
+    @Parameter(property = "moduleNotes", name = "moduleNotes", defaultValue = "false")
+    private boolean moduleNotes;
+
+    /**
+     * Used to choose which kinds of notes you want, e.g. CATEGORY or STANDARD,BRANCH.
+     * All of them are produced from one fetch and one walk of the release range; defaults to STANDARD.
      * {@link ReleaseNotesType}
      */
     @Parameter(property = "notesType", name = "notesType")
-    private ReleaseNotesType notesType;
+    private ReleaseNotesType[] notesType;
+
+    /**
+     * Where the new release section is placed in changelog.md; sections already written for the release are replaced.
+     * {@link ChangelogPosition}
+     */
+    @Parameter(property = "changelogPosition", name = "changelogPosition", defaultValue = "TOP")
+    private ChangelogPosition changelogPosition;
+
+    /**
+     * Also writes one JSON object per commit (hash, type, scope, breaking flag, author, time, files and modules)
+     * to this newline-delimited JSON file, e.g. target/release-notes.ndjson.
+     */
+    @Parameter(property = "notesJson", name = "notesJson")
+    private String notesJson;
 
     /**
      * Used to determine which release tag you wish to create notes for
@@ -46,38 +80,81 @@ public class ReleaseNotesMojo extends AbstractMojo {
     @Parameter(property = "release", name ="release")
     private String release;
 
+    /**
+     * Name of the release branch; release tags are named after it, e.g. release-1.2.0, and only tags
+     * with that prefix are fetched and considered when looking for the previous release.
+     */
+    @Parameter(property = "releaseBranch", name ="releaseBranch", defaultValue = "release")
+    private String releaseBranch;
+
+    /**
+     * Limits how much history is fetched before the notes are generated, e.g. SHALLOW on ephemeral CI agents.
+     * When unset the full history is fetched. {@link FetchMode}
+     */
+    @Parameter(property = "fetchMode", name = "fetchMode")
+    private FetchMode fetchMode;
+
+    /**
+     * Number of commits fetched per ref in SHALLOW mode, and the first step when a shallow clone is deepened.
+     */
+    @Parameter(property = "fetchDepth", name = "fetchDepth", defaultValue = "50")
+    private int fetchDepth;
+
+    /**
+     * Oldest commit date (yyyy-MM-dd) fetched in SINCE mode.
+     */
+    @Parameter(property = "fetchSince", name = "fetchSince")
+    private String fetchSince;
+
+    /**
+     * Writes or refreshes the commit-graph before walking the release range, so the walk does not
+     * have to parse every commit in a long history.
+     */
+    @Parameter(property = "commitGraph", name = "commitGraph", defaultValue = "false")
+    private boolean commitGraph;
+
+    /**
+     * Resumes from the checkpoint the previous run left in .mutatio/, so only commits added since then are walked.
+     * The checkpoint is kept in the .mutatio/ directory of the work tree, which this creates.
+     */
+    @Parameter(property = "incremental", name = "incremental", defaultValue = "false")
+    private boolean incremental;
+
     public void execute() {
         GitConfiguration gitConfiguration = new GitConfiguration()
                 .withServerKey(project.getProperties().getProperty("gitProvider"))
                 .withScm(project.getScm())
-                .withSettings(settings);
+                .withSettings(settings)
+                .withFetchMode(fetchMode)
+                .withFetchDepth(fetchDepth)
+                .withCommitGraph(commitGraph)
+                .withIncrementalNotes(incremental)
+                .withChangelogPosition(changelogPosition)
+                .withNotesJsonPath(notesJson)
+                .withTagPrefix(releaseBranch + "-")
+                .withFetchSince(fetchSince == null ? null : LocalDate.parse(fetchSince).atStartOfDay(ZoneOffset.UTC).toInstant());
         try {
-            switch(notesType){
-                case BRANCH:
-                    new GitCommand(getLog())
-                            .changeBranch(BranchType.DEVELOPMENT.getValue(), gitConfiguration)
-                            .gitInfo()
-                            .generateBranchTypeReleaseNotes("release-"+release,gitConfiguration,"changelog.md")
-                            .close();
-                    break;
-                case CATEGORY:
-                    new GitCommand(getLog())
-                            .changeBranch(BranchType.DEVELOPMENT.getValue(), gitConfiguration)
-                            .gitInfo()
-                            .generateCategorizedReleaseNotes("release-"+release,gitConfiguration,"changelog.md")
-                            .close();
-                case STANDARD:
-                default:
-                    new GitCommand(getLog())
-                            .changeBranch(BranchType.DEVELOPMENT.getValue(), gitConfiguration)
-                            .gitInfo()
-                            .generateReleaseNotes("release-"+release,gitConfiguration,"changelog.md")
-                            .close();
+            configurePackCache();
+            List<File> modules = new ArrayList<>();
+            if (moduleNotes) {
+                for (MavenProject module : session.getProjects()) {
+                    if (!module.getBasedir().equals(project.getBasedir())) {
+                        modules.add(module.getBasedir());
+                    }
+                }
             }
-
-
+            ReleaseNotesType[] types = notesType == null || notesType.length == 0
+                    ? new ReleaseNotesType[]{ReleaseNotesType.STANDARD}
+                    : notesType;
+            new GitCommand(getLog())
+                    .changeBranch(BranchType.DEVELOPMENT.getValue(), gitConfiguration)
+                    .gitInfo()
+                    .generateReleaseNotes(releaseBranch + "-" + release, gitConfiguration,"changelog.md", modules, types)
+                    .close();
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
         }
 
     }
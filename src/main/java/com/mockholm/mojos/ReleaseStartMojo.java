@@ -4,7 +4,7 @@ import com.mockholm.config.ReleaseType;
 import com.mockholm.config.VersionIdentifier;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.ReleaseMojoCommons;
-import org.apache.maven.plugin.AbstractMojo;
+import com.mockholm.utils.GitRepositoryRegistry;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -16,7 +16,7 @@ import org.apache.maven.settings.Settings;
  * It is typically called at the beginning of the build process to initialize the release branch.
  */
 @Mojo(name = "release-start", aggregator = true, defaultPhase = LifecyclePhase.NONE)
-public class ReleaseStartMojo extends AbstractMojo {
+public class ReleaseStartMojo extends AbstractPackCacheMojo {
 
     /**
      * The Maven project being built.
@@ -60,6 +60,13 @@ public class ReleaseStartMojo extends AbstractMojo {
     @Parameter(property = "pushChanges", name ="pushChanges", defaultValue = "true")
     private boolean pushChanges;
 
+    /**
+     * Number of seconds the remote branch and tag listing is reused before origin is listed again.
+     * Set to 0 to list the remote on every lookup.
+     */
+    @Parameter(property = "remoteRefTtl", name = "remoteRefTtl", defaultValue = "60")
+    private long remoteRefTtl;
+
     /**
      * The name of the branch to be released.
      * Default is "develop".
@@ -75,14 +82,20 @@ public class ReleaseStartMojo extends AbstractMojo {
     private String releaseBranch;
 
     public void execute() {
-        new ReleaseMojoCommons(new MojoCommons()
-                .withLog(getLog())
-                .withPushChanges(pushChanges)
-                .withRepoIdentity(repoIdentity)
-                .withDevBranch(devBranch)
-                .withReleaseBranch(releaseBranch)
-                .withProject(project)
-                .withSettings(settings))
-                .executeStart(releaseType,versionIdentifier);
+        try {
+            configurePackCache();
+            new ReleaseMojoCommons(new MojoCommons()
+                    .withLog(getLog())
+                    .withPushChanges(pushChanges)
+                    .withRemoteRefTtl(remoteRefTtl)
+                    .withRepoIdentity(repoIdentity)
+                    .withDevBranch(devBranch)
+                    .withReleaseBranch(releaseBranch)
+                    .withProject(project)
+                    .withSettings(settings))
+                    .executeStart(releaseType,versionIdentifier);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
     }
 }
\ No newline at end of file
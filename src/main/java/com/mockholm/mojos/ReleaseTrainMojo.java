@@ -0,0 +1,138 @@
+package com.mockholm.mojos;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.settings.Settings;
+
+import com.mockholm.commands.ShellCommand;
+import com.mockholm.models.MojoCommons;
+import com.mockholm.mojos.commons.DependencyMojoCommons;
+import com.mockholm.utils.GitRepositoryRegistry;
+import com.mockholm.utils.ReleaseTrain;
+
+/**
+ * This Mojo is used to plan the release of a set of repositories that depend on each other.
+ * It reads the raw POMs of every repository, finds which repositories use the parents and dependencies another
+ * one builds, and orders the repositories in release waves: the repositories of a wave only depend on earlier
+ * waves, so they can run {@code release-start}, {@code collate-artifacts} and {@code update-dependencies} at the
+ * same time. The waves are logged and exported as build properties.
+ */
+@Mojo(name = "release-train", aggregator = true, defaultPhase = LifecyclePhase.NONE)
+public class ReleaseTrainMojo extends AbstractMojo {
+
+    /**
+     * The Maven project being built.
+     * This is used to access project properties and configuration.
+     */
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject currentProject;
+
+    /**
+     * The maven session {@link MavenSession}
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    /**
+     * The settings for the Maven build, which may include repository configurations.
+     * This is used to access the credentials of the Git server defined in the Maven settings.xml file.
+     */
+    @Parameter(defaultValue = "${settings}", readonly = true)
+    private Settings settings;
+
+    /**
+     * The repositories of the release train.
+     * This is a semicolon-separated list of Git URLs or local directories; whitespace and line breaks between
+     * them are ignored.
+     */
+    @Parameter(property = "repositories", name = "repositories", required = true)
+    private String repositories;
+
+    /**
+     * The branch the release starts from, read in every repository given as a URL.
+     */
+    @Parameter(property = "devBranch", name = "devBranch", defaultValue = "develop")
+    private String devBranch;
+
+    /**
+     * The directory the repositories are cloned into, and fetched from on later runs.
+     */
+    @Parameter(property = "repositoryCache", name = "repositoryCache",
+            defaultValue = "${user.home}/.mutatio/repositories")
+    private File repositoryCache;
+
+    /**
+     * The number of repositories read at the same time.
+     */
+    @Parameter(property = "parallelism", name = "parallelism", defaultValue = "4")
+    private int parallelism;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        List<String> names = Arrays.stream(repositories.split("[;\\s]+"))
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (names.isEmpty()) {
+            throw new MojoExecutionException("No repositories to plan");
+        }
+
+        getLog().info("Planning release train...");
+        getLog().info("Dev branch: " + devBranch);
+        getLog().info("Repository cache: " + repositoryCache);
+        getLog().info("------------------------------------");
+
+        MojoCommons commons = new MojoCommons()
+                .withLog(getLog())
+                .withProject(currentProject)
+                .withSession(session)
+                .withSettings(settings)
+                .withDevBranch(devBranch);
+
+        ReleaseTrain train;
+        List<List<String>> waves;
+        try {
+            train = new DependencyMojoCommons(commons).planReleaseTrain(names, repositoryCache, devBranch,
+                    parallelism);
+            waves = train.getWaves();
+        } catch (IllegalStateException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to plan the release train", e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
+
+        getLog().info("------------------------------------");
+        List<String[]> properties = new ArrayList<>();
+        for (int i = 0; i < waves.size(); i++) {
+            getLog().info("Wave " + (i + 1) + ":");
+            for (String repository : waves.get(i)) {
+                getLog().info(" - " + repository);
+                for (Map.Entry<String, Set<String>> upstream : train.getUpstreams(repository).entrySet()) {
+                    getLog().info("     after " + upstream.getKey() + " (" + String.join(", ", upstream.getValue())
+                            + ")");
+                }
+            }
+            properties.add(new String[] { "MUTATIO_RELEASE_TRAIN_WAVE_" + (i + 1), String.join(";", waves.get(i)) });
+        }
+        properties.add(0, new String[] { "MUTATIO_RELEASE_TRAIN_WAVES", String.valueOf(waves.size()) });
+        getLog().info(String.format("%d repositories in %d wave(s)", train.getRepositories().size(), waves.size()));
+
+        new ShellCommand(getLog()).setBuildProperties(properties);
+    }
+}
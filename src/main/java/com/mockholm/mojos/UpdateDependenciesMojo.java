@@ -16,6 +16,7 @@ import com.mockholm.config.BranchType;
 import com.mockholm.config.CollateType;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.DependencyMojoCommons;
+import com.mockholm.utils.GitRepositoryRegistry;
 
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 
@@ -133,6 +134,8 @@ public class UpdateDependenciesMojo extends AbstractMojo {
 
         } catch (Exception e) {
             throw new MojoExecutionException("Failed to update dependencies", e);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
         }
     }
 
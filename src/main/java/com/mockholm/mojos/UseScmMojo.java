@@ -1,6 +1,7 @@
 package com.mockholm.mojos;
 
 import com.mockholm.utils.GitCredentialUtils;
+import com.mockholm.utils.GitRepositoryRegistry;
 import org.apache.maven.model.Scm;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -17,10 +18,9 @@ import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.transport.SshTransport;
-import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
+import org.eclipse.jgit.transport.SshSessionFactory;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -55,6 +55,17 @@ public class UseScmMojo extends AbstractMojo {
      * This is typically the name of the repository or a unique identifier.
      */
     public void execute() {
+        try {
+            useScm();
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
+    }
+
+    /**
+     * Logs the SCM details and, for SSH connections, lists the branches and pulls from the remote.
+     */
+    private void useScm() {
         Scm scm= project.getScm();
         if(scm!=null){
             String connection = project.getScm().getConnection();
@@ -73,7 +84,7 @@ public class UseScmMojo extends AbstractMojo {
 
             if(GitCredentialUtils.isSSH(scm)){
                 getLog().info("ssh");
-                SshdSessionFactory sshSessionFactory = GitCredentialUtils.getSshdSessionFactory(serverKey, settings);
+                SshSessionFactory sshSessionFactory = GitCredentialUtils.getSshSessionFactory(serverKey, settings);
                 List<Ref> branches = getRefs(sshSessionFactory);
                 branches.forEach(ref -> getLog().info("ref: "+ref.getName()));
                 try {
@@ -103,9 +114,10 @@ public class UseScmMojo extends AbstractMojo {
      * @throws IOException      If an I/O error occurs while accessing the repository.
      * @throws GitAPIException  If an error occurs while performing Git operations.
      */
-    private void pull(SshdSessionFactory sshSessionFactory, Log log) throws IOException, GitAPIException {
+    private void pull(SshSessionFactory sshSessionFactory, Log log) throws IOException, GitAPIException {
 
-        try (Git git = Git.open(new File("."))) {
+        try {
+            Git git = GitRepositoryRegistry.borrow();
             Repository repo = git.getRepository();
             ObjectId oldHead = repo.resolve("HEAD^{tree}");
 
@@ -163,7 +175,7 @@ public class UseScmMojo extends AbstractMojo {
      * @param sshSessionFactory The SSH session factory for secure connections.
      * @return A list of references (branches) in the repository.
      */
-    private static List<Ref> getRefs(SshdSessionFactory sshSessionFactory) {
+    private static List<Ref> getRefs(SshSessionFactory sshSessionFactory) {
         TransportConfigCallback transportConfigCallback = transport -> {
             if (transport instanceof SshTransport) {
                 ((SshTransport) transport).setSshSessionFactory(sshSessionFactory);
@@ -172,7 +184,7 @@ public class UseScmMojo extends AbstractMojo {
 
         Supplier<List<Ref>> listBranches = () -> {
             try {
-                return Git.open(new File(".")).branchList().call();
+                return GitRepositoryRegistry.borrow().branchList().call();
             } catch (IOException | GitAPIException e) {
                 throw new RuntimeException("Failed to list branches", e);
             }
@@ -4,6 +4,7 @@ import com.mockholm.config.ReleaseType;
 import com.mockholm.config.VersionIdentifier;
 import com.mockholm.models.MojoCommons;
 import com.mockholm.mojos.commons.ReleaseMojoCommons;
+import com.mockholm.utils.GitRepositoryRegistry;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -54,11 +55,15 @@ public class VersionMojo extends AbstractMojo {
     private VersionIdentifier versionIdentifier;
 
     public void execute() {
-        new ReleaseMojoCommons(new MojoCommons()
-                .withLog(getLog())
-                .withRepoIdentity(repoIdentity)
-                .withProject(project)
-                .withSettings(settings))
-                .version(releaseType, versionIdentifier);
+        try {
+            new ReleaseMojoCommons(new MojoCommons()
+                    .withLog(getLog())
+                    .withRepoIdentity(repoIdentity)
+                    .withProject(project)
+                    .withSettings(settings))
+                    .version(releaseType, versionIdentifier);
+        } finally {
+            GitRepositoryRegistry.closeAll(getLog());
+        }
     }
 }
\ No newline at end of file
@@ -94,7 +94,8 @@ public class BranchMojoCommons {
             GitConfiguration gitConfiguration = new GitConfiguration()
                     .withServerKey(commons.getProject().getProperties().getProperty("gitProvider"))
                     .withScm(commons.getProject().getScm())
-                    .withSettings(commons.getSettings());
+                    .withSettings(commons.getSettings())
+                    .withRemoteRefTtl(commons.getRemoteRefTtl());
             String baseDir = commons.getProject().getBasedir().getAbsolutePath();
 
             PomCommand pomCommand = new PomCommand(baseDir, commons.getLog());
@@ -197,7 +198,8 @@ public class BranchMojoCommons {
             GitConfiguration gitConfiguration = new GitConfiguration()
                     .withServerKey(commons.getProject().getProperties().getProperty("gitProvider"))
                     .withScm(commons.getProject().getScm())
-                    .withSettings(commons.getSettings());
+                    .withSettings(commons.getSettings())
+                    .withRemoteRefTtl(commons.getRemoteRefTtl());
 
             String baseDir = commons.getProject().getBasedir().getAbsolutePath();
 
@@ -1,36 +1,56 @@
 package com.mockholm.mojos.commons;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
-import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.model.Scm;
+import org.apache.maven.model.building.ModelBuildingRequest;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectBuildingResult;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.jgit.lib.Constants;
 import org.jetbrains.annotations.NotNull;
 
 import com.mockholm.commands.GitCommand;
 import com.mockholm.commands.ShellCommand;
 import com.mockholm.config.BranchType;
+import com.mockholm.config.CollateMode;
 import com.mockholm.config.CollateType;
 import com.mockholm.config.GitConfiguration;
 import com.mockholm.models.ConventionalCommit;
 import com.mockholm.models.MojoCommons;
+import com.mockholm.models.RepositoryUpdate;
 import com.mockholm.utils.CommitUtils;
 import com.mockholm.utils.GitUtils;
+import com.mockholm.utils.ModuleCoordinates;
+import com.mockholm.utils.ModuleTree;
+import com.mockholm.utils.PomModelCache;
+import com.mockholm.utils.ReleaseTrain;
 import com.mockholm.utils.SemanticVersion;
 
 /**
@@ -40,8 +60,15 @@ import com.mockholm.utils.SemanticVersion;
  * release version.
  */
 public class DependencyMojoCommons {
+
+    /** A version made of a single property, e.g. {@code ${foo.version}}. */
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+
     private final MojoCommons commons;
 
+    /** How the coordinates of the modules are read when collating artifacts. */
+    private CollateMode collateMode = CollateMode.RAW;
+
     /**
      * Constructs a DependencyMojoCommons instance with the provided MojoCommons.
      *
@@ -52,6 +79,17 @@ public class DependencyMojoCommons {
         this.commons = commons;
     }
 
+    /**
+     * Sets how the coordinates of the modules are read when collating artifacts.
+     *
+     * @param collateMode the collate mode, {@link CollateMode#RAW} by default
+     * @return this instance for chaining
+     */
+    public DependencyMojoCommons withCollateMode(CollateMode collateMode) {
+        this.collateMode = collateMode;
+        return this;
+    }
+
     /**
      * Returns the name of the release branch.
      *
@@ -86,16 +124,8 @@ public class DependencyMojoCommons {
                 .gitInfo()
                 .runShellCommands(cmd -> {
                     try {
-                        ProjectBuildingRequest buildingRequest = commons.getSession().getProjectBuildingRequest();
-                        buildingRequest.setResolveDependencies(true);
-
-                        MavenProject rootProject = commons.getProjectBuilder()
-                                .build(new File(commons.getProject().getBasedir().getAbsolutePath(), "pom.xml"),
-                                        buildingRequest)
-                                .getProject();
-
-                        Set<String> artifactNames = new LinkedHashSet<>();
-                        collectArtifactsRecursively(rootProject, artifactNames);
+                        Set<String> artifactNames = collectArtifacts(
+                                new File(commons.getProject().getBasedir().getAbsolutePath(), "pom.xml"));
 
                         commons.getLog().info("Artifacts in branch '" + branch2Collate + "':");
 
@@ -166,15 +196,7 @@ public class DependencyMojoCommons {
                 .gitInfo()
                 .runShellCommands(cmd -> {
                     try {
-                        ProjectBuildingRequest buildingRequest = commons.getSession().getProjectBuildingRequest();
-                        buildingRequest.setResolveDependencies(true);
-
-                        MavenProject rootProject = commons.getProjectBuilder()
-                                .build(new File(baseDir, "pom.xml"), buildingRequest)
-                                .getProject();
-
-                        Set<String> artifactNames = new LinkedHashSet<>();
-                        collectArtifactsRecursively(rootProject, artifactNames);
+                        Set<String> artifactNames = collectArtifacts(new File(baseDir, "pom.xml"));
 
                         commons.getLog().info("Artifacts in branch '" + releaseBranch + "':");
 
@@ -212,41 +234,20 @@ public class DependencyMojoCommons {
                 .withSettings(commons.getSettings());
 
         AtomicReference<String> commitMessage = new AtomicReference<>("");
+        AtomicInteger written = new AtomicInteger();
 
         new GitCommand(commons.getLog())
                 .changeBranch(branch2Update, gitConfiguration)
                 .gitInfo()
                 .runShellCommands(cmd -> {
                     try {
-                        ProjectBuildingRequest buildingRequest = commons.getSession().getProjectBuildingRequest();
-                        buildingRequest.setResolveDependencies(true);
-
-                        MavenProject rootProject = commons.getProjectBuilder()
-                                .build(new File(commons.getProject().getBasedir(), "pom.xml"), buildingRequest)
-                                .getProject();
-
-                        Set<String> artifactKeys = Arrays.stream(artifacts.split(";"))
-                                .map(String::trim)
-                                .filter(s -> !s.isEmpty())
-                                .collect(Collectors.toCollection(LinkedHashSet::new));
-                        updateDependenciesRecursively(rootProject, artifactKeys);
+                        Set<String> artifactKeys = splitArtifacts(artifacts);
+                        written.set(updateDependencies(new File(commons.getProject().getBasedir(), "pom.xml"),
+                                parseArtifactIndex(artifactKeys)));
 
                         commons.getLog().info("Updated dependencies in branch '" + branch2Update + "'");
 
-                        String description = artifactKeys.stream()
-                                .map(key -> "Updated dependency: " + key)
-                                .collect(Collectors.joining("\n"));
-
-                        ConventionalCommit commit = new ConventionalCommit.Builder()
-                                .type(BranchType.RELEASE)
-                                .scope(branch2Update)
-                                .description(description)
-                                .isBreaking(false)
-                                .body("")
-                                .footer("")
-                                .build();
-
-                        commitMessage.set(CommitUtils.format(commit));
+                        commitMessage.set(getUpdateCommitMessage(branch2Update, artifactKeys));
                         commons.getLog().info("Commit: " + commitMessage);
 
                         List<String[]> properties = Arrays.asList(
@@ -263,9 +264,7 @@ public class DependencyMojoCommons {
                         e.printStackTrace();
                     }
                 }, new ShellCommand(commons.getLog()))
-                .addAllChanges()
-                .commit(commitMessage.get())
-                .push(gitConfiguration)
+                .when(command -> commitUpdatedPoms(command, written.get(), commitMessage.get(), gitConfiguration))
                 .close();
     }
 
@@ -295,41 +294,20 @@ public class DependencyMojoCommons {
                 .withSettings(commons.getSettings());
 
         AtomicReference<String> commitMessage = new AtomicReference<>("");
+        AtomicInteger written = new AtomicInteger();
 
         new GitCommand(commons.getLog())
                 .changeBranch(releaseBranch, gitConfiguration)
                 .gitInfo()
                 .runShellCommands(cmd -> {
                     try {
-                        ProjectBuildingRequest buildingRequest = commons.getSession().getProjectBuildingRequest();
-                        buildingRequest.setResolveDependencies(true);
-
-                        MavenProject rootProject = commons.getProjectBuilder()
-                                .build(new File(commons.getProject().getBasedir(), "pom.xml"), buildingRequest)
-                                .getProject();
-
-                        Set<String> artifactKeys = Arrays.stream(artifacts.split(";"))
-                                .map(String::trim)
-                                .filter(s -> !s.isEmpty())
-                                .collect(Collectors.toCollection(LinkedHashSet::new));
-                        updateDependenciesRecursively(rootProject, artifactKeys);
+                        Set<String> artifactKeys = splitArtifacts(artifacts);
+                        written.set(updateDependencies(new File(commons.getProject().getBasedir(), "pom.xml"),
+                                parseArtifactIndex(artifactKeys)));
 
                         commons.getLog().info("Updated dependencies in branch '" + releaseBranch + "'");
 
-                        String description = artifactKeys.stream()
-                                .map(key -> "Updated dependency: " + key)
-                                .collect(Collectors.joining("\n"));
-
-                        ConventionalCommit commit = new ConventionalCommit.Builder()
-                                .type(BranchType.RELEASE)
-                                .scope(releaseBranch)
-                                .description(description)
-                                .isBreaking(false)
-                                .body("")
-                                .footer("")
-                                .build();
-
-                        commitMessage.set(CommitUtils.format(commit));
+                        commitMessage.set(getUpdateCommitMessage(releaseBranch, artifactKeys));
                         commons.getLog().info("Commit: " + commitMessage);
 
                         List<String[]> properties = Arrays.asList(
@@ -342,188 +320,867 @@ public class DependencyMojoCommons {
                         e.printStackTrace();
                     }
                 }, new ShellCommand(commons.getLog()))
-                .addAllChanges()
-                .commit(commitMessage.get())
-                .push(gitConfiguration)
+                .when(command -> commitUpdatedPoms(command, written.get(), commitMessage.get(), gitConfiguration))
                 .close();
     }
 
     /**
-     * Recursively collects all artifacts from the given Maven project and its
-     * submodules.
+     * Commits and pushes the POMs a dependency update wrote. Nothing is committed when the update failed or
+     * changed no POM, so no empty commit reaches the branch.
      *
-     * @param project   the Maven project to process
-     * @param artifacts a set to collect artifact coordinates in the format
-     *                  {@code groupId:artifactId:version}
-     * @throws Exception if reading or writing the POM files fails
+     * @param command          the Git command on the updated branch
+     * @param written          the number of POM files the update wrote
+     * @param commitMessage    the commit message, empty if the update failed
+     * @param gitConfiguration the Git configuration for credentials
      */
-    private void collectArtifactsRecursively(MavenProject project, Set<String> artifacts) throws Exception {
-        artifacts.add(project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion());
+    private void commitUpdatedPoms(GitCommand command, int written, String commitMessage,
+            GitConfiguration gitConfiguration) {
+        if (written == 0 || commitMessage.isEmpty()) {
+            commons.getLog().info("No POM changed, nothing to commit");
+            return;
+        }
+        command.addAllChanges()
+                .commit(commitMessage)
+                .push(gitConfiguration);
+    }
 
-        for (String module : project.getModules()) {
-            File modulePom = new File(project.getBasedir(), module + "/pom.xml");
-            MavenProject subProject = commons.getProjectBuilder()
-                    .build(modulePom, commons.getSession().getProjectBuildingRequest()).getProject();
-            collectArtifactsRecursively(subProject, artifacts);
+    /**
+     * Updates dependencies in other repositories, e.g. every downstream repository of a platform release.
+     * <p>
+     * Each repository is cloned into the cache directory on first use and fetched afterwards, then the branch is
+     * checked out at the tip of its remote branch, discarding whatever an earlier run left behind. A repository
+     * without the branch on its remote is skipped, no branch is ever created in it. The POMs are
+     * updated as {@link #updateDependencies(String, String, CollateType)} does, and the changes are committed with
+     * the same conventional commit message and pushed. Repositories are processed on a pool of at most
+     * {@code parallelism} threads; a repository that fails is reported and does not stop the others. URLs that
+     * share a clone, e.g. the HTTPS and SSH URLs of one repository, are updated once, through the first of them.
+     *
+     * @param urls           the URLs of the repositories
+     * @param cacheDirectory the directory holding the clones of the repositories
+     * @param branch         the branch to update in every repository
+     * @param artifacts      a semicolon-separated string of artifact coordinates to update
+     * @param parallelism    the number of repositories processed at the same time
+     * @return the outcome of each distinct repository, in the order of {@code urls}; the URLs of a repository
+     *         already listed have none
+     */
+    public List<RepositoryUpdate> propagateDependencies(List<String> urls, File cacheDirectory,
+            String branch, String artifacts, int parallelism) {
+        List<String> repositories = getDistinctRepositories(urls);
+
+        Set<String> artifactKeys = splitArtifacts(artifacts);
+        Map<String, String> artifactIndex = parseArtifactIndex(artifactKeys);
+        int threads = Math.max(1, Math.min(parallelism, repositories.size()));
+        commons.getLog().info(String.format("Propagating %d artifact(s) to %d repositories on branch '%s', "
+                + "%d at a time", artifactIndex.size(), repositories.size(), branch, threads));
+
+        List<Callable<RepositoryUpdate>> tasks = new ArrayList<>();
+        for (String url : repositories) {
+            tasks.add(() -> propagateDependencies(url, cacheDirectory, branch, artifactKeys, artifactIndex));
         }
+
+        long start = System.nanoTime();
+        List<RepositoryUpdate> updates = new ArrayList<>();
+        List<Future<RepositoryUpdate>> futures = invokeAll(tasks, threads);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                updates.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                updates.add(new RepositoryUpdate(repositories.get(i)).withMessage("interrupted"));
+            } catch (ExecutionException e) {
+                updates.add(new RepositoryUpdate(repositories.get(i)).withMessage(getFailureMessage(e)));
+            }
+        }
+
+        commons.getLog().info("------------------------------------");
+        for (RepositoryUpdate update : updates) {
+            if (update.getStatus() == RepositoryUpdate.Status.FAILED) {
+                commons.getLog().error(update.toString());
+            } else if (update.getStatus() == RepositoryUpdate.Status.SKIPPED) {
+                commons.getLog().warn(update.toString());
+            } else {
+                commons.getLog().info(update.toString());
+            }
+        }
+        Map<RepositoryUpdate.Status, Long> counts = updates.stream()
+                .collect(Collectors.groupingBy(RepositoryUpdate::getStatus, Collectors.counting()));
+        commons.getLog().info(String.format("Propagated to %d repositories in %d ms: %d updated, %d up to date, "
+                        + "%d skipped, %d failed", updates.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                counts.getOrDefault(RepositoryUpdate.Status.UPDATED, 0L),
+                counts.getOrDefault(RepositoryUpdate.Status.UP_TO_DATE, 0L),
+                counts.getOrDefault(RepositoryUpdate.Status.SKIPPED, 0L),
+                counts.getOrDefault(RepositoryUpdate.Status.FAILED, 0L)));
+        return updates;
     }
 
     /**
-     * Changes the dependencies in the specified model based on the provided version
-     * map.
-     * 
-     * @param pomFile                the POM file to be updated
-     * @param model                  the Maven model containing the dependencies
-     * @param artifactVersionMap     a map of artifact keys to their new versions
-     * @param isDependencyManagement flag indicating if the update is for dependency
-     *                               management
-     * @return true if any dependencies were modified, false otherwise
+     * Updates dependencies in one repository: brings its clone up to date, updates the POMs, then commits and
+     * pushes the changes if there are any.
+     *
+     * @param url            the URL of the repository
+     * @param cacheDirectory the directory holding the clones of the repositories
+     * @param branch         the branch to update
+     * @param artifactKeys   the artifact coordinates, for the commit message
+     * @param artifactIndex  the versions to set, by {@code groupId:artifactId}
+     * @return the outcome of the repository; failures are caught and reported in it
      */
-    private boolean changeDependencies(File pomFile, Model model, Map<String, String> artifactVersionMap,
-            boolean isDependencyManagement) {
-        boolean modified = false;
+    private RepositoryUpdate propagateDependencies(String url, File cacheDirectory, String branch,
+            Set<String> artifactKeys, Map<String, String> artifactIndex) {
+        RepositoryUpdate update = new RepositoryUpdate(url);
+        File directory = new File(cacheDirectory, getCacheName(url));
+        GitConfiguration gitConfiguration = getGitConfiguration(url);
+
+        long mark = System.nanoTime();
+        String step = "sync";
+        GitCommand git = null;
+        try {
+            git = syncRepository(url, directory, branch, gitConfiguration);
+            update.withSyncMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mark));
+            if (git == null) {
+                return update.withStatus(RepositoryUpdate.Status.SKIPPED)
+                        .withMessage("branch '" + branch + "' does not exist");
+            }
 
-        if (isDependencyManagement && model.getDependencyManagement() == null) {
-            commons.getLog().info("No dependency management section found.");
-            return false;
+            mark = System.nanoTime();
+            step = "update";
+            int written = updateDependencies(new File(directory, "pom.xml"), artifactIndex);
+            update.withUpdateMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mark)).withPomCount(written);
+            if (written == 0) {
+                return update.withStatus(RepositoryUpdate.Status.UP_TO_DATE);
+            }
+
+            mark = System.nanoTime();
+            step = "push";
+            git.addAllChanges()
+                    .commit(getUpdateCommitMessage(branch, artifactKeys))
+                    .queueBranchPush(branch)
+                    .pushQueued(gitConfiguration);
+            update.withPushMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mark));
+            return update.withStatus(RepositoryUpdate.Status.UPDATED);
+        } catch (Exception e) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mark);
+            switch (step) {
+                case "sync":
+                    update.withSyncMillis(millis);
+                    break;
+                case "update":
+                    update.withUpdateMillis(millis);
+                    break;
+                default:
+                    update.withPushMillis(millis);
+            }
+            commons.getLog().error("Failed to propagate dependencies to " + url + ": " + getFailureMessage(e), e);
+            return update.withMessage(step + " failed: " + getFailureMessage(e));
+        } finally {
+            if (git != null) {
+                git.close();
+            }
+        }
+    }
+
+    /**
+     * Plans the order in which a set of repositories that depend on each other can be released.
+     * <p>
+     * The raw POMs of every repository are read, in parallel, to find the artifacts each one builds and the
+     * parents, dependencies and managed dependencies each one uses. A repository given as a URL is cloned into
+     * the cache directory or fetched, and read at the tip of the branch; a local directory is read as it is.
+     *
+     * URLs that share a clone, e.g. the HTTPS and SSH URLs of one repository, are read once, through the first
+     * of them.
+     *
+     * @param urls           the URLs or local directories of the repositories
+     * @param cacheDirectory the directory holding the clones of the repositories
+     * @param branch         the branch the release starts from
+     * @param parallelism    the number of repositories read at the same time
+     * @return the release train, whose {@link ReleaseTrain#getWaves()} gives the waves
+     * @throws IllegalStateException if a repository cannot be read
+     */
+    public ReleaseTrain planReleaseTrain(List<String> urls, File cacheDirectory, String branch,
+            int parallelism) {
+        List<String> repositories = getDistinctRepositories(urls);
+        List<Callable<ReleaseTrain.Repository>> tasks = new ArrayList<>();
+        for (String repository : repositories) {
+            tasks.add(() -> readRepository(repository, cacheDirectory, branch));
         }
 
-        List<Dependency> dependencies = isDependencyManagement ? model.getDependencyManagement().getDependencies()
-                : model.getDependencies();
-        commons.getLog().info(isDependencyManagement ? "Processing dependency management section."
-                : "Processing project dependencies.");
+        long start = System.nanoTime();
+        ReleaseTrain train = new ReleaseTrain();
+        List<String> failed = new ArrayList<>();
+        List<Future<ReleaseTrain.Repository>> futures = invokeAll(tasks,
+                Math.max(1, Math.min(parallelism, tasks.size())));
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                train.addRepository(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while reading repositories", e);
+            } catch (ExecutionException e) {
+                commons.getLog().error("Cannot read " + repositories.get(i) + ": " + getFailureMessage(e), e.getCause());
+                failed.add(repositories.get(i));
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new IllegalStateException("Cannot read " + failed.size() + " of " + repositories.size()
+                    + " repositories: " + String.join(", ", failed));
+        }
+        commons.getLog().info(String.format("Read %d repositories in %d ms", repositories.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        return train;
+    }
 
-        for (Dependency dep : dependencies) {
-            if (updateDependencyIfNeeded(dep, artifactVersionMap, isDependencyManagement)) {
-                modified = true;
+    /**
+     * Reads the artifacts a repository builds and uses from its raw POMs.
+     *
+     * @param repository     the URL or local directory of the repository
+     * @param cacheDirectory the directory holding the clones of the repositories
+     * @param branch         the branch to read a cloned repository at
+     * @return the repository with the modules it builds and the parents, dependencies and managed dependencies
+     *         they use
+     * @throws IOException           if a POM cannot be read
+     * @throws IllegalStateException if the branch does not exist, or the raw POMs may not list every module
+     */
+    private ReleaseTrain.Repository readRepository(String repository, File cacheDirectory, String branch) throws IOException {
+        File directory = new File(repository);
+        if (!directory.isDirectory()) {
+            directory = new File(cacheDirectory, getCacheName(repository));
+            GitCommand git = syncRepository(repository, directory, branch, getGitConfiguration(repository));
+            if (git == null) {
+                throw new IllegalStateException("Branch '" + branch + "' does not exist in " + repository);
+            }
+            git.close();
+        }
+
+        ModuleTree tree = ModuleTree.walk(new File(directory, "pom.xml"), ModuleTree.DEFAULT_PARALLELISM);
+        if (!tree.getIncompleteReasons().isEmpty()) {
+            throw new IllegalStateException("Cannot read every module of " + repository + ": "
+                    + String.join("; ", tree.getIncompleteReasons()));
+        }
+        ModuleCoordinates coordinates = new ModuleCoordinates(tree, commons.getSession().getUserProperties(),
+                commons.getSession().getSystemProperties());
+        ReleaseTrain.Repository read = new ReleaseTrain.Repository(repository);
+        for (ModuleTree.Module module : tree.getModules()) {
+            read.withArtifact(interpolate(coordinates, module, module.getGroupId()),
+                    interpolate(coordinates, module, module.getArtifactId()));
+            Model model = module.getModel();
+            if (model.getParent() != null) {
+                read.withDependency(interpolate(coordinates, module, model.getParent().getGroupId()),
+                        interpolate(coordinates, module, model.getParent().getArtifactId()));
+            }
+            List<Dependency> used = new ArrayList<>(model.getDependencies());
+            if (model.getDependencyManagement() != null) {
+                used.addAll(model.getDependencyManagement().getDependencies());
+            }
+            for (Dependency dependency : used) {
+                read.withDependency(interpolate(coordinates, module, dependency.getGroupId()),
+                        interpolate(coordinates, module, dependency.getArtifactId()));
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Brings the clone of a repository up to date: clones it on first use, otherwise fetches it and discards
+     * whatever an earlier run left behind, then checks the branch out at the tip of its remote branch. A branch
+     * the remote does not have is not created.
+     *
+     * @param url              the URL of the repository
+     * @param directory        the work tree of the clone
+     * @param branch           the branch to check out
+     * @param gitConfiguration the Git configuration for credentials
+     * @return the Git command on the clone, to be closed by the caller, or {@code null} if the remote has no
+     *         such branch
+     * @throws IOException      if the clone cannot be opened
+     * @throws RuntimeException if a Git operation fails
+     */
+    private GitCommand syncRepository(String url, File directory, String branch, GitConfiguration gitConfiguration)
+            throws IOException {
+        boolean cloned = GitUtils.cloneIfAbsent(url, directory, gitConfiguration, commons.getLog());
+        GitCommand git = new GitCommand(commons.getLog(), directory.getPath());
+        try {
+            if (!cloned) {
+                git.fetch(gitConfiguration).reset();
+            }
+            if (!git.hasRemoteTrackingBranch(branch)) {
+                git.close();
+                return null;
+            }
+            return git.changeBranch(branch, gitConfiguration)
+                    .resetTo(Constants.R_REMOTES + "origin/" + branch);
+        } catch (RuntimeException e) {
+            git.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the Git configuration of another repository, authenticating with the server of the current
+     * project.
+     *
+     * @param url the URL of the repository
+     * @return the Git configuration
+     */
+    private GitConfiguration getGitConfiguration(String url) {
+        Scm scm = new Scm();
+        scm.setConnection("scm:git:" + url);
+        return new GitConfiguration()
+                .withServerKey(commons.getProject().getProperties().getProperty("gitProvider"))
+                .withScm(scm)
+                .withSettings(commons.getSettings());
+    }
+
+    /**
+     * Describes why a repository failed, preferring the message of the underlying cause, which a wrapping
+     * exception often lacks.
+     *
+     * @param e the failure, e.g. an {@link ExecutionException} or a {@link RuntimeException} from a Git command
+     * @return the most specific message found, or the exception type if none has a message
+     */
+    private static String getFailureMessage(Throwable e) {
+        Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && (t.getCause() == null || t.getCause().getMessage() == null)) {
+                return t.getMessage();
+            }
+        }
+        return cause.toString();
+    }
+
+    /**
+     * Runs tasks on a pool of bounded size and waits for all of them.
+     *
+     * @param tasks       the tasks
+     * @param parallelism the number of threads
+     * @param <T>         the result type of the tasks
+     * @return the completed futures, in the order of the tasks
+     */
+    private static <T> List<Future<T>> invokeAll(List<Callable<T>> tasks, int parallelism) {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            return pool.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while processing repositories", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Collects the artifacts of a project and all its modules, nested aggregators included.
+     * With {@link CollateMode#RAW} the coordinates are read from the raw POMs, and the project builder is only
+     * used when the raw models are not enough: a POM needs more to resolve its coordinates, a module POM is
+     * missing, or modules are declared in a profile.
+     *
+     * @param rootPom the {@code pom.xml} of the top-level project
+     * @return the artifact coordinates in the format {@code groupId:artifactId:version}, the root project first
+     * @throws ProjectBuildingException if any project of the reactor could not be built
+     */
+    private Set<String> collectArtifacts(File rootPom) throws ProjectBuildingException {
+        if (collateMode == CollateMode.RAW) {
+            try {
+                return readArtifacts(rootPom);
+            } catch (IOException | IllegalStateException e) {
+                commons.getLog().warn("Cannot read the coordinates from the raw POMs, building the projects instead: "
+                        + e.getMessage());
+            }
+        }
+        return buildArtifacts(rootPom);
+    }
+
+    /**
+     * Reads the artifacts of a project and all its modules from the raw POMs, inheriting groupId and version
+     * from the parents in memory and interpolating only the expressions coordinates need.
+     *
+     * @param rootPom the {@code pom.xml} of the top-level project
+     * @return the artifact coordinates in the format {@code groupId:artifactId:version}, the root project first
+     * @throws IOException           if a POM cannot be read
+     * @throws IllegalStateException if a coordinate cannot be resolved without building the project, or the raw
+     *                               POMs may not list every module
+     */
+    private Set<String> readArtifacts(File rootPom) throws IOException {
+        long start = System.nanoTime();
+        ModuleTree tree = ModuleTree.walk(rootPom, ModuleTree.DEFAULT_PARALLELISM);
+        if (!tree.getIncompleteReasons().isEmpty()) {
+            throw new IllegalStateException(String.join("; ", tree.getIncompleteReasons()));
+        }
+        ModuleCoordinates coordinates = new ModuleCoordinates(tree, commons.getSession().getUserProperties(),
+                commons.getSession().getSystemProperties());
+
+        Set<String> artifacts = new LinkedHashSet<>();
+        for (ModuleTree.Module module : tree.getModules()) {
+            artifacts.add(coordinates.getCoordinates(module));
+        }
+        commons.getLog().info(String.format("Read %d project model(s) in %d ms", tree.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        return artifacts;
+    }
+
+    /**
+     * Builds the artifacts of a project and all its modules with the Maven project builder, see
+     * {@link #buildProjects(File)}; only the coordinates of the projects are needed.
+     *
+     * @param rootPom the {@code pom.xml} of the top-level project
+     * @return the artifact coordinates in the format {@code groupId:artifactId:version}, the root project first
+     * @throws ProjectBuildingException if any project of the reactor could not be built
+     */
+    private Set<String> buildArtifacts(File rootPom) throws ProjectBuildingException {
+        Map<File, MavenProject> projects = buildProjects(rootPom);
+
+        // the builder lists modules before their aggregator, the artifacts keep each aggregator first
+        Set<String> artifacts = new LinkedHashSet<>();
+        MavenProject root = projects.remove(rootPom.toPath().toAbsolutePath().normalize().toFile());
+        if (root != null) {
+            addArtifacts(root, projects, artifacts);
+        }
+        for (MavenProject project : projects.values()) {
+            artifacts.add(project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion());
+        }
+        return artifacts;
+    }
+
+    /**
+     * Builds a project and all its modules with the Maven project builder, in a single
+     * {@link org.apache.maven.project.ProjectBuilder} call, with a request of its own that resolves no
+     * dependencies and applies minimal model validation. The session's request is left untouched.
+     *
+     * @param rootPom the {@code pom.xml} of the top-level project
+     * @return the built projects by absolute, normalized POM file, in the order of the builder
+     * @throws ProjectBuildingException if any project of the reactor could not be built
+     */
+    private Map<File, MavenProject> buildProjects(File rootPom) throws ProjectBuildingException {
+        ProjectBuildingRequest request = new DefaultProjectBuildingRequest(
+                commons.getSession().getProjectBuildingRequest());
+        request.setResolveDependencies(false);
+        request.setProcessPlugins(false);
+        request.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+
+        long start = System.nanoTime();
+        List<ProjectBuildingResult> results;
+        try {
+            results = commons.getProjectBuilder().build(Collections.singletonList(rootPom), true, request);
+        } catch (ProjectBuildingException e) {
+            // thrown when any project has errors; a module that could not be built at all fails the collation,
+            // so no artifact list is published without it
+            if (e.getResults() == null) {
+                throw e;
             }
+            boolean failed = false;
+            for (ProjectBuildingResult result : e.getResults()) {
+                if (result.getProject() == null) {
+                    commons.getLog().error("Cannot build " + result.getPomFile() + ": " + result.getProblems());
+                    failed = true;
+                }
+            }
+            if (failed) {
+                throw e;
+            }
+            commons.getLog().warn("Projects built with problems: " + e.getMessage());
+            results = e.getResults();
         }
+        commons.getLog().info(String.format("Built %d project model(s) in %d ms", results.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
 
-        if (modified) {
-            modified = writeUpdatedPom(pomFile, model);
-        } else {
-            commons.getLog().info("No dependencies to update in " + pomFile.getAbsolutePath());
+        Map<File, MavenProject> projects = new LinkedHashMap<>();
+        for (ProjectBuildingResult result : results) {
+            MavenProject project = result.getProject();
+            projects.put(project.getFile().toPath().toAbsolutePath().normalize().toFile(), project);
         }
+        return projects;
+    }
 
+    /**
+     * Gets the modules of a project and all its modules as the project builder sees them, active profiles
+     * included, for reading a {@link ModuleTree} the raw POMs alone cannot give.
+     *
+     * @param rootPom the {@code pom.xml} of the top-level project
+     * @return the {@code <module>} entries of every built project, by canonical POM file
+     * @throws ProjectBuildingException if any project of the reactor could not be built
+     * @throws IOException              if the path of a POM cannot be resolved
+     */
+    private Map<File, List<String>> buildDeclaredModules(File rootPom) throws ProjectBuildingException, IOException {
+        Map<File, List<String>> declaredModules = new HashMap<>();
+        for (MavenProject project : buildProjects(rootPom).values()) {
+            declaredModules.put(project.getFile().getCanonicalFile(), project.getModules());
+        }
+        return declaredModules;
+    }
+
+    /**
+     * Adds the artifact of a project, then those of its modules, depth-first in declaration order.
+     *
+     * @param project   the project
+     * @param projects  the built projects not added yet, keyed by POM file; added projects are removed
+     * @param artifacts the artifact coordinates in the format {@code groupId:artifactId:version}
+     */
+    private void addArtifacts(MavenProject project, Map<File, MavenProject> projects, Set<String> artifacts) {
+        artifacts.add(project.getGroupId() + ":" + project.getArtifactId() + ":" + project.getVersion());
+        for (String module : project.getModules()) {
+            File modulePom = new File(project.getBasedir(), module);
+            if (modulePom.isDirectory()) {
+                modulePom = new File(modulePom, "pom.xml");
+            }
+            MavenProject subProject = projects.remove(modulePom.toPath().toAbsolutePath().normalize().toFile());
+            if (subProject != null) {
+                addArtifacts(subProject, projects, artifacts);
+            }
+        }
+    }
+
+    /**
+     * Parses artifact coordinates into an index of versions by {@code groupId:artifactId}, once for all modules.
+     *
+     * @param artifactKeys artifact coordinates in the format {@code groupId:artifactId:version}
+     * @return an immutable map of {@code groupId:artifactId} to version, keeping the first of duplicates
+     */
+    private Map<String, String> parseArtifactIndex(Set<String> artifactKeys) {
+        Map<String, String> index = new LinkedHashMap<>();
+        for (String key : artifactKeys) {
+            String[] parts = key.trim().split(":");
+            if (parts.length != 3) {
+                commons.getLog().warn("Ignoring artifact not in the format groupId:artifactId:version: " + key);
+                continue;
+            }
+            index.putIfAbsent(parts[0] + ":" + parts[1], parts[2]);
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * Updates the versions of the indexed artifacts wherever the project and its modules, nested aggregators
+     * included, depend on them, then writes every changed POM once.
+     * <p>
+     * A literal {@code <version>} is replaced. A version taken from a property, e.g. {@code ${foo.version}}, is
+     * updated where the property is defined: in the module itself or in the nearest parent within the build that
+     * declares it. The POMs are read from their raw models. Only when the raw POMs may not list every module, a
+     * module POM is missing or modules are declared in a profile, are the projects built to find the modules.
+     *
+     * @param rootPom       the {@code pom.xml} of the top-level project
+     * @param artifactIndex the versions to set, by {@code groupId:artifactId}
+     * @return the number of POM files written
+     * @throws IOException              if a POM cannot be read or written
+     * @throws XmlPullParserException   if a POM is not valid
+     * @throws ProjectBuildingException if the projects had to be built and one could not be
+     * @throws IllegalStateException    if a module POM is missing
+     */
+    private int updateDependencies(File rootPom, Map<String, String> artifactIndex)
+            throws IOException, XmlPullParserException, ProjectBuildingException {
+        try {
+            applyArtifactIndex(rootPom, artifactIndex);
+        } catch (IOException | XmlPullParserException | ProjectBuildingException | RuntimeException e) {
+            // keep the half-made changes out of the next flush, e.g. on another branch
+            discardUpdatedPoms(rootPom.getParentFile());
+            throw e;
+        }
+        return writeUpdatedPoms(rootPom.getParentFile());
+    }
+
+    /**
+     * Changes the cached models of the project and its modules for {@link #updateDependencies(File, Map)},
+     * without writing them.
+     *
+     * @param rootPom       the {@code pom.xml} of the top-level project
+     * @param artifactIndex the versions to set, by {@code groupId:artifactId}
+     * @throws IOException            if a POM cannot be read
+     * @throws XmlPullParserException   if a POM is not valid
+     * @throws ProjectBuildingException if the projects had to be built and one could not be
+     * @throws IllegalStateException    if a module POM is missing
+     */
+    private void applyArtifactIndex(File rootPom, Map<String, String> artifactIndex)
+            throws IOException, XmlPullParserException, ProjectBuildingException {
+        ModuleTree tree = ModuleTree.walk(rootPom, ModuleTree.DEFAULT_PARALLELISM);
+        if (!tree.getIncompleteReasons().isEmpty()) {
+            commons.getLog().warn("The raw POMs may not list every module, building the projects to find them: "
+                    + String.join("; ", tree.getIncompleteReasons()));
+            tree = ModuleTree.walk(rootPom, buildDeclaredModules(rootPom), ModuleTree.DEFAULT_PARALLELISM);
+            if (!tree.getIncompleteReasons().isEmpty()) {
+                throw new IllegalStateException("Cannot update every module: "
+                        + String.join("; ", tree.getIncompleteReasons()));
+            }
+        }
+        ModuleCoordinates coordinates = new ModuleCoordinates(tree, commons.getSession().getUserProperties(),
+                commons.getSession().getSystemProperties());
+        Map<String, String> propertyVersions = new HashMap<>();
+
+        for (ModuleTree.Module module : tree.getModules()) {
+            Model model = module.getModel();
+            commons.getLog().info("Processing project dependencies.");
+            boolean modified = changeDependencies(coordinates, module, model.getDependencies(), false, artifactIndex,
+                    propertyVersions);
+            if (model.getDependencyManagement() == null) {
+                commons.getLog().info("No dependency management section found.");
+            } else {
+                commons.getLog().info("Processing dependency management section.");
+                modified |= changeDependencies(coordinates, module, model.getDependencyManagement().getDependencies(),
+                        true, artifactIndex, propertyVersions);
+            }
+            if (!modified) {
+                commons.getLog().info("No dependencies to update in " + module.getPomFile());
+            }
+        }
+    }
+
+    /**
+     * Changes the versions of the dependencies of one section of a module based on the artifact index.
+     *
+     * @param coordinates            the resolver interpolating the coordinates of the dependencies
+     * @param module                 the module declaring the dependencies
+     * @param dependencies           the dependencies of the section
+     * @param isDependencyManagement flag indicating if the section is the dependency management
+     * @param artifactIndex          the versions to set, by {@code groupId:artifactId}
+     * @param propertyVersions       the versions already given to properties in this pass, by POM and property
+     * @return true if any dependency or property was modified, false otherwise
+     * @throws IOException            if a POM cannot be read
+     * @throws XmlPullParserException if a POM is not valid
+     */
+    private boolean changeDependencies(ModuleCoordinates coordinates, ModuleTree.Module module,
+            List<Dependency> dependencies, boolean isDependencyManagement, Map<String, String> artifactIndex,
+            Map<String, String> propertyVersions) throws IOException, XmlPullParserException {
+        boolean modified = false;
+        for (Dependency dep : dependencies) {
+            if (updateDependencyIfNeeded(coordinates, module, dep, isDependencyManagement, artifactIndex,
+                    propertyVersions)) {
+                modified = true;
+            }
+        }
         return modified;
     }
 
     /**
-     * Updates the version of a dependency if it exists in the artifactVersionMap.
-     * 
+     * Updates the version of a dependency if it exists in the artifact index, either in place or, when it comes
+     * from a property, in the POM defining the property.
+     *
+     * @param coordinates            the resolver interpolating the coordinates of the dependency
+     * @param module                 the module declaring the dependency
      * @param dep                    the dependency to update
-     * @param artifactVersionMap     the map of artifact keys to versions
      * @param isDependencyManagement whether this is for dependency management
-     * @return true if the dependency was updated, false otherwise
-     */
-    private boolean updateDependencyIfNeeded(Dependency dep, Map<String, String> artifactVersionMap,
-            boolean isDependencyManagement) {
-        String key = dep.getGroupId() + ":" + dep.getArtifactId();
-        if (artifactVersionMap.containsKey(key)) {
-            String newVersion = artifactVersionMap.get(key);
-            dep.setVersion(newVersion);
-            commons.getLog().info(
-                    (isDependencyManagement ? "Updated dependency management dependency: " : "Updated dependency: ")
-                            + key + " to version " + newVersion);
-            return true;
-        } else {
+     * @param artifactIndex          the versions to set, by {@code groupId:artifactId}
+     * @param propertyVersions       the versions already given to properties in this pass, by POM and property
+     * @return true if the dependency or its property was updated, false otherwise
+     * @throws IOException            if a POM cannot be read
+     * @throws XmlPullParserException if a POM is not valid
+     */
+    private boolean updateDependencyIfNeeded(ModuleCoordinates coordinates, ModuleTree.Module module, Dependency dep,
+            boolean isDependencyManagement, Map<String, String> artifactIndex, Map<String, String> propertyVersions)
+            throws IOException, XmlPullParserException {
+        String key = interpolate(coordinates, module, dep.getGroupId()) + ":"
+                + interpolate(coordinates, module, dep.getArtifactId());
+        String newVersion = artifactIndex.get(key);
+        if (newVersion == null) {
             commons.getLog().info((isDependencyManagement ? "No dependency management update found for dependency: "
                     : "No update found for dependency: ") + key);
             return false;
         }
+
+        String property = getPropertyReference(dep.getVersion());
+        if (property != null) {
+            return updateVersionProperty(coordinates, module, key, property, newVersion, propertyVersions);
+        }
+        if (dep.getVersion() != null && dep.getVersion().contains("${")) {
+            commons.getLog().warn("Not updating " + key + " in " + module.getPomFile() + ": its version "
+                    + dep.getVersion() + " is not a single property");
+            return false;
+        }
+
+        if (newVersion.equals(dep.getVersion())) {
+            commons.getLog().info("Dependency " + key + " is already at version " + newVersion);
+            return false;
+        }
+
+        PomModelCache.setDependencyVersion(module.getPomFile(), dep, isDependencyManagement, newVersion);
+        commons.getLog().info(
+                (isDependencyManagement ? "Updated dependency management dependency: " : "Updated dependency: ")
+                        + key + " to version " + newVersion);
+        return true;
     }
 
     /**
-     * Writes the updated model to the specified POM file and checks if the file was
-     * successfully updated.
-     * 
-     * @param pomFile the POM file to be written
-     * @param model   the Maven model to be written to the POM file
-     * @return true if the POM file was successfully updated, false otherwise
+     * Updates the property a dependency takes its version from, in the POM that defines it for the module.
+     *
+     * @param coordinates      the resolver finding where the property is defined
+     * @param module           the module declaring the dependency
+     * @param key              the {@code groupId:artifactId} of the dependency
+     * @param property         the property name
+     * @param newVersion       the version to set
+     * @param propertyVersions the versions already given to properties in this pass, by POM and property
+     * @return true if the property was updated, false otherwise
+     * @throws IOException            if a POM cannot be read
+     * @throws XmlPullParserException if a POM is not valid
      */
-    private boolean writeUpdatedPom(File pomFile, Model model) {
-        commons.getLog().info("Writing updated POM to " + pomFile.getAbsolutePath());
-        long lastModifiedBefore = pomFile.lastModified(); // Get the last modified time before writing
-        try (FileWriter writer = new FileWriter(pomFile)) {
-            new MavenXpp3Writer().write(writer, model);
-        } catch (IOException e) {
-            commons.getLog().error("IOException occurred while writing POM file: " + e.getMessage(), e);
-            return false; // Return false if an exception occurs
+    private boolean updateVersionProperty(ModuleCoordinates coordinates, ModuleTree.Module module, String key,
+            String property, String newVersion, Map<String, String> propertyVersions)
+            throws IOException, XmlPullParserException {
+        ModuleTree.Module owner;
+        try {
+            owner = coordinates.getPropertyOwner(module, property);
+        } catch (IllegalStateException e) {
+            commons.getLog().warn("Not updating " + key + ": " + e.getMessage());
+            return false;
+        }
+        if (owner == null) {
+            commons.getLog().warn("Not updating " + key + " in " + module.getPomFile() + ": property " + property
+                    + " is not defined in the build");
+            return false;
         }
-        long lastModifiedAfter = pomFile.lastModified(); // Get the last modified time after writing
 
-        // Confirm that the file was actually saved
-        if (lastModifiedAfter > lastModifiedBefore) {
-            commons.getLog().info("Successfully updated POM file: " + pomFile.getAbsolutePath());
+        String definition = owner.getPomFile() + "#" + property;
+        String previous = propertyVersions.putIfAbsent(definition, newVersion);
+        if (previous != null && !previous.equals(newVersion)) {
+            commons.getLog().warn(String.format("Not updating %s: property %s in %s was already set to %s", key,
+                    property, owner.getPomFile(), previous));
+            return false;
+        }
+        if (previous != null) {
             return true;
-        } else {
-            commons.getLog().warn("Failed to update POM file: " + pomFile.getAbsolutePath());
+        }
+        if (newVersion.equals(owner.getModel().getProperties().getProperty(property))) {
+            commons.getLog().info("Property " + property + " in " + owner.getPomFile() + " is already at version "
+                    + newVersion);
             return false;
         }
+        PomModelCache.setProperty(owner.getPomFile(), property, newVersion);
+        commons.getLog().info("Updated property " + property + " in " + owner.getPomFile() + " for dependency: "
+                + key + " to version " + newVersion);
+        return true;
     }
 
     /**
-     * Updates the project dependencies in the specified POM file based on the
-     * provided version map.
-     * 
-     * @param pomFile            the POM file to be updated
-     * @param model              the Maven model containing the dependencies
-     * @param artifactVersionMap a map of artifact keys to their new versions
-     * @return true if any dependencies were modified, false otherwise
+     * Gets the property a version consists of.
+     *
+     * @param version the raw version, e.g. {@code ${foo.version}}
+     * @return the property name, e.g. {@code foo.version}, or {@code null} if the version is not a single property
      */
-    private boolean updateProjectDependencies(File pomFile, Model model, Map<String, String> artifactVersionMap) {
-        return changeDependencies(pomFile, model, artifactVersionMap, false);
+    private static String getPropertyReference(String version) {
+        if (version == null) {
+            return null;
+        }
+        Matcher matcher = PROPERTY_REFERENCE.matcher(version.trim());
+        return matcher.matches() ? matcher.group(1).trim() : null;
+    }
+
+    private static String interpolate(ModuleCoordinates coordinates, ModuleTree.Module module, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return coordinates.interpolate(module, value);
+        } catch (IllegalStateException e) {
+            return value;
+        }
     }
 
     /**
-     * Updates the dependencies in the dependency management section of the
-     * specified POM file based on the provided version map.
-     * 
-     * @param pomFile            the POM file to be updated
-     * @param model              the Maven model containing the dependencies
-     * @param artifactVersionMap a map of artifact keys to their new versions
-     * @return true if any dependencies were modified, false otherwise
+     * Splits the artifact coordinates given to the goals.
+     *
+     * @param artifacts a semicolon-separated string of artifact coordinates
+     * @return the coordinates, trimmed and without duplicates, in the given order
      */
-    private boolean updateDependencyManagementDependencies(File pomFile, Model model,
-            Map<String, String> artifactVersionMap) {
-        return changeDependencies(pomFile, model, artifactVersionMap, true);
+    private static Set<String> splitArtifacts(String artifacts) {
+        return Arrays.stream(artifacts.split(";"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     /**
-     * Recursively updates the versions of dependencies in the given Maven project
-     * and its submodules
-     * based on a provided set of artifact coordinates in the format
-     * {@code groupId:artifactId:version}.
+     * Formats the conventional commit message of a dependency update.
      *
-     * @param project      the Maven project to process
-     * @param artifactKeys a set of artifact coordinates to match and update, in the
-     *                     format {@code groupId:artifactId:version}
-     * @throws Exception if reading or writing the POM files fails
+     * @param branch       the updated branch, used as scope
+     * @param artifactKeys the artifact coordinates the dependencies were updated to
+     * @return the commit message
      */
-    private void updateDependenciesRecursively(MavenProject project, Set<String> artifactKeys) throws Exception {
-        File pomFile = new File(project.getBasedir(), "pom.xml");
-        Model model = new MavenXpp3Reader().read(new FileReader(pomFile));
+    private static String getUpdateCommitMessage(String branch, Set<String> artifactKeys) {
+        String description = artifactKeys.stream()
+                .map(key -> "Updated dependency: " + key)
+                .collect(Collectors.joining("\n"));
+
+        ConventionalCommit commit = new ConventionalCommit.Builder()
+                .type(BranchType.RELEASE)
+                .scope(branch)
+                .description(description)
+                .isBreaking(false)
+                .body("")
+                .footer("")
+                .build();
+
+        return CommitUtils.format(commit);
+    }
 
-        // Build a map of groupId:artifactId -> version for quick lookup
-        Map<String, String> artifactVersionMap = artifactKeys.stream()
-                .map(String::trim)
-                .filter(s -> s.split(":").length == 3)
-                .collect(Collectors.toMap(
-                        s -> s.split(":")[0] + ":" + s.split(":")[1],
-                        s -> s.split(":")[2],
-                        (v1, v2) -> v1, // keep first if duplicates
-                        LinkedHashMap::new));
+    /**
+     * Drops the repositories that share a clone with an earlier one, e.g. the HTTPS and SSH URLs of one
+     * repository, so no two tasks work on the same directory at the same time. Local directories are compared
+     * by their canonical path.
+     *
+     * @param repositories the URLs or local directories of the repositories
+     * @return the first of each repository, in the given order
+     */
+    private List<String> getDistinctRepositories(List<String> repositories) {
+        Map<String, String> byCacheName = new LinkedHashMap<>();
+        for (String repository : repositories) {
+            File directory = new File(repository);
+            String key;
+            try {
+                key = directory.isDirectory() ? directory.getCanonicalPath() : getCacheName(repository);
+            } catch (IOException e) {
+                key = directory.getAbsolutePath();
+            }
+            String first = byCacheName.putIfAbsent(key, repository);
+            if (first != null) {
+                commons.getLog().warn("Skipping " + repository + ": it is the same repository as " + first);
+            }
+        }
+        return new ArrayList<>(byCacheName.values());
+    }
 
-        updateProjectDependencies(pomFile, model, artifactVersionMap);
-        updateDependencyManagementDependencies(pomFile, model, artifactVersionMap);
+    /**
+     * Gets the name of the directory a repository is cloned into, e.g. {@code github.com_org_repo} for
+     * {@code git@github.com:org/repo.git}.
+     *
+     * @param url the URL of the repository
+     * @return a directory name unique to the repository
+     */
+    private static String getCacheName(String url) {
+        String name = url.trim()
+                .replaceFirst("^[A-Za-z][A-Za-z0-9+.-]*://", "")
+                .replaceFirst("^[^@/]*@", "")
+                .replaceFirst("/+$", "")
+                .replaceFirst("\\.git$", "");
+        return name.replaceAll("[^A-Za-z0-9._-]+", "_").replaceAll("^[_.]+", "");
+    }
 
-        // Recurse into submodules
-        for (String module : project.getModules()) {
-            File modulePom = new File(project.getBasedir(), module + "/pom.xml");
-            MavenProject subProject = commons.getProjectBuilder()
-                    .build(modulePom, commons.getSession().getProjectBuildingRequest()).getProject();
-            updateDependenciesRecursively(subProject, artifactKeys);
+    /**
+     * Writes every POM of a project changed by the update, once each. Only the changed version
+     * and property elements are replaced, so the comments and formatting of the
+     * POMs are kept.
+     *
+     * @param basedir the directory of the top-level project
+     * @return the number of POM files written
+     * @throws IOException if a POM cannot be written; the changes not written yet are dropped
+     */
+    private int writeUpdatedPoms(File basedir) throws IOException {
+        try {
+            int written = PomModelCache.flush(commons.getLog(), basedir);
+            if (written > 0) {
+                commons.getLog().info("Successfully updated " + written + " POM file(s)");
+            }
+            return written;
+        } catch (IOException e) {
+            commons.getLog().error("IOException occurred while writing POM file: " + e.getMessage(), e);
+            discardUpdatedPoms(basedir);
+            throw e;
         }
     }
 
+    /**
+     * Drops the changes to the POMs of a project that could not be written.
+     *
+     * @param basedir the directory of the top-level project
+     */
+    private void discardUpdatedPoms(File basedir) {
+        try {
+            PomModelCache.discard(basedir);
+        } catch (IOException e) {
+            commons.getLog().error("Failed to drop changes to POM files in " + basedir, e);
+        }
+    }
 }
@@ -77,7 +77,8 @@ public class ReleaseMojoCommons {
             GitConfiguration gitConfiguration = new GitConfiguration()
                     .withServerKey(commons.getProject().getProperties().getProperty("gitProvider"))
                     .withScm(commons.getProject().getScm())
-                    .withSettings(commons.getSettings());
+                    .withSettings(commons.getSettings())
+                    .withRemoteRefTtl(commons.getRemoteRefTtl());
             String baseDir = commons.getProject().getBasedir().getAbsolutePath();
 
             PomCommand pomCommand = new PomCommand(baseDir, commons.getLog());
@@ -118,7 +119,7 @@ public class ReleaseMojoCommons {
                     }, pomCommand)
                     .addAllChanges()
                     .commit(commitMessage.get())
-                    .push(gitConfiguration)
+                    .queueBranchPush()
                     .changeBranch(commons.getDevBranch(), gitConfiguration)
                     .runPomCommands(cmd -> {
                         try {
@@ -150,7 +151,9 @@ public class ReleaseMojoCommons {
                     .addAllChanges()
                     .commit(commitMessage.get())
                     .gitInfo()
-                    .push(gitConfiguration)
+                    .queueBranchPush()
+                    // release and development branch are published together or not at all
+                    .pushQueued(gitConfiguration)
                     .runShellCommands(cmd -> {
                         List<String[]> properties = Arrays.asList(
                                 new String[] { "MUTATIO_NEXT_DEV_VERSION", nextDevelopmentVersion.toString() },
@@ -236,7 +239,8 @@ public class ReleaseMojoCommons {
             GitConfiguration gitConfiguration = new GitConfiguration()
                     .withServerKey(commons.getProject().getProperties().getProperty("gitProvider"))
                     .withScm(commons.getProject().getScm())
-                    .withSettings(commons.getSettings());
+                    .withSettings(commons.getSettings())
+                    .withRemoteRefTtl(commons.getRemoteRefTtl());
 
 //            String previouseRelease = GitUtils.getPreviousTag(Git.open(new File(".")), gitConfiguration,commons.getLog());
 
@@ -266,10 +270,12 @@ public class ReleaseMojoCommons {
                     .commit(commitMessage.get())
                     .mergeBranches(releaseBranch, mainOrMaster.getValue(),gitConfiguration)
                     .createTag(releaseTag)
-                    .pushTag(releaseTag,gitConfiguration)
+                    .queueTagPush(releaseTag)
                     .changeBranch(mainOrMaster.getValue(), gitConfiguration)
                     .gitInfo()
-                    .push(gitConfiguration)
+                    .queueBranchPush()
+                    // tag and main branch are published together or not at all
+                    .pushQueued(gitConfiguration)
                     .runShellCommands(cmd -> {
                         List<String[]> properties = Arrays.asList(
                                 new String[] { "MUTATIO_RELEASE_BRANCH", releaseBranch },
@@ -0,0 +1,53 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.BranchType;
+import com.mockholm.config.ReleaseNotesType;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Groups commits by the {@link BranchType} named in their Conventional Commit prefix.
+ * Commits without a recognised prefix are listed as features.
+ */
+public class BranchTypeReleaseNotesFormatter implements ReleaseNotesFormatter {
+
+    @Override
+    public String getName() {
+        return ReleaseNotesType.BRANCH.name();
+    }
+
+    @Override
+    public List<String> getSections() {
+        return Arrays.stream(BranchType.values())
+                .map(BranchType::name)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String getSection(RevCommit commit, BranchType type) {
+        return (type == null ? BranchType.FEATURE : type).name(); // Fallback
+    }
+
+    @Override
+    public void render(String toRef, Map<String, List<String>> sections, Writer out) throws IOException {
+        out.append("### ").append(toRef).append(" — ").append(LocalDate.now().toString()).append("\n\n");
+
+        for (BranchType type : BranchType.values()) {
+            List<String> entries = sections.get(type.name());
+            if (!entries.isEmpty()) {
+                out.append("#### ").append(type.getUppercaseValue()).append("\n");
+                for (String entry : entries) {
+                    out.append(entry).append("\n");
+                }
+                out.append("\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.BranchType;
+import com.mockholm.config.ReleaseNotesType;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups commits into features, fixes, chores, documentation and others by their Conventional Commit prefix.
+ */
+public class CategoryReleaseNotesFormatter implements ReleaseNotesFormatter {
+
+    private static final String FEATURES = "✨ Features";
+    private static final String FIXES = "🐛 Fixes";
+    private static final String CHORES = "🧹 Chores";
+    private static final String DOCUMENTATION = "📚 Documentation";
+    private static final String OTHERS = "🔧 Others";
+
+    @Override
+    public String getName() {
+        return ReleaseNotesType.CATEGORY.name();
+    }
+
+    @Override
+    public List<String> getSections() {
+        return List.of(FEATURES, FIXES, CHORES, DOCUMENTATION, OTHERS);
+    }
+
+    @Override
+    public String getSection(RevCommit commit, BranchType type) {
+        if (type == null) {
+            return OTHERS;
+        }
+        switch (type) {
+            case FEATURE:
+                return FEATURES;
+            case FIX:
+                return FIXES;
+            case CHORE:
+                return CHORES;
+            case DOCS:
+                return DOCUMENTATION;
+            default:
+                return OTHERS;
+        }
+    }
+
+    @Override
+    public void render(String toRef, Map<String, List<String>> sections, Writer out) throws IOException {
+        out.append("### ").append(toRef).append(" — ").append(LocalDate.now().toString()).append("\n\n");
+        for (Map.Entry<String, List<String>> entry : sections.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                out.append("#### ").append(entry.getKey()).append("\n");
+                for (String line : entry.getValue()) {
+                    out.append(line).append("\n");
+                }
+                out.append("\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.ChangelogPosition;
+import com.mockholm.utils.GitLogUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes a release section into a changelog without holding the changelog in memory, and without
+ * leaving a half-written changelog behind.
+ * <p>
+ * The new changelog is streamed into a temporary file next to the original: the existing changelog is
+ * copied line by line and the new section is written through {@link #getWriter()} at the configured
+ * {@link ChangelogPosition}. Sections already present for the same ref, i.e. {@code ###} headings
+ * naming it up to the next {@code #}, {@code ##} or {@code ###} heading, are left out of the copy so a rerun
+ * replaces them instead of adding duplicates.
+ * {@link #commit()} then renames the temporary file over the changelog in one step, the temporary file having
+ * been given the permissions of the changelog; closing the writer without committing discards it and leaves the
+ * changelog untouched.
+ * <pre>
+ * try (ChangelogWriter changelog = new ChangelogWriter(path, ChangelogPosition.TOP, "release-1.2.0")) {
+ *     changelog.getWriter().write("### release-1.2.0\n\n- ...\n");
+ *     changelog.commit();
+ * }
+ * </pre>
+ */
+public class ChangelogWriter implements Closeable {
+
+    /** Prefix of the headings that start a release section. */
+    private static final String SECTION_HEADING = "### ";
+
+    private final Path changelog;
+    private final Path temp;
+    private final Set<String> refs;
+    private final TrackingWriter out;
+    private final BufferedReader existing;
+
+    /** The line read from the existing changelog but not copied yet. */
+    private String pending;
+
+    /** Whether the copy is inside a section being replaced. */
+    private boolean skipping;
+
+    private int replaced;
+    private boolean committed;
+
+    /**
+     * Opens the temporary file and copies the part of the existing changelog that precedes the new section.
+     *
+     * @param changelog the changelog file; it does not need to exist
+     * @param position  where the new section is placed
+     * @param ref       the ref whose existing sections are replaced, or {@code null} to keep every section
+     * @throws IOException if the changelog cannot be read or the temporary file cannot be written
+     */
+    public ChangelogWriter(Path changelog, ChangelogPosition position, String ref) throws IOException {
+        this(changelog, position, ref == null ? Set.of() : Set.of(ref));
+    }
+
+    /**
+     * Opens the temporary file and copies the part of the existing changelog that precedes the new sections.
+     *
+     * @param changelog the changelog file; it does not need to exist
+     * @param position  where the new sections are placed
+     * @param refs      the refs whose existing sections are replaced
+     * @throws IOException if the changelog cannot be read or the temporary file cannot be written
+     */
+    public ChangelogWriter(Path changelog, ChangelogPosition position, Collection<String> refs) throws IOException {
+        this.changelog = changelog.toAbsolutePath();
+        this.refs = new HashSet<>(refs);
+
+        // The temporary file has to live on the same file system for the rename to be atomic
+        Path directory = this.changelog.getParent();
+        Files.createDirectories(directory);
+        this.temp = Files.createTempFile(directory, "." + this.changelog.getFileName(), ".tmp");
+
+        BufferedReader reader = null;
+        try {
+            copyPermissions(this.changelog, temp);
+            this.out = new TrackingWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8));
+            if (Files.isRegularFile(this.changelog)) {
+                reader = Files.newBufferedReader(this.changelog, StandardCharsets.UTF_8);
+            }
+            this.existing = reader;
+            if (position == ChangelogPosition.BOTTOM) {
+                copyUntil(false);
+            } else {
+                copyUntil(true);
+            }
+            if (out.hasContent()) {
+                out.separate();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (reader != null) {
+                reader.close();
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a temporary file the permissions of the file it is about to replace, or {@code rw-r--r--} when
+     * there is none yet; temporary files are created readable by their owner only. Does nothing on file systems
+     * without POSIX permissions.
+     *
+     * @param target the file the temporary file is renamed over
+     * @param temp   the temporary file
+     * @throws IOException if the permissions cannot be read or set
+     */
+    static void copyPermissions(Path target, Path temp) throws IOException {
+        if (!Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return;
+        }
+        Files.setPosixFilePermissions(temp, Files.exists(target)
+                ? Files.getPosixFilePermissions(target)
+                : PosixFilePermissions.fromString("rw-r--r--"));
+    }
+
+    /**
+     * Gets the writer receiving the new section.
+     *
+     * @return the writer; it must not be closed by the caller
+     */
+    public Writer getWriter() {
+        return out;
+    }
+
+    /**
+     * Copies the rest of the existing changelog and replaces the changelog with the new content.
+     *
+     * @throws IOException if the changelog cannot be read or replaced
+     */
+    public void commit() throws IOException {
+        if (existing != null) {
+            String first = nextLine();
+            if (first != null) {
+                out.separate();
+                writeLine(first);
+                copyUntil(false);
+            }
+            existing.close();
+        }
+        out.close();
+
+        try {
+            Files.move(temp, changelog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            GitLogUtils.warn("Atomic rename not supported for " + changelog + ", replacing it in place");
+            Files.move(temp, changelog, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+
+        if (replaced > 0) {
+            GitLogUtils.info(String.format("Replaced %d existing section(s) for %s in %s", replaced,
+                    refs.size() == 1 ? refs.iterator().next() : refs.size() + " refs", changelog));
+        }
+    }
+
+    /**
+     * Discards the temporary file unless the changelog was committed.
+     *
+     * @throws IOException if the files cannot be closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            if (existing != null) {
+                existing.close();
+            }
+            out.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Copies lines of the existing changelog, dropping the sections of {@link #refs}.
+     *
+     * @param stopAtSection true to stop before the first kept release section, false to copy to the end
+     * @throws IOException if the changelog cannot be read or the temporary file cannot be written
+     */
+    private void copyUntil(boolean stopAtSection) throws IOException {
+        if (existing == null) {
+            return;
+        }
+        String line;
+        while ((line = nextLine()) != null) {
+            if (stopAtSection && line.startsWith(SECTION_HEADING)) {
+                pending = line;
+                return;
+            }
+            writeLine(line);
+        }
+    }
+
+    /**
+     * Reads the next line of the existing changelog that is not part of a replaced section.
+     *
+     * @return the line, or {@code null} at the end of the changelog
+     * @throws IOException if the changelog cannot be read
+     */
+    private String nextLine() throws IOException {
+        String line;
+        if (pending != null) {
+            line = pending;
+            pending = null;
+        } else {
+            line = existing.readLine();
+        }
+        while (line != null) {
+            if (line.startsWith(SECTION_HEADING)) {
+                skipping = isSectionOf(line);
+                if (skipping) {
+                    replaced++;
+                }
+            } else if (isOuterHeading(line)) {
+                // a "#" or "##" heading closes the replaced section too
+                skipping = false;
+            }
+            if (!skipping) {
+                return line;
+            }
+            line = existing.readLine();
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether a line is a Markdown heading of a higher level than the release sections, {@code #} or
+     * {@code ##}.
+     */
+    private static boolean isOuterHeading(String line) {
+        int level = 0;
+        while (level < line.length() && line.charAt(level) == '#') {
+            level++;
+        }
+        return level > 0 && level < 3 && (level == line.length() || line.charAt(level) == ' ');
+    }
+
+    private boolean isSectionOf(String heading) {
+        if (refs.isEmpty()) {
+            return false;
+        }
+        // The ref is the first word of the heading, e.g. "### release-1.2.0 — 2025-01-31"
+        String title = heading.substring(SECTION_HEADING.length());
+        int space = title.indexOf(' ');
+        return refs.contains(space < 0 ? title : title.substring(0, space));
+    }
+
+    private void writeLine(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    /**
+     * Buffered writer remembering the last two characters written, so sections can be separated by
+     * exactly one blank line whatever the previous content ended with.
+     */
+    private static final class TrackingWriter extends Writer {
+
+        private final BufferedWriter delegate;
+        private char last;
+        private char beforeLast;
+        private boolean content;
+
+        private TrackingWriter(BufferedWriter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            delegate.write(buffer, offset, length);
+            if (length == 1) {
+                track(buffer[offset]);
+            } else if (length > 1) {
+                beforeLast = buffer[offset + length - 2];
+                last = buffer[offset + length - 1];
+                content = true;
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            delegate.write(c);
+            track((char) c);
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            delegate.write(str, offset, length);
+            if (length == 1) {
+                track(str.charAt(offset));
+            } else if (length > 1) {
+                beforeLast = str.charAt(offset + length - 2);
+                last = str.charAt(offset + length - 1);
+                content = true;
+            }
+        }
+
+        private void track(char c) {
+            beforeLast = last;
+            last = c;
+            content = true;
+        }
+
+        private boolean hasContent() {
+            return content;
+        }
+
+        /**
+         * Ends the content written so far with a blank line, unless it already does.
+         */
+        private void separate() throws IOException {
+            if (!content) {
+                return;
+            }
+            if (last != '\n') {
+                write('\n');
+            }
+            if (beforeLast != '\n') {
+                write('\n');
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
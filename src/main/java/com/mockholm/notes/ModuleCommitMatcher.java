@@ -0,0 +1,206 @@
+package com.mockholm.notes;
+
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds the modules a commit changes, diffing the commit once for all modules.
+ * <p>
+ * A single {@link TreeWalk} restricted by a {@link PathFilterGroup} of every module path compares the commit
+ * with its parents. Unchanged subtrees are skipped whole, and a changed subtree is only entered while a more
+ * deeply nested module may lie below it, so the cost per commit depends on what the commit touches, not on
+ * the number of modules. Changed paths belong to the deepest module containing them. For merges, only paths
+ * that differ from every parent count, so a merge is not credited with the changes it brings in.
+ * <p>
+ * {@link #getChangedFiles(RevCommit)} lists the changed files themselves with the same rules, for outputs
+ * that record them; {@link #match(Collection)} then maps those files to modules without a second diff.
+ */
+public class ModuleCommitMatcher implements AutoCloseable {
+
+    private final List<String> modules;
+    private final Set<String> moduleSet;
+    private final Set<String> ancestors = new TreeSet<>();
+    private final RevWalk parents;
+    private final TreeWalk treeWalk;
+    private final TreeWalk fileWalk;
+
+    /**
+     * Creates a matcher for the given module directories.
+     *
+     * @param reader  the reader of the repository holding the commits
+     * @param modules the module directories relative to the work tree, separated by {@code /};
+     *                the work tree root itself is not a module and is ignored
+     */
+    public ModuleCommitMatcher(ObjectReader reader, Collection<String> modules) {
+        this.moduleSet = new LinkedHashSet<>();
+        for (String module : modules) {
+            String path = trimSlashes(module);
+            if (!path.isEmpty()) {
+                moduleSet.add(path);
+            }
+        }
+        // Deepest first, so the first module containing a path is the one it belongs to
+        this.modules = new ArrayList<>(moduleSet);
+        this.modules.sort(Comparator.comparingInt(String::length).reversed());
+        for (String module : this.modules) {
+            for (int slash = module.indexOf('/'); slash > 0; slash = module.indexOf('/', slash + 1)) {
+                ancestors.add(module.substring(0, slash));
+            }
+        }
+
+        this.parents = new RevWalk(reader);
+        this.parents.setRetainBody(false);
+        this.treeWalk = new TreeWalk(reader);
+        this.treeWalk.setRecursive(false);
+        if (!moduleSet.isEmpty()) {
+            this.treeWalk.setFilter(PathFilterGroup.createFromStrings(moduleSet));
+        }
+        this.fileWalk = new TreeWalk(reader);
+        this.fileWalk.setRecursive(true);
+        this.fileWalk.setFilter(TreeFilter.ANY_DIFF);
+    }
+
+    /**
+     * Gets the module directories this matcher assigns commits to.
+     *
+     * @return the module directories, in the order they were given
+     */
+    public Set<String> getModules() {
+        return moduleSet;
+    }
+
+    /**
+     * Finds the modules whose files the commit adds, modifies or deletes.
+     *
+     * @param commit the commit
+     * @return the module directories the commit changes, possibly empty
+     * @throws IOException if the commit or its trees cannot be read
+     */
+    public Set<String> match(RevCommit commit) throws IOException {
+        Set<String> matched = new LinkedHashSet<>();
+        if (moduleSet.isEmpty()) {
+            return matched;
+        }
+
+        reset(treeWalk, commit);
+        while (treeWalk.next()) {
+            if (!isChanged(treeWalk)) {
+                continue;
+            }
+            String path = treeWalk.getPathString();
+            if (treeWalk.isSubtree() && ancestors.contains(path)) {
+                // A nested module may own part of this change; files directly below are matched on the way
+                treeWalk.enterSubtree();
+                continue;
+            }
+            String module = getOwner(path);
+            if (module != null) {
+                matched.add(module);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Finds the modules owning any of the given paths.
+     *
+     * @param files paths relative to the work tree, e.g. from {@link #getChangedFiles(RevCommit)}
+     * @return the module directories containing at least one of the paths
+     */
+    public Set<String> match(Collection<String> files) {
+        Set<String> matched = new LinkedHashSet<>();
+        for (String file : files) {
+            String module = getOwner(file);
+            if (module != null) {
+                matched.add(module);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Lists every file the commit adds, modifies or deletes, whether or not it lies in a module.
+     *
+     * @param commit the commit
+     * @return the changed paths relative to the work tree, in tree order
+     * @throws IOException if the commit or its trees cannot be read
+     */
+    public List<String> getChangedFiles(RevCommit commit) throws IOException {
+        List<String> files = new ArrayList<>();
+        reset(fileWalk, commit);
+        while (fileWalk.next()) {
+            if (isChanged(fileWalk)) {
+                files.add(fileWalk.getPathString());
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public void close() {
+        fileWalk.close();
+        treeWalk.close();
+        parents.close();
+    }
+
+    /**
+     * Points the walk at the commit's tree followed by the trees of its parents, or an empty tree for a root commit.
+     */
+    private void reset(TreeWalk walk, RevCommit commit) throws IOException {
+        walk.reset();
+        walk.addTree(parents.parseCommit(commit).getTree());
+        if (commit.getParentCount() == 0) {
+            walk.addTree(new EmptyTreeIterator());
+        }
+        for (int i = 0; i < commit.getParentCount(); i++) {
+            walk.addTree(parents.parseCommit(commit.getParent(i)).getTree());
+        }
+    }
+
+    /**
+     * Checks whether the current entry differs from the commit's version in every parent.
+     */
+    private static boolean isChanged(TreeWalk walk) {
+        for (int parent = 1; parent < walk.getTreeCount(); parent++) {
+            if (walk.getRawMode(0) == walk.getRawMode(parent) && walk.idEqual(0, parent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getOwner(String path) {
+        for (String module : modules) {
+            if (path.equals(module)
+                    || (path.length() > module.length() && path.startsWith(module) && path.charAt(module.length()) == '/')) {
+                return module;
+            }
+        }
+        return null;
+    }
+
+    private static String trimSlashes(String path) {
+        String trimmed = path.replace('\\', '/');
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
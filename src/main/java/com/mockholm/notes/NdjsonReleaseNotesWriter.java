@@ -0,0 +1,169 @@
+package com.mockholm.notes;
+
+import com.mockholm.models.ConventionalCommit;
+import com.mockholm.utils.GitLogUtils;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the commits of a release range as newline-delimited JSON, one object per commit, newest first.
+ * <p>
+ * Each line is written as soon as the engine hands the commit over, so downstream jobs can stream the file
+ * instead of scraping the Markdown changelog:
+ * <pre>
+ * {"hash":"…","type":"feat","scope":"api","breaking":false,"description":"…","subject":"feat(api): …",
+ *  "author":"…","email":"…","time":"2025-01-31T10:15:30Z","files":["api/src/…"],"modules":["api"]}
+ * </pre>
+ * {@code type}, {@code scope} and {@code description} come from {@link com.mockholm.utils.CommitUtils#parse(String)}
+ * and are {@code null} for commits that are not Conventional Commits. Like {@link ChangelogWriter}, the
+ * records go to a temporary file that {@link #commit()} renames over the target, so readers never see a
+ * partial file, and the file keeps the permissions of the one it replaces.
+ */
+public class NdjsonReleaseNotesWriter implements ReleaseNotesSink, Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final Writer out;
+    private int count;
+    private boolean committed;
+
+    /**
+     * Opens a temporary file next to the target.
+     *
+     * @param target the NDJSON file to write
+     * @throws IOException if the temporary file cannot be created
+     */
+    public NdjsonReleaseNotesWriter(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        Path directory = this.target.getParent();
+        Files.createDirectories(directory);
+        this.temp = Files.createTempFile(directory, "." + this.target.getFileName(), ".tmp");
+        BufferedWriter writer;
+        try {
+            ChangelogWriter.copyPermissions(this.target, temp);
+            writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        this.out = writer;
+    }
+
+    @Override
+    public void accept(RevCommit commit, ConventionalCommit conventionalCommit, List<String> files,
+                       Set<String> modules) throws IOException {
+        PersonIdent author = commit.getAuthorIdent();
+        StringBuilder json = new StringBuilder(256);
+        json.append('{');
+        appendField(json, "hash", commit.getName()).append(',');
+        appendField(json, "type", conventionalCommit == null ? null : conventionalCommit.getType().getValue()).append(',');
+        appendField(json, "scope", conventionalCommit == null ? null : conventionalCommit.getScope()).append(',');
+        json.append("\"breaking\":").append(conventionalCommit != null && conventionalCommit.isBreaking()).append(',');
+        appendField(json, "description", conventionalCommit == null ? null : conventionalCommit.getDescription()).append(',');
+        appendField(json, "subject", commit.getShortMessage()).append(',');
+        appendField(json, "author", author.getName()).append(',');
+        appendField(json, "email", author.getEmailAddress()).append(',');
+        appendField(json, "time", author.getWhenAsInstant().toString()).append(',');
+        appendArray(json, "files", files).append(',');
+        appendArray(json, "modules", modules);
+        json.append("}\n");
+        out.write(json.toString());
+        count++;
+    }
+
+    /**
+     * Closes the temporary file and renames it over the target.
+     *
+     * @throws IOException if the file cannot be replaced
+     */
+    public void commit() throws IOException {
+        out.close();
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            GitLogUtils.warn("Atomic rename not supported for " + target + ", replacing it in place");
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        GitLogUtils.info(String.format("Wrote %d commit records to %s", count, target));
+    }
+
+    /**
+     * Discards the temporary file unless the records were committed.
+     *
+     * @throws IOException if the file cannot be closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+        try {
+            out.close();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static StringBuilder appendField(StringBuilder json, String name, String value) {
+        appendString(json, name).append(':');
+        return value == null ? json.append("null") : appendString(json, value);
+    }
+
+    private static StringBuilder appendArray(StringBuilder json, String name, Collection<String> values) {
+        appendString(json, name).append(":[");
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                json.append(',');
+            }
+            appendString(json, value);
+            first = false;
+        }
+        return json.append(']');
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        return json.append('"');
+    }
+}
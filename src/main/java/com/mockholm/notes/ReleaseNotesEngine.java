@@ -0,0 +1,350 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.BranchType;
+import com.mockholm.config.GitConfiguration;
+import com.mockholm.utils.ChangelogCheckpoint;
+import com.mockholm.models.ConventionalCommit;
+import com.mockholm.utils.CommitClassifier;
+import com.mockholm.utils.CommitUtils;
+import com.mockholm.utils.GitLogUtils;
+import com.mockholm.utils.GitUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Produces several release notes layouts for the same range from a single revision walk.
+ * <p>
+ * Every commit of {@code from..to} is parsed and classified once and handed to each registered
+ * {@link ReleaseNotesFormatter}.
+ * With incremental notes enabled, each layout keeps its own {@link ChangelogCheckpoint}; the walk resumes
+ * from the stored position only when all layouts agree on it, otherwise every layout is rebuilt from the
+ * full range so the walk is still shared.
+ */
+public class ReleaseNotesEngine {
+
+    private final Repository repository;
+    private final GitConfiguration configuration;
+    private final List<ReleaseNotesFormatter> formatters = new ArrayList<>();
+    private final List<ReleaseNotesSink> sinks = new ArrayList<>();
+
+    /**
+     * Creates an engine without formatters.
+     *
+     * @param repository    the repository to walk
+     * @param configuration the Git configuration saying whether notes are incremental
+     * @param log           the Maven logger, or {@code null} to log to the console
+     */
+    public ReleaseNotesEngine(Repository repository, GitConfiguration configuration, Log log) {
+        this.repository = repository;
+        this.configuration = configuration;
+        GitLogUtils.setLog(log);
+    }
+
+    /**
+     * Registers a layout to produce and returns the current instance.
+     *
+     * @param formatter the layout
+     * @return the updated ReleaseNotesEngine object
+     */
+    public ReleaseNotesEngine addFormatter(ReleaseNotesFormatter formatter) {
+        formatters.add(formatter);
+        return this;
+    }
+
+    /**
+     * Registers a sink receiving every commit of the range as it is processed, and returns the current instance.
+     * Sinks record the whole range, so registering one disables resuming from a checkpoint.
+     *
+     * @param sink the sink
+     * @return the updated ReleaseNotesEngine object
+     */
+    public ReleaseNotesEngine addSink(ReleaseNotesSink sink) {
+        sinks.add(sink);
+        return this;
+    }
+
+    /**
+     * Walks {@code from..to} once and renders every registered layout, in registration order.
+     *
+     * @param from  the start of the range, excluded
+     * @param to    the end of the range, included
+     * @param toRef the ref the notes are produced for
+     * @param out   the writer receiving the Markdown, typically a {@link ChangelogWriter}'s
+     * @throws IOException if the commits or the checkpoints cannot be read, or the notes cannot be written
+     */
+    public void generate(ObjectId from, ObjectId to, String toRef, Writer out) throws IOException {
+        generate(from, to, toRef, out, Map.of());
+    }
+
+    /**
+     * Walks {@code from..to} once and renders every registered layout for the whole range and for each module.
+     * <p>
+     * A module's notes list only the commits changing files below its directory, as found by a
+     * {@link ModuleCommitMatcher}; commits are still walked and classified once for all outputs.
+     *
+     * @param from    the start of the range, excluded
+     * @param to      the end of the range, included
+     * @param toRef   the ref the notes are produced for
+     * @param out     the writer receiving the notes of the whole range
+     * @param modules the writers receiving each module's notes, keyed by module directory relative to the work
+     *                tree with {@code /} separators
+     * @throws IOException if the commits or the checkpoints cannot be read, or the notes cannot be written
+     */
+    public void generate(ObjectId from, ObjectId to, String toRef, Writer out, Map<String, Writer> modules)
+            throws IOException {
+        boolean incremental = configuration.isIncrementalNotes() && !repository.isBare();
+        Path workTree = incremental ? repository.getWorkTree().toPath() : null;
+        if (incremental && !sinks.isEmpty()) {
+            GitLogUtils.info("Commit records cover the whole range, not resuming from checkpoints");
+        }
+
+        // One output per layout for the whole range, then one per layout and module
+        Map<String, List<Output>> outputs = new LinkedHashMap<>();
+        outputs.put(null, createOutputs(null, out));
+        for (Map.Entry<String, Writer> module : modules.entrySet()) {
+            outputs.put(module.getKey(), createOutputs(module.getKey(), module.getValue()));
+        }
+
+        boolean resumable = incremental && sinks.isEmpty();
+        List<ObjectId> resumePoints = new ArrayList<>();
+        for (List<Output> moduleOutputs : outputs.values()) {
+            for (Output output : moduleOutputs) {
+                output.checkpoint = incremental
+                        ? ChangelogCheckpoint.load(workTree, output.getCheckpointName(), toRef)
+                        : new ChangelogCheckpoint(output.getCheckpointName(), toRef);
+                resumePoints.add(resumable ? output.checkpoint.getResumePoint(repository, from, to) : null);
+            }
+        }
+
+        // All outputs must resume from the same commit to share the walk
+        ObjectId resumePoint = resumePoints.isEmpty() ? null : resumePoints.get(0);
+        for (ObjectId point : resumePoints) {
+            if (!Objects.equals(point, resumePoint)) {
+                resumePoint = null;
+                break;
+            }
+        }
+
+        List<RevCommit> commits;
+        if (resumePoint == null) {
+            for (List<Output> moduleOutputs : outputs.values()) {
+                moduleOutputs.forEach(output -> output.checkpoint.reset(from));
+            }
+            commits = GitUtils.getCommitsInRange(repository, from, to);
+            GitLogUtils.info(String.format("Walked %d commits for %d release notes layouts",
+                    commits.size(), formatters.size()));
+        } else {
+            commits = GitUtils.getCommitsInRange(repository, List.of(from, resumePoint), to);
+            GitLogUtils.info(String.format("Resuming release notes for %s from %s: %d new commits for %d layouts",
+                    toRef, resumePoint.abbreviate(7).name(), commits.size(), formatters.size()));
+        }
+
+        try (ObjectReader reader = repository.newObjectReader();
+             ModuleCommitMatcher matcher = new ModuleCommitMatcher(reader, modules.keySet())) {
+            String[] entries = new String[formatters.size()];
+            for (RevCommit commit : commits) {
+                // Classified and formatted once, whatever the number of layouts and modules
+                BranchType type = CommitClassifier.classify(commit.getShortMessage());
+                for (int i = 0; i < formatters.size(); i++) {
+                    entries[i] = formatters.get(i).formatEntry(commit);
+                }
+                addEntries(outputs.get(null), commit, type, entries);
+
+                Set<String> touched;
+                if (sinks.isEmpty()) {
+                    touched = matcher.match(commit);
+                } else {
+                    // The files are needed anyway, so the modules are derived from them without a second diff
+                    List<String> files = matcher.getChangedFiles(commit);
+                    touched = matcher.match(files);
+                    ConventionalCommit conventionalCommit = type == null ? null : parse(commit);
+                    for (ReleaseNotesSink sink : sinks) {
+                        sink.accept(commit, conventionalCommit, files, touched);
+                    }
+                }
+                for (String module : touched) {
+                    addEntries(outputs.get(module), commit, type, entries);
+                }
+            }
+        }
+        if (!modules.isEmpty()) {
+            GitLogUtils.info(String.format("Matched commits to %d modules", modules.size()));
+        }
+
+        for (List<Output> moduleOutputs : outputs.values()) {
+            for (Output output : moduleOutputs) {
+                Map<String, List<String>> sections = new LinkedHashMap<>();
+                for (String section : output.formatter.getSections()) {
+                    output.checkpoint.prepend(section, output.newEntries.get(section));
+                    sections.put(section, new ArrayList<>(output.checkpoint.getSection(section)));
+                }
+                if (incremental) {
+                    output.checkpoint.setLast(to);
+                    output.checkpoint.save(workTree);
+                }
+                output.formatter.render(toRef, sections, output.writer);
+            }
+        }
+    }
+
+    /**
+     * Renders every registered layout for every release at once, walking the history a single time.
+     * <p>
+     * Each commit belongs to the oldest release containing it, i.e. to the first release it shipped in.
+     * The walk starts from all release commits together and visits children before parents, so a commit's
+     * release is settled before its parents are reached and is handed down to them; every commit is parsed
+     * once, however many releases contain it. Commits older than the first release belong to it. Sections
+     * are written newest release first. Checkpoints and sinks are not used.
+     *
+     * @param releases the release refs, oldest first
+     * @param out      the writer receiving the Markdown
+     * @return the number of commits assigned to a release
+     * @throws IOException if the commits cannot be read or the notes cannot be written
+     */
+    public int backfill(List<String> releases, Writer out) throws IOException {
+        List<List<Output>> outputs = new ArrayList<>();
+        int assigned = 0;
+
+        try (ReleaseWalk walk = new ReleaseWalk(repository)) {
+            walk.setRetainBody(walk.getObjectReader().getCommitGraph().isEmpty());
+            walk.sort(RevSort.TOPO);
+            walk.sort(RevSort.COMMIT_TIME_DESC, true);
+            for (int i = 0; i < releases.size(); i++) {
+                outputs.add(createOutputs(null, out));
+                ObjectId id = repository.resolve(releases.get(i) + "^{commit}");
+                if (id == null) {
+                    throw new IOException("Cannot resolve release " + releases.get(i));
+                }
+                ReleaseCommit commit = (ReleaseCommit) walk.parseCommit(id);
+                commit.release = Math.min(commit.release, i);
+                walk.markStart(commit);
+            }
+
+            String[] entries = new String[formatters.size()];
+            for (RevCommit next; (next = walk.next()) != null; ) {
+                ReleaseCommit commit = (ReleaseCommit) next;
+                for (RevCommit parent : commit.getParents()) {
+                    ReleaseCommit releaseParent = (ReleaseCommit) parent;
+                    releaseParent.release = Math.min(releaseParent.release, commit.release);
+                }
+
+                walk.parseBody(commit);
+                BranchType type = CommitClassifier.classify(commit.getShortMessage());
+                for (int i = 0; i < formatters.size(); i++) {
+                    entries[i] = formatters.get(i).formatEntry(commit);
+                }
+                addEntries(outputs.get(commit.release), commit, type, entries);
+                // The entries are formatted, the message is not needed any more
+                commit.disposeBody();
+                assigned++;
+            }
+        }
+
+        for (int i = releases.size() - 1; i >= 0; i--) {
+            for (Output output : outputs.get(i)) {
+                output.formatter.render(releases.get(i), output.newEntries, out);
+            }
+        }
+        GitLogUtils.info(String.format("Backfilled %d releases from %d commits in one walk", releases.size(), assigned));
+        return assigned;
+    }
+
+    /**
+     * Parses the commit message with {@link CommitUtils#parse(String)}.
+     *
+     * @param commit the commit, with its message parsed
+     * @return the Conventional Commit, or {@code null} if the message does not parse
+     */
+    private static ConventionalCommit parse(RevCommit commit) {
+        try {
+            return CommitUtils.parse(commit.getFullMessage());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private List<Output> createOutputs(String module, Writer writer) {
+        List<Output> outputs = new ArrayList<>();
+        for (ReleaseNotesFormatter formatter : formatters) {
+            outputs.add(new Output(formatter, module, writer));
+        }
+        return outputs;
+    }
+
+    private static void addEntries(List<Output> outputs, RevCommit commit, BranchType type, String[] entries) {
+        for (int i = 0; i < outputs.size(); i++) {
+            Output output = outputs.get(i);
+            output.newEntries.get(output.formatter.getSection(commit, type)).add(entries[i]);
+        }
+    }
+
+    /**
+     * Revision walk whose commits carry the index of the release they first shipped in.
+     */
+    private static final class ReleaseWalk extends RevWalk {
+
+        private ReleaseWalk(Repository repository) {
+            super(repository);
+        }
+
+        @Override
+        protected RevCommit createCommit(AnyObjectId id) {
+            return new ReleaseCommit(id);
+        }
+    }
+
+    /**
+     * Commit carrying the index of the oldest release containing it.
+     */
+    private static final class ReleaseCommit extends RevCommit {
+
+        private static final long serialVersionUID = 1L;
+
+        private int release = Integer.MAX_VALUE;
+
+        private ReleaseCommit(AnyObjectId id) {
+            super(id);
+        }
+    }
+
+    /**
+     * The notes of one layout for the whole range or for one module.
+     */
+    private static final class Output {
+
+        private final ReleaseNotesFormatter formatter;
+        private final String module;
+        private final Writer writer;
+        private final Map<String, List<String>> newEntries = new LinkedHashMap<>();
+        private ChangelogCheckpoint checkpoint;
+
+        private Output(ReleaseNotesFormatter formatter, String module, Writer writer) {
+            this.formatter = formatter;
+            this.module = module;
+            this.writer = writer;
+            for (String section : formatter.getSections()) {
+                newEntries.put(section, new ArrayList<>());
+            }
+        }
+
+        private String getCheckpointName() {
+            return module == null ? formatter.getName() : formatter.getName() + "@" + module;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.BranchType;
+import com.mockholm.config.ReleaseNotesType;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the commits of a release range into one release notes document.
+ * <p>
+ * The {@link ReleaseNotesEngine} walks the range once and hands every commit to each registered
+ * formatter: the formatter picks the section the commit belongs to, the engine collects the formatted
+ * entries per section, newest first, and finally asks the formatter to render them into the changelog. New layouts are
+ * added by implementing this interface; they do not need their own fetch or walk.
+ */
+public interface ReleaseNotesFormatter {
+
+    /**
+     * Gets the name of the layout. It keys the layout's checkpoint, so it must be stable.
+     *
+     * @return the layout name, e.g. {@code CATEGORY}
+     */
+    String getName();
+
+    /**
+     * Gets every section of the layout in the order they are rendered.
+     *
+     * @return the section names
+     */
+    List<String> getSections();
+
+    /**
+     * Picks the section a commit belongs to.
+     *
+     * @param commit the commit, with its message parsed
+     * @param type   the type named by the commit's Conventional Commit header, as classified once for all
+     *               formatters by {@link com.mockholm.utils.CommitClassifier}, or {@code null} if it has none
+     * @return one of {@link #getSections()}
+     */
+    String getSection(RevCommit commit, BranchType type);
+
+    /**
+     * Formats the entry for one commit.
+     *
+     * @param commit the commit, with its message and author parsed
+     * @return the entry line, without a line break
+     */
+    default String formatEntry(RevCommit commit) {
+        return String.format("- [%s] %s (by %s)",
+                commit.getId().abbreviate(7).name(),
+                commit.getShortMessage(),
+                commit.getAuthorIdent().getName());
+    }
+
+    /**
+     * Renders the release notes section.
+     *
+     * @param toRef    the ref the notes are produced for
+     * @param sections the entries of every section, newest first, keyed in {@link #getSections()} order
+     * @param out      the writer receiving the Markdown
+     * @throws IOException if the section cannot be written
+     */
+    void render(String toRef, Map<String, List<String>> sections, Writer out) throws IOException;
+
+    /**
+     * Gets the formatter for one of the built-in notes types.
+     *
+     * @param type the notes type
+     * @return a new formatter for the type
+     */
+    static ReleaseNotesFormatter of(ReleaseNotesType type) {
+        switch (type) {
+            case CATEGORY:
+                return new CategoryReleaseNotesFormatter();
+            case BRANCH:
+                return new BranchTypeReleaseNotesFormatter();
+            case STANDARD:
+            default:
+                return new StandardReleaseNotesFormatter();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mockholm.notes;
+
+import com.mockholm.models.ConventionalCommit;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Receives every commit of a release range while the {@link ReleaseNotesEngine} processes it, newest first.
+ * <p>
+ * Unlike a {@link ReleaseNotesFormatter}, which renders grouped sections once the walk is done, a sink is
+ * handed each commit together with its parsed header and the files it changes, so it can stream per-commit
+ * records to downstream tooling without the notes being held in memory.
+ */
+public interface ReleaseNotesSink {
+
+    /**
+     * Accepts one commit of the range.
+     *
+     * @param commit             the commit, with its message and author parsed
+     * @param conventionalCommit the parsed Conventional Commit message, or {@code null} if the header is not one
+     * @param files              the paths the commit adds, modifies or deletes, relative to the work tree
+     * @param modules            the module directories the commit changes, empty when no modules are configured
+     * @throws IOException if the commit cannot be written
+     */
+    void accept(RevCommit commit, ConventionalCommit conventionalCommit, List<String> files, Set<String> modules)
+            throws IOException;
+}
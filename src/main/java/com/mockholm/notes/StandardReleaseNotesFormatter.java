@@ -0,0 +1,48 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.BranchType;
+import com.mockholm.config.ReleaseNotesType;
+import org.eclipse.jgit.revwalk.RevCommit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists every commit of the range in a single block, oldest first.
+ */
+public class StandardReleaseNotesFormatter implements ReleaseNotesFormatter {
+
+    private static final String COMMITS = "Commits";
+
+    @Override
+    public String getName() {
+        return ReleaseNotesType.STANDARD.name();
+    }
+
+    @Override
+    public List<String> getSections() {
+        return List.of(COMMITS);
+    }
+
+    @Override
+    public String getSection(RevCommit commit, BranchType type) {
+        return COMMITS;
+    }
+
+    @Override
+    public void render(String toRef, Map<String, List<String>> sections, Writer out) throws IOException {
+        List<String> commitLines = new ArrayList<>(sections.get(COMMITS));
+
+        // ⏪ Reverse order
+        Collections.reverse(commitLines);
+
+        out.append("### ").append(toRef).append("\n\n");
+        for (String line : commitLines) {
+            out.append(line).append("\n");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.mockholm.utils;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The release note entries already produced for a ref, and the last commit they cover.
+ * <p>
+ * Checkpoints are stored under {@code .mutatio/} in the work tree, one file per notes type and ref.
+ * The directory carries its own {@code .gitignore} so the checkpoints are never committed by
+ * {@link com.mockholm.commands.GitCommand#addAllChanges()}. A checkpoint is only resumed when it was
+ * produced for the same range start and its last commit is still an ancestor of the ref, so a rebased
+ * or reset branch falls back to a full walk.
+ */
+public class ChangelogCheckpoint {
+
+    /** Directory, relative to the work tree, holding the checkpoints. */
+    public static final String DIRECTORY = ".mutatio";
+
+    /** Format version written to every checkpoint; checkpoints with another version are ignored. */
+    private static final String VERSION = "1";
+
+    private final String notesType;
+    private final String ref;
+    private ObjectId from;
+    private ObjectId last;
+    private final Map<String, List<String>> sections = new LinkedHashMap<>();
+
+    /**
+     * Creates an empty checkpoint.
+     *
+     * @param notesType the kind of notes, e.g. {@code CATEGORY}
+     * @param ref       the ref the notes are produced for
+     */
+    public ChangelogCheckpoint(String notesType, String ref) {
+        this.notesType = notesType;
+        this.ref = ref;
+    }
+
+    /**
+     * Loads the checkpoint for the given notes type and ref.
+     *
+     * @param workTree  the repository work tree
+     * @param notesType the kind of notes
+     * @param ref       the ref the notes are produced for
+     * @return the stored checkpoint, or an empty one if none is stored or it cannot be read
+     */
+    public static ChangelogCheckpoint load(Path workTree, String notesType, String ref) {
+        ChangelogCheckpoint checkpoint = new ChangelogCheckpoint(notesType, ref);
+        Path file = getFile(workTree, notesType, ref);
+        if (!Files.isRegularFile(file)) {
+            return checkpoint;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> section = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    section = checkpoint.getSection(line.substring(1, line.length() - 1));
+                } else if (section != null) {
+                    section.add(line);
+                } else if (line.startsWith("version=") && !line.equals("version=" + VERSION)) {
+                    return new ChangelogCheckpoint(notesType, ref);
+                } else if (line.startsWith("from=")) {
+                    checkpoint.from = ObjectId.fromString(line.substring("from=".length()));
+                } else if (line.startsWith("last=")) {
+                    checkpoint.last = ObjectId.fromString(line.substring("last=".length()));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            GitLogUtils.warn("Ignoring unreadable changelog checkpoint " + file + ": " + e.getMessage());
+            return new ChangelogCheckpoint(notesType, ref);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Writes the checkpoint, replacing the stored one atomically.
+     *
+     * @param workTree the repository work tree
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void save(Path workTree) throws IOException {
+        Path directory = workTree.resolve(DIRECTORY);
+        Files.createDirectories(directory);
+        Path ignore = directory.resolve(".gitignore");
+        if (!Files.exists(ignore)) {
+            Files.write(ignore, "*\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Path file = getFile(workTree, notesType, ref);
+        Path temp = Files.createTempFile(directory, "checkpoint", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("version=" + VERSION + "\n");
+            writer.write("type=" + notesType + "\n");
+            writer.write("ref=" + ref + "\n");
+            writer.write("from=" + from.name() + "\n");
+            writer.write("last=" + last.name() + "\n");
+            for (Map.Entry<String, List<String>> section : sections.entrySet()) {
+                writer.write("[" + section.getKey() + "]\n");
+                for (String entry : section.getValue()) {
+                    writer.write(entry + "\n");
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gets the commit to resume from: the last commit of this checkpoint if it was produced for the
+     * same range start and is still an ancestor of {@code to}.
+     *
+     * @param repository the repository
+     * @param from       the start of the range being generated
+     * @param to         the end of the range being generated
+     * @return the last processed commit, or {@code null} if the whole range has to be walked
+     * @throws IOException if the commits cannot be read
+     */
+    public ObjectId getResumePoint(Repository repository, ObjectId from, ObjectId to) throws IOException {
+        if (last == null || !from.equals(this.from)) {
+            return null;
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            if (!repository.getObjectDatabase().has(last)) {
+                return null;
+            }
+            return walk.isMergedInto(walk.parseCommit(last), walk.parseCommit(to)) ? last : null;
+        }
+    }
+
+    /**
+     * Forgets the stored entries and starts the checkpoint over for a new range.
+     *
+     * @param from the start of the new range
+     */
+    public void reset(ObjectId from) {
+        this.from = from.copy();
+        this.last = null;
+        sections.clear();
+    }
+
+    /**
+     * Records the commit up to which entries have been produced.
+     *
+     * @param last the newest processed commit
+     */
+    public void setLast(ObjectId last) {
+        this.last = last.copy();
+    }
+
+    /**
+     * Gets the entries of a section, creating the section if it does not exist yet.
+     *
+     * @param name the section name
+     * @return the mutable entries of the section, newest first
+     */
+    public List<String> getSection(String name) {
+        return sections.computeIfAbsent(name, key -> new ArrayList<>());
+    }
+
+    /**
+     * Prepends newer entries to a section, keeping the section ordered newest first.
+     *
+     * @param name    the section name
+     * @param entries the new entries, newest first
+     */
+    public void prepend(String name, List<String> entries) {
+        getSection(name).addAll(0, entries);
+    }
+
+    /**
+     * Gets every stored section in the order they were first produced.
+     *
+     * @return the sections keyed by name
+     */
+    public Map<String, List<String>> getSections() {
+        return sections;
+    }
+
+    private static Path getFile(Path workTree, String notesType, String ref) {
+        String name = (notesType + "-" + ref).replaceAll("[^A-Za-z0-9._-]", "_");
+        return workTree.resolve(DIRECTORY).resolve(name + ".checkpoint");
+    }
+}
@@ -0,0 +1,140 @@
+package com.mockholm.utils;
+
+import com.mockholm.config.BranchType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classifies Conventional Commit headers by their {@link BranchType}.
+ * <p>
+ * The {@link BranchType} values are compiled once into a prefix trie over {@code a-z}, so classifying a
+ * header reads each character of its type token at most once and allocates nothing: no lowered copy of
+ * the message, no stream and no substring. Headers are matched case-insensitively in the form
+ * {@code type(scope)!: description}, where the scope and the breaking-change marker are optional and
+ * whitespace is allowed around the type and before the colon.
+ */
+public class CommitClassifier {
+
+    private static final int ALPHABET = 26;
+
+    /** Child node of each node per letter; 0 means no child, as the root is never a child. */
+    private static final int[][] NEXT;
+
+    /** The type whose value ends at each node, or {@code null}. */
+    private static final BranchType[] TYPES;
+
+    static {
+        List<int[]> next = new ArrayList<>();
+        List<BranchType> types = new ArrayList<>();
+        next.add(new int[ALPHABET]);
+        types.add(null);
+        for (BranchType type : BranchType.values()) {
+            int node = 0;
+            for (char c : type.getValue().toCharArray()) {
+                int letter = c - 'a';
+                if (letter < 0 || letter >= ALPHABET) {
+                    throw new IllegalStateException("Unsupported character in commit type " + type.getValue());
+                }
+                if (next.get(node)[letter] == 0) {
+                    next.get(node)[letter] = next.size();
+                    next.add(new int[ALPHABET]);
+                    types.add(null);
+                }
+                node = next.get(node)[letter];
+            }
+            types.set(node, type);
+        }
+        NEXT = next.toArray(new int[0][]);
+        TYPES = types.toArray(new BranchType[0]);
+    }
+
+    private CommitClassifier() {
+    }
+
+    /**
+     * Classifies the header of a commit message.
+     *
+     * @param message the commit message or its first line
+     * @return the type named by the header, or {@code null} if the header is not a Conventional Commit
+     *         header with a known type
+     */
+    public static BranchType classify(CharSequence message) {
+        int length = message.length();
+        int i = skipBlanks(message, 0, length);
+
+        int node = 0;
+        for (; i < length; i++) {
+            int letter = toLetter(message.charAt(i));
+            if (letter < 0) {
+                break;
+            }
+            node = NEXT[node][letter];
+            if (node == 0) {
+                return null;
+            }
+        }
+        BranchType type = TYPES[node];
+        if (type == null) {
+            return null;
+        }
+
+        i = skipBlanks(message, i, length);
+        if (i < length && message.charAt(i) == '(') {
+            // the scope runs to the closing parenthesis on the same line
+            for (i++; i < length && message.charAt(i) != ')'; i++) {
+                if (message.charAt(i) == '\n') {
+                    return null;
+                }
+            }
+            if (i == length) {
+                return null;
+            }
+            i++;
+        }
+        if (i < length && message.charAt(i) == '!') {
+            i++;
+        }
+        i = skipBlanks(message, i, length);
+        return i < length && message.charAt(i) == ':' ? type : null;
+    }
+
+    /**
+     * Looks up the type whose value is exactly the given token, ignoring case.
+     *
+     * @param token the type token, e.g. {@code feat}
+     * @return the matching type, or {@code null} if the token is not a known type
+     */
+    public static BranchType lookup(CharSequence token) {
+        int node = 0;
+        for (int i = 0; i < token.length(); i++) {
+            int letter = toLetter(token.charAt(i));
+            if (letter < 0) {
+                return null;
+            }
+            node = NEXT[node][letter];
+            if (node == 0) {
+                return null;
+            }
+        }
+        return TYPES[node];
+    }
+
+    private static int toLetter(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        return -1;
+    }
+
+    private static int skipBlanks(CharSequence message, int from, int length) {
+        int i = from;
+        while (i < length && (message.charAt(i) == ' ' || message.charAt(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+}
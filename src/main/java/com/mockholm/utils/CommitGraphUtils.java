@@ -0,0 +1,190 @@
+package com.mockholm.utils;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraph;
+import org.eclipse.jgit.internal.storage.commitgraph.CommitGraphWriter;
+import org.eclipse.jgit.internal.storage.commitgraph.GraphCommits;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.internal.storage.file.ObjectDirectory;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.ObjectDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writes and maintains the repository's commit-graph file.
+ * <p>
+ * With {@code core.commitGraph} enabled, every {@link RevWalk} on the repository reads parents,
+ * commit times and generation numbers from {@code objects/info/commit-graph} instead of inflating
+ * each commit object, which is what makes release note range walks expensive on long histories.
+ * Commits missing from the graph, e.g. ones fetched after it was written, are still parsed from
+ * the object database, so a stale graph is slower but never wrong.
+ * <p>
+ * Like git, no graph is written or read in a shallow repository: its boundary commits would be
+ * recorded without parents and stay wrong after the clone is deepened. {@code core.commitGraph}
+ * is only enabled on the open repository handle, never saved to the repository's config.
+ * JGit only exposes the graph writer in its internal packages, so their use is kept to this class.
+ */
+public class CommitGraphUtils {
+
+    private CommitGraphUtils() {
+    }
+
+    /**
+     * Rewrites the commit-graph if any branch or tag points at a commit it does not contain.
+     *
+     * @param git the Git handle
+     * @param log the Maven logger, or {@code null} to log to the console
+     * @return true if the graph was written
+     * @throws RuntimeException if the graph cannot be read or written
+     */
+    public static boolean update(Git git, Log log) {
+        GitLogUtils.setLog(log);
+        try {
+            if (!enable(git.getRepository())) {
+                return false;
+            }
+            if (isCurrent(git.getRepository())) {
+                GitLogUtils.info("Commit-graph is up to date");
+                return false;
+            }
+            write(git, log);
+            return true;
+        } catch (IOException e) {
+            GitLogUtils.error("Failed to update commit-graph", e);
+            throw new RuntimeException("Unable to update commit-graph", e);
+        }
+    }
+
+    /**
+     * Writes a commit-graph covering every commit reachable from the repository's refs and enables
+     * {@code core.commitGraph} on the open repository handle. Nothing is written in a shallow repository.
+     *
+     * @param git the Git handle
+     * @param log the Maven logger, or {@code null} to log to the console
+     * @return true if the graph was written
+     * @throws RuntimeException if the graph cannot be written
+     */
+    public static boolean write(Git git, Log log) {
+        GitLogUtils.setLog(log);
+        Repository repository = git.getRepository();
+        long start = System.nanoTime();
+
+        try (RevWalk walk = new RevWalk(repository)) {
+            if (!enable(repository)) {
+                return false;
+            }
+            File graphFile = new File(((ObjectDirectory) repository.getObjectDatabase()).getDirectory(),
+                    "info/commit-graph");
+            Set<ObjectId> tips = getRefTips(repository, walk);
+            GraphCommits commits = GraphCommits.fromWalk(NullProgressMonitor.INSTANCE, tips, walk);
+
+            if (!graphFile.getParentFile().isDirectory() && !graphFile.getParentFile().mkdirs()) {
+                throw new IOException("Cannot create " + graphFile.getParentFile());
+            }
+            LockFile lock = new LockFile(graphFile);
+            if (!lock.lock()) {
+                throw new IOException("Cannot lock " + graphFile);
+            }
+            try {
+                try (OutputStream out = lock.getOutputStream()) {
+                    new CommitGraphWriter(commits).write(NullProgressMonitor.INSTANCE, out);
+                }
+                if (!lock.commit()) {
+                    throw new IOException("Cannot commit " + graphFile);
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            GitLogUtils.info(String.format("Wrote commit-graph for %d refs in %d ms",
+                    tips.size(), (System.nanoTime() - start) / 1_000_000));
+            return true;
+        } catch (IOException e) {
+            GitLogUtils.error("Failed to write commit-graph", e);
+            throw new RuntimeException("Unable to write commit-graph", e);
+        }
+    }
+
+    /**
+     * Enables {@code core.commitGraph} on the open repository handle, without saving it, unless the repository
+     * is shallow or does not keep its objects in an object directory.
+     *
+     * @param repository the repository
+     * @return true if the repository can use a commit-graph
+     * @throws IOException if the shallow commits cannot be read
+     */
+    private static boolean enable(Repository repository) throws IOException {
+        ObjectDatabase objects = repository.getObjectDatabase();
+        if (!(objects instanceof ObjectDirectory)) {
+            GitLogUtils.warn("Commit-graph is only supported for repositories on disk");
+            return false;
+        }
+        if (!objects.getShallowCommits().isEmpty()) {
+            GitLogUtils.info("Skipping commit-graph for shallow repository");
+            return false;
+        }
+        repository.getConfig().setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null,
+                ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+        return true;
+    }
+
+    /**
+     * Checks whether the commit-graph is enabled and contains the commit of every branch and tag.
+     *
+     * @param repository the repository
+     * @return true if no ref points past the graph
+     * @throws IOException if the refs or the graph cannot be read
+     */
+    public static boolean isCurrent(Repository repository) throws IOException {
+        try (ObjectReader reader = repository.newObjectReader(); RevWalk walk = new RevWalk(reader)) {
+            Optional<CommitGraph> graph = reader.getCommitGraph();
+            if (graph.isEmpty()) {
+                return false;
+            }
+            for (ObjectId tip : getRefTips(repository, walk)) {
+                if (graph.get().findGraphPosition(tip) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Collects the commits the repository's branches, remote-tracking branches and tags point at,
+     * peeling annotated tags.
+     *
+     * @param repository the repository
+     * @param walk       the walk used to peel tags
+     * @return the commit ids
+     * @throws IOException if the refs cannot be read
+     */
+    private static Set<ObjectId> getRefTips(Repository repository, RevWalk walk) throws IOException {
+        Set<ObjectId> tips = new HashSet<>();
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_REFS)) {
+            if (ref.getObjectId() == null) {
+                continue;
+            }
+            RevObject object = walk.peel(walk.parseAny(ref.getObjectId()));
+            if (object.getType() == Constants.OBJ_COMMIT) {
+                tips.add(object.copy());
+            }
+        }
+        return tips;
+    }
+}
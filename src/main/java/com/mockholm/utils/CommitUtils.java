@@ -44,7 +44,9 @@ public class CommitUtils {
     /**
      * Parses a conventional commit message string into a {@link ConventionalCommit} object.
      * Expects the format: {@code type(scope)!: description}, optionally followed by body and footer,
-     * separated by double line breaks.
+     * separated by double line breaks. The type is matched ignoring case, so {@code Feat:} parses as
+     * {@code feat:}, and whitespace around the type and the scope is ignored, as
+     * {@link CommitClassifier#classify(CharSequence)} does for the branch and changelog layouts.
      *
      * @param message the commit message string to parse
      * @return a ConventionalCommit object representing the parsed message
@@ -72,19 +74,13 @@ public class CommitUtils {
         int scopeEnd = prefix.indexOf(')');
 
         if (scopeStart != -1 && scopeEnd != -1 && scopeEnd > scopeStart) {
-            typeStr = prefix.substring(0, scopeStart);
-            scope = prefix.substring(scopeStart + 1, scopeEnd);
+            typeStr = prefix.substring(0, scopeStart).trim();
+            scope = prefix.substring(scopeStart + 1, scopeEnd).trim();
         } else {
-            typeStr = prefix.replace("!", "");
+            typeStr = prefix.replace("!", "").trim();
         }
 
-        BranchType type = null;
-        for (BranchType bt : BranchType.values()) {
-            if (bt.getValue().equals(typeStr)) {
-                type = bt;
-                break;
-            }
-        }
+        BranchType type = CommitClassifier.lookup(typeStr);
 
         if (type == null) {
             throw new IllegalArgumentException("Unknown commit type: " + typeStr);
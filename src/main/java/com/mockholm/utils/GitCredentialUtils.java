@@ -355,6 +355,29 @@ public class GitCredentialUtils {
         return getSshdSessionFactory(getServer(configuration));
     }
 
+    /**
+     * Gets the pooled SSH session factory for the server in the provided Git configuration.
+     * Sessions created through it stay authenticated for the rest of the mojo execution, so
+     * consecutive fetch, push and ls-remote calls share one SSH connection.
+     *
+     * @param configuration the Git configuration containing settings and server key
+     * @return the shared SshSessionPool for the server
+     */
+    public static SshSessionFactory getSshSessionFactory(GitConfiguration configuration) {
+        return SshSessionPool.get(configuration.getServerKey(), () -> getSshdSessionFactory(configuration));
+    }
+
+    /**
+     * Gets the pooled SSH session factory for the server identified by the given key.
+     *
+     * @param serverKey the ID of the server in settings.xml
+     * @param settings  the Maven settings object
+     * @return the shared SshSessionPool for the server
+     */
+    public static SshSessionFactory getSshSessionFactory(String serverKey, Settings settings) {
+        return SshSessionPool.get(serverKey, () -> getSshdSessionFactory(serverKey, settings));
+    }
+
     /**
      * Builds an SshdSessionFactory using the server credentials identified by the
      * given key.
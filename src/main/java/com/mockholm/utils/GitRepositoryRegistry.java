@@ -0,0 +1,169 @@
+package com.mockholm.utils;
+
+import com.mockholm.config.PackCacheConfiguration;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.util.FS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Registry of the Git repositories opened during a plugin execution.
+ * <p>
+ * Every {@link com.mockholm.commands.GitCommand} and {@link GitUtils} call borrows its
+ * {@link Git} handle from here instead of calling {@code Git.open} itself, so packed-refs
+ * and the pack indexes are read once per repository rather than once per command.
+ * Borrowed handles are created with {@link Git#wrap(Repository)} and closing them does not
+ * close the shared {@link Repository}; the registry closes each repository exactly once in
+ * {@link #closeAll(Log)}, which the mojos call when their execution ends.
+ */
+public class GitRepositoryRegistry {
+
+    /** Open repositories keyed by their canonical git directory. */
+    private static final Map<File, Repository> repositories = new LinkedHashMap<>();
+
+    /** Remote ref snapshots shared by every handle on the same repository. */
+    private static final Map<Repository, RemoteRefSnapshot> snapshots = new HashMap<>();
+
+    /** Pack cache settings applied when the first repository is opened. */
+    private static PackCacheConfiguration packCache;
+
+    /** The pack cache configuration installed during this execution, or {@code null} before the first open. */
+    private static WindowCacheConfig installedPackCache;
+
+    /** Number of times a repository had to be opened from disk. */
+    private static int openCount;
+
+    /** Number of times an already open repository was handed out again. */
+    private static int reuseCount;
+
+    private GitRepositoryRegistry() {
+    }
+
+    /**
+     * Sets the pack cache settings that are applied, together with auto-sized defaults,
+     * when the first repository of this execution is opened.
+     *
+     * @param configuration the user's pack cache settings
+     * @param log           the Maven logger the chosen values are reported to
+     */
+    public static synchronized void configurePackCache(PackCacheConfiguration configuration, Log log) {
+        GitLogUtils.setLog(log);
+        packCache = configuration;
+    }
+
+    /**
+     * Borrows a handle on the repository in the current working directory.
+     *
+     * @return a {@link Git} handle backed by the shared repository
+     * @throws IOException if the repository cannot be opened
+     */
+    public static Git borrow() throws IOException {
+        return borrow(".");
+    }
+
+    /**
+     * Borrows a handle on the repository at the given path, opening it on first use.
+     * If the path is null or blank, the current working directory is used.
+     *
+     * @param gitPath the work tree or git directory of the repository
+     * @return a {@link Git} handle backed by the shared repository
+     * @throws IOException if the repository cannot be opened
+     */
+    public static synchronized Git borrow(String gitPath) throws IOException {
+        String resolvedPath = Optional.ofNullable(gitPath)
+                .filter(path -> !path.isBlank())
+                .orElse(".");
+
+        File key = RepositoryCache.FileKey.lenient(new File(resolvedPath), FS.DETECTED)
+                .getFile()
+                .getCanonicalFile();
+
+        Repository repository = repositories.get(key);
+        if (repository != null) {
+            reuseCount++;
+            return Git.wrap(repository);
+        }
+
+        try (Git opened = Git.open(new File(resolvedPath))) {
+            repository = opened.getRepository();
+            // Git.open closes the repository with the Git object, keep it open for the registry
+            repository.incrementOpen();
+        }
+        if (installedPackCache == null) {
+            installedPackCache = WindowCacheUtils.install(packCache, repository);
+        }
+        repositories.put(key, repository);
+        openCount++;
+        return Git.wrap(repository);
+    }
+
+    /**
+     * Gets the remote ref snapshot shared by every handle on the given repository.
+     *
+     * @param repository a repository borrowed from this registry
+     * @return the repository's remote ref snapshot
+     */
+    public static synchronized RemoteRefSnapshot getRemoteRefSnapshot(Repository repository) {
+        return snapshots.computeIfAbsent(repository, key -> new RemoteRefSnapshot());
+    }
+
+    /**
+     * Returns how many repositories have been opened from disk since the last {@link #closeAll(Log)}.
+     *
+     * @return the open count
+     */
+    public static synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Returns how many times an open repository was reused since the last {@link #closeAll(Log)}.
+     *
+     * @return the reuse count
+     */
+    public static synchronized int getReuseCount() {
+        return reuseCount;
+    }
+
+    /**
+     * Closes every repository held by the registry, disconnects the pooled SSH sessions, empties the
+     * {@link PomModelCache} and reports how often repositories and sessions were opened and reused, and the pack cache hit ratio.
+     * Handles borrowed before this call must not be used afterwards.
+     *
+     * @param log the Maven logger, or {@code null} to log to the console
+     */
+    public static synchronized void closeAll(Log log) {
+        GitLogUtils.setLog(log);
+        for (Repository repository : repositories.values()) {
+            repository.close();
+        }
+        GitLogUtils.info(String.format("Git repositories: %d opened, %d reused", openCount, reuseCount));
+        for (RemoteRefSnapshot snapshot : snapshots.values()) {
+            GitLogUtils.info(String.format("Remote refs: %d ls-remote round trips, %d answered from snapshot",
+                    snapshot.getRoundTrips(), snapshot.getHits()));
+        }
+
+        if (installedPackCache != null) {
+            WindowCacheUtils.logStats();
+        }
+
+        SshSessionPool.closeAll();
+        PomModelCache.clear();
+
+        repositories.clear();
+        snapshots.clear();
+        packCache = null;
+        installedPackCache = null;
+        openCount = 0;
+        reuseCount = 0;
+    }
+}
@@ -3,16 +3,23 @@ package com.mockholm.utils;
 import com.mockholm.config.FetchMode;
 import com.mockholm.config.GitConfiguration;
 import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.errors.PackProtocolException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FilterSpec;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.SshTransport;
+import org.eclipse.jgit.transport.TagOpt;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -24,17 +31,24 @@ import static com.mockholm.utils.GitCredentialUtils.SSH_REMOTE;
  * Utility class for performing common Git operations using JGit.
  */
 public class GitUtils {
+
+    /** Partial clone filter used by {@link FetchMode#FILTER_BLOB_NONE}. */
+    private static final FilterSpec BLOB_NONE = blobNone();
+
+    /** Number of times {@link #ensureHistory} doubles the depth before fetching the full history. */
+    private static final int MAX_DEEPEN_STEPS = 5;
+
     /**
      * Retrieves the name of the current Git branch from the repository located in the current directory.
+     * The repository handle is borrowed from the {@link GitRepositoryRegistry}.
      *
      * @return the name of the active branch
      * @throws RuntimeException if the repository cannot be opened or accessed
      */
     public static String getCurrentBranch(){
         String branch="";
-        Git git = null;
         try {
-            git = Git.open(new File("."));
+            Git git = GitRepositoryRegistry.borrow();
             branch = git.getRepository().getBranch();
 
         } catch (IOException e) {
@@ -44,7 +58,9 @@ public class GitUtils {
     }
 
     /**
-     * Retrieves the previous non-pre-release Git tag using a provided Git instance.
+     * Retrieves the previous non-pre-release Git tag using a provided Git instance: the release
+     * preceding the highest released version in the {@link TagIndex}. When fewer than two tags carry
+     * a version, the two most recently committed non-pre-release tags are used instead.
      *
      * @param git {@link Git}the JGit Git instance
      * @param log {@link Log}
@@ -52,12 +68,31 @@ public class GitUtils {
      * @throws RuntimeException if Git operations fail
      */
     public static String getPreviousTag(Git git,GitConfiguration configuration,Log log) {
+        return getPreviousTag(git, configuration, log, null);
+    }
+
+    /**
+     * Retrieves the release preceding {@code toRef} by version, e.g. {@code release-1.3.0} for
+     * {@code release-1.4.0} even when {@code release-1.2.1} was tagged later on a maintenance branch.
+     * The lookup uses the {@link TagIndex}, so no commits are parsed once the index is current.
+     * When {@code toRef} holds no version, e.g. a branch, the notes start at the latest release the branch
+     * contains, or at the release before it when it was made at the tip of the branch. When {@code toRef}
+     * contains no release, the previous tag is found as by {@link #getPreviousTag(Git, GitConfiguration, Log)}.
+     *
+     * @param git           the JGit Git instance
+     * @param configuration the Git configuration for credentials
+     * @param log           the Maven logger
+     * @param toRef         the ref the release notes are produced for, or {@code null} for the latest release
+     * @return the name of the previous release tag, or null if none found
+     * @throws RuntimeException if Git operations fail
+     */
+    public static String getPreviousTag(Git git, GitConfiguration configuration, Log log, String toRef) {
 
         try {
             GitLogUtils.setLog(log);
             List<RefSpec> refSpecs = new ArrayList<>();
 
-            refSpecs.add(new RefSpec("+refs/tags/*:refs/tags/*"));
+            refSpecs.add(getTagRefSpec(configuration));
 
             GitCredentialUtils.addSSHRemote(git);
 
@@ -65,35 +100,63 @@ public class GitUtils {
                     .setRemote(SSH_REMOTE)
                     .setRefSpecs(refSpecs);
 
-            if (GitCredentialUtils.isSSH(configuration.getScm())) {
-                GitLogUtils.info("SSH fetch tags");
-                fetchCmd.setTransportConfigCallback(transport -> {
-                    if (transport instanceof SshTransport) {
-                        SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
-                    }
-                });
-            } else {
-                GitLogUtils.info("HTTPS fetch tags");
-                CredentialsProvider credentialsProvider =
-                        GitCredentialUtils.getUserProvider(configuration.getSettings()
-                                .getServer(configuration.getServerKey()).getPassword());
-                fetchCmd.setCredentialsProvider(credentialsProvider);
-            }
+            GitLogUtils.info((GitCredentialUtils.isSSH(configuration.getScm()) ? "SSH fetch tags " : "HTTPS fetch tags ")
+                    + refSpecs.get(0).getSource());
+            configureFetch(git, fetchCmd, configuration);
+            narrowTags(git, fetchCmd, configuration);
 
             fetchCmd.call();
 
+            // a versioned toRef names its own release line, otherwise the configured prefix does
+            String shortRef = toRef == null ? null : Repository.shortenRefName(toRef);
+            SemanticVersion version = shortRef == null ? null : TagIndex.parseVersion(shortRef);
+            String prefix = version != null ? TagIndex.getPrefix(shortRef)
+                    : configuration.getTagPrefix().isEmpty() ? null : configuration.getTagPrefix();
 
-            List<Ref> allTags = git.tagList().call();
-
-            if (allTags.isEmpty()) {
-                GitLogUtils.info("No tags found.");
+            TagIndex index = TagIndex.open(git.getRepository());
+            TagIndex.Tag previous = null;
+            TagIndex.Tag onBranch = version != null || shortRef == null ? null
+                    : index.getLatestRelease(git.getRepository(), prefix, toRef);
+            if (version != null) {
+                previous = index.getPreviousRelease(prefix, version);
+            } else if (onBranch != null) {
+                // a release made at the tip of the branch is the one the notes are for
+                boolean atTip = onBranch.getCommitId().equals(git.getRepository().resolve(toRef + "^{commit}"));
+                previous = atTip ? index.getPreviousRelease(prefix, onBranch.getVersion()) : onBranch;
+            } else if (index.getLatestRelease(prefix) != null) {
+                previous = index.getPreviousRelease(prefix, index.getLatestRelease(prefix).getVersion());
+            }
+            if (previous != null) {
+                GitLogUtils.info("Previous valid tag: " + previous.getName());
+                return previous.getName();
+            }
+            if (version != null) {
+                GitLogUtils.info("No release before " + shortRef + ".");
                 return null;
             }
+            return getPreviousTagByCommitTime(git, configuration.getTagPrefix());
+
+        } catch (GitAPIException | IOException e) {
+            GitLogUtils.error("Failed to retrieve previous valid Git tag", e);
+            throw new RuntimeException("Unable to get previous valid tag", e);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finds the second most recently committed non-pre-release tag with the prefix, for tags without versions in their names.
+     */
+    private static String getPreviousTagByCommitTime(Git git, String prefix) throws IOException {
+        List<Ref> allTags = git.getRepository().getRefDatabase().getRefsByPrefix(Constants.R_TAGS + prefix);
 
-            RevWalk revWalk = new RevWalk(git.getRepository());
-            Map<RevCommit, String> tagMap = new HashMap<>();
+        if (allTags.isEmpty()) {
+            GitLogUtils.info("No tags found.");
+            return null;
+        }
 
+        Map<RevCommit, String> tagMap = new HashMap<>();
+        try (RevWalk revWalk = new RevWalk(git.getRepository())) {
             for (Ref tagRef : allTags) {
                 String tagName = Repository.shortenRefName(tagRef.getName());
 
@@ -105,27 +168,31 @@ public class GitUtils {
                 RevCommit commit = revWalk.parseCommit(tagRef.getObjectId());
                 tagMap.put(commit, tagName);
             }
+        }
 
-            if (tagMap.size() < 2) {
-                GitLogUtils.info("Less than two non-pre-release tags available.");
-                return null;
-            }
-
-            List<Map.Entry<RevCommit, String>> sortedTags = new ArrayList<>(tagMap.entrySet());
-            sortedTags.sort((a, b) -> Integer.compare(b.getKey().getCommitTime(), a.getKey().getCommitTime()));
+        if (tagMap.size() < 2) {
+            GitLogUtils.info("Less than two non-pre-release tags available.");
+            return null;
+        }
 
-            String previousTag = sortedTags.get(1).getValue(); // second most recent
-            GitLogUtils.info("Previous valid tag: " + previousTag);
-            return previousTag;
+        List<Map.Entry<RevCommit, String>> sortedTags = new ArrayList<>(tagMap.entrySet());
+        sortedTags.sort((a, b) -> Integer.compare(b.getKey().getCommitTime(), a.getKey().getCommitTime()));
 
-        } catch (GitAPIException | IOException e) {
-            GitLogUtils.error("Failed to retrieve previous valid Git tag", e);
-            throw new RuntimeException("Unable to get previous valid tag", e);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
-        }
+        String previousTag = sortedTags.get(1).getValue(); // second most recent
+        GitLogUtils.info("Previous valid tag: " + previousTag);
+        return previousTag;
     }
 
+    /**
+     * Fetches from the remote without failing the build; a failed fetch is logged as a warning.
+     * {@link FetchMode#SHALLOW}, {@link FetchMode#SINCE} and {@link FetchMode#FILTER_BLOB_NONE} fetch
+     * branches and tags with the depth, date or filter taken from the configuration.
+     *
+     * @param git           the JGit Git instance
+     * @param configuration the Git configuration for credentials and history limits
+     * @param log           the Maven logger
+     * @param mode          which refs, and how much of their history, to fetch
+     */
     public static void safeFetch(Git git, GitConfiguration configuration, Log log, FetchMode mode) {
         GitLogUtils.setLog(log);
 
@@ -137,38 +204,369 @@ public class GitUtils {
                     refSpecs.add(new RefSpec("+refs/heads/*:refs/remotes/origin/*"));
                     break;
                 case TAGS:
-                    refSpecs.add(new RefSpec("+refs/tags/*:refs/tags/*"));
+                    refSpecs.add(getTagRefSpec(configuration));
                     break;
                 case BOTH:
+                case SHALLOW:
+                case SINCE:
+                case FILTER_BLOB_NONE:
                     refSpecs.add(new RefSpec("+refs/heads/*:refs/remotes/origin/*"));
-                    refSpecs.add(new RefSpec("+refs/tags/*:refs/tags/*"));
+                    refSpecs.add(getTagRefSpec(configuration));
                     break;
             }
 
+            String remote = "origin";
+            if (GitCredentialUtils.isSSH(configuration.getScm())) {
+                GitCredentialUtils.addSSHRemote(git);
+                remote = SSH_REMOTE;
+            }
+
             FetchCommand fetchCmd = git.fetch()
-                    .setRemote("origin")
+                    .setRemote(remote)
                     .setRefSpecs(refSpecs);
 
-            if (GitCredentialUtils.isSSH(configuration.getScm())) {
-                GitLogUtils.info("SSH fetch mode: " + mode);
-                fetchCmd.setTransportConfigCallback(transport -> {
-                    if (transport instanceof SshTransport) {
-                        SshTransport sshTransport = (SshTransport) transport;
-                        sshTransport.setSshSessionFactory(GitCredentialUtils.getSshdSessionFactory(configuration));
-                    }
-                });
-            } else {
-                GitLogUtils.info("HTTPS fetch mode: " + mode);
-                CredentialsProvider credentialsProvider =
-                        GitCredentialUtils.getUserProvider(configuration.getSettings()
-                                .getServer(configuration.getServerKey()).getPassword());
-                fetchCmd.setCredentialsProvider(credentialsProvider);
+            GitLogUtils.info((GitCredentialUtils.isSSH(configuration.getScm()) ? "SSH" : "HTTPS") + " fetch mode: " + mode);
+            configureFetch(git, fetchCmd, configuration, mode);
+            if (mode != FetchMode.BRANCHES) {
+                narrowTags(git, fetchCmd, configuration);
             }
 
             fetchCmd.call();
 
-        } catch (GitAPIException e) {
+        } catch (GitAPIException | URISyntaxException e) {
             GitLogUtils.warn("Fetch failed: " + e.getMessage());
         }
     }
+
+    /**
+     * Clones a remote repository into a directory, unless the directory already holds a clone.
+     * The credentials are taken from the configuration the same way {@link #configureFetch} does.
+     *
+     * @param url           the URL of the remote repository
+     * @param directory     the work tree of the clone
+     * @param configuration the Git configuration for credentials
+     * @param log           the Maven logger
+     * @return true if the repository was cloned, false if the directory already held a clone
+     * @throws RuntimeException if the clone fails
+     */
+    public static boolean cloneIfAbsent(String url, File directory, GitConfiguration configuration, Log log) {
+        GitLogUtils.setLog(log);
+        if (new File(directory, Constants.DOT_GIT).isDirectory()) {
+            return false;
+        }
+
+        CloneCommand cloneCmd = Git.cloneRepository()
+                .setURI(url)
+                .setDirectory(directory);
+        if (GitCredentialUtils.isSSH(configuration.getScm())) {
+            cloneCmd.setTransportConfigCallback(transport -> {
+                if (transport instanceof SshTransport) {
+                    SshTransport sshTransport = (SshTransport) transport;
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
+                }
+            });
+        } else {
+            cloneCmd.setCredentialsProvider(GitCredentialUtils.getUserProvider(configuration.getSettings()
+                    .getServer(configuration.getServerKey()).getPassword()));
+        }
+
+        // the registry opens the clone again, this handle is only needed for the clone itself
+        try {
+            cloneCmd.call().close();
+            GitLogUtils.info("Cloned " + url + " into " + directory);
+            return true;
+        } catch (GitAPIException e) {
+            throw new RuntimeException("Failed to clone " + url, e);
+        }
+    }
+
+    /**
+     * Configures authentication and the configured history limits on a fetch command.
+     *
+     * @param git           the JGit Git instance
+     * @param fetchCmd      the fetch command to configure
+     * @param configuration the Git configuration for credentials and history limits
+     * @return the configured fetch command
+     */
+    public static FetchCommand configureFetch(Git git, FetchCommand fetchCmd, GitConfiguration configuration) {
+        return configureFetch(git, fetchCmd, configuration, configuration.getFetchMode());
+    }
+
+    /**
+     * Configures authentication and the history limits of the given mode on a fetch command.
+     * When the repository is already shallow and the mode sets no limit, the configured depth is
+     * used, so a fetch does not silently download the full history of every new tip.
+     *
+     * @param git           the JGit Git instance
+     * @param fetchCmd      the fetch command to configure
+     * @param configuration the Git configuration for credentials, depth and date
+     * @param mode          the fetch mode, or {@code null} for full history
+     * @return the configured fetch command
+     */
+    private static FetchCommand configureFetch(Git git, FetchCommand fetchCmd, GitConfiguration configuration, FetchMode mode) {
+        FilterSpec filter = mode == FetchMode.FILTER_BLOB_NONE ? BLOB_NONE : FilterSpec.NO_FILTER;
+
+        if (GitCredentialUtils.isSSH(configuration.getScm())) {
+            fetchCmd.setTransportConfigCallback(transport -> {
+                if (transport instanceof SshTransport) {
+                    SshTransport sshTransport = (SshTransport) transport;
+                    sshTransport.setSshSessionFactory(GitCredentialUtils.getSshSessionFactory(configuration));
+                }
+                transport.setFilterSpec(filter);
+            });
+        } else {
+            CredentialsProvider credentialsProvider =
+                    GitCredentialUtils.getUserProvider(configuration.getSettings()
+                            .getServer(configuration.getServerKey()).getPassword());
+            fetchCmd.setCredentialsProvider(credentialsProvider);
+            fetchCmd.setTransportConfigCallback(transport -> transport.setFilterSpec(filter));
+        }
+
+        if (mode == FetchMode.SHALLOW || (mode != FetchMode.SINCE && isShallow(git))) {
+            fetchCmd.setDepth(Math.max(configuration.getFetchDepth(), 1));
+        } else if (mode == FetchMode.SINCE && configuration.getFetchSince() != null) {
+            fetchCmd.setShallowSince(configuration.getFetchSince());
+        }
+        return fetchCmd;
+    }
+
+    private static FilterSpec blobNone() {
+        try {
+            return FilterSpec.fromFilterLine("blob:none");
+        } catch (PackProtocolException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Checks whether the repository is a shallow clone.
+     *
+     * @param git the JGit Git instance
+     * @return true if the repository has shallow commits
+     */
+    public static boolean isShallow(Git git) {
+        try {
+            return !git.getRepository().getObjectDatabase().getShallowCommits().isEmpty();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Makes sure every commit between {@code fromRef} and {@code toRef} is present locally.
+     * Does nothing for a full clone. In a shallow clone the history of the two refs is deepened
+     * step by step, doubling the depth each time, until neither side of the range reaches a
+     * shallow boundary; after {@value #MAX_DEEPEN_STEPS} steps the remaining history is fetched in full.
+     * Without a {@code fromRef}, e.g. for a first release, there is no range to complete. A {@code fromRef} that
+     * still does not resolve after the first fetch, which brings the tags, is not deepened for.
+     *
+     * @param git           the JGit Git instance
+     * @param configuration the Git configuration for credentials and the starting depth
+     * @param log           the Maven logger
+     * @param fromRef       the older ref of the range, e.g. the previous release tag, or {@code null}
+     * @param toRef         the newer ref of the range
+     * @throws IllegalArgumentException if {@code fromRef} exists neither locally nor on the remote
+     * @throws RuntimeException         if a deepening fetch fails
+     */
+    public static void ensureHistory(Git git, GitConfiguration configuration, Log log, String fromRef, String toRef) {
+        GitLogUtils.setLog(log);
+        if (fromRef == null || !isShallow(git)) {
+            return;
+        }
+
+        try {
+            String remote = "origin";
+            if (GitCredentialUtils.isSSH(configuration.getScm())) {
+                GitCredentialUtils.addSSHRemote(git);
+                remote = SSH_REMOTE;
+            }
+            List<RefSpec> refSpecs = getRangeRefSpecs(git.getRepository(), configuration, fromRef, toRef);
+
+            int depth = Math.max(configuration.getFetchDepth(), 1);
+            for (int step = 1; !isRangePresent(git.getRepository(), fromRef, toRef); step++) {
+                if (step > 1 && git.getRepository().resolve(fromRef + "^{commit}") == null) {
+                    throw new IllegalArgumentException("Cannot find " + fromRef + " locally or on the remote, "
+                            + "not deepening the history for " + fromRef + ".." + toRef);
+                }
+                FetchCommand fetchCmd = git.fetch()
+                        .setRemote(remote)
+                        .setRefSpecs(refSpecs);
+                configureFetch(git, fetchCmd, configuration, null);
+                narrowTags(git, fetchCmd, configuration);
+
+                if (step > MAX_DEEPEN_STEPS) {
+                    GitLogUtils.info("History for " + fromRef + ".." + toRef + " still incomplete, fetching full history");
+                    // same "infinite" depth git uses for --unshallow
+                    fetchCmd.setDepth(Integer.MAX_VALUE).call();
+                    return;
+                }
+
+                depth *= 2;
+                GitLogUtils.info("History for " + fromRef + ".." + toRef + " is incomplete, deepening to " + depth + " commits");
+                fetchCmd.setDepth(depth).call();
+            }
+        } catch (GitAPIException | IOException | URISyntaxException e) {
+            GitLogUtils.error("Failed to deepen history for " + fromRef + ".." + toRef, e);
+            throw new RuntimeException("Unable to deepen history", e);
+        }
+    }
+
+    /**
+     * Lists the commits reachable from {@code to} but not from {@code from}, newest first,
+     * like {@code git log from..to}.
+     * <p>
+     * When the repository has a commit-graph, the walk takes parents and commit times from the graph
+     * while it limits the range and only inflates the commits in the range.
+     *
+     * @param repository the repository
+     * @param from       the excluded commit, e.g. the previous release tag
+     * @param to         the included commit, e.g. the new release tag
+     * @return the commits in the range, with their messages and identities parsed
+     * @throws IOException if the commits cannot be read
+     */
+    public static List<RevCommit> getCommitsInRange(Repository repository, ObjectId from, ObjectId to) throws IOException {
+        return getCommitsInRange(repository, List.of(from), to);
+    }
+
+    /**
+     * Lists the commits reachable from {@code to} but from none of the excluded commits, newest first.
+     *
+     * @param repository the repository
+     * @param excluded   the commits whose history is left out, e.g. the previous release tag and the
+     *                   last commit already processed
+     * @param to         the included commit
+     * @return the commits in the range, with their messages and identities parsed
+     * @throws IOException if the commits cannot be read
+     * @see #getCommitsInRange(Repository, ObjectId, ObjectId)
+     */
+    public static List<RevCommit> getCommitsInRange(Repository repository, Collection<? extends ObjectId> excluded,
+                                                    ObjectId to) throws IOException {
+        List<RevCommit> commits = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(repository)) {
+            // without a graph the bodies are read while limiting anyway, so keep them
+            walk.setRetainBody(walk.getObjectReader().getCommitGraph().isEmpty());
+            walk.markStart(walk.parseCommit(to));
+            for (ObjectId id : excluded) {
+                walk.markUninteresting(walk.parseCommit(id));
+            }
+            for (RevCommit commit : walk) {
+                walk.parseBody(commit);
+                commits.add(commit);
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Checks whether the range between {@code fromRef} and {@code toRef} can be walked without crossing a
+     * shallow boundary. {@code fromRef} does not have to be an ancestor of {@code toRef}, e.g. a previous release
+     * tagged on a maintenance line: the range is present once the histories of both refs meet above their
+     * shallow boundaries, i.e. neither side has a shallow commit the other side does not reach.
+     *
+     * @param repository the repository
+     * @param fromRef    the older ref
+     * @param toRef      the newer ref
+     * @return true if the whole range is present locally
+     * @throws IOException if the refs cannot be read
+     */
+    private static boolean isRangePresent(Repository repository, String fromRef, String toRef) throws IOException {
+        ObjectId from = repository.resolve(fromRef + "^{commit}");
+        ObjectId to = repository.resolve(toRef + "^{commit}");
+        if (from == null || to == null) {
+            return false;
+        }
+        Set<ObjectId> shallow = repository.getObjectDatabase().getShallowCommits();
+        try {
+            return !reachesShallowCommit(repository, shallow, to, from)
+                    && !reachesShallowCommit(repository, shallow, from, to);
+        } catch (MissingObjectException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the commits reachable from {@code start} but not from {@code excluded} include a shallow
+     * commit, whose parents are missing locally.
+     *
+     * @param repository the repository
+     * @param shallow    the shallow commits of the repository
+     * @param start      the commit to walk from
+     * @param excluded   the commit whose history is left out
+     * @return true if the walk reaches a shallow boundary
+     * @throws IOException if the commits cannot be read
+     */
+    private static boolean reachesShallowCommit(Repository repository, Set<ObjectId> shallow, ObjectId start,
+                                                ObjectId excluded) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(start));
+            walk.markUninteresting(walk.parseCommit(excluded));
+            for (RevCommit commit : walk) {
+                if (shallow.contains(commit)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Builds refspecs that deepen only the refs of a range: a tag refspec for tags and a
+     * remote-tracking refspec for branches. Falls back to all branches and the configured release
+     * tags when neither ref is a branch or tag.
+     *
+     * @param repository    the repository
+     * @param configuration the Git configuration for the release tag prefix
+     * @param refs          the refs of the range
+     * @return the refspecs to deepen
+     * @throws IOException if the refs cannot be read
+     */
+    private static List<RefSpec> getRangeRefSpecs(Repository repository, GitConfiguration configuration,
+                                                  String... refs) throws IOException {
+        List<RefSpec> refSpecs = new ArrayList<>();
+        for (String ref : refs) {
+            if (repository.exactRef(Constants.R_TAGS + ref) != null) {
+                refSpecs.add(new RefSpec("+refs/tags/" + ref + ":refs/tags/" + ref));
+            } else if (repository.exactRef(Constants.R_HEADS + ref) != null) {
+                refSpecs.add(new RefSpec("+refs/heads/" + ref + ":refs/remotes/origin/" + ref));
+            }
+        }
+        if (refSpecs.isEmpty()) {
+            refSpecs.add(new RefSpec("+refs/heads/*:refs/remotes/origin/*"));
+            refSpecs.add(getTagRefSpec(configuration));
+        }
+        return refSpecs;
+    }
+
+    /**
+     * Builds the refspec fetching the release tags of the configuration, e.g.
+     * {@code +refs/tags/release-*:refs/tags/release-*}, or every tag when no prefix is configured.
+     *
+     * @param configuration the Git configuration holding the tag prefix
+     * @return the tag refspec
+     */
+    public static RefSpec getTagRefSpec(GitConfiguration configuration) {
+        String pattern = Constants.R_TAGS + configuration.getTagPrefix() + "*";
+        return new RefSpec("+" + pattern + ":" + pattern);
+    }
+
+    /**
+     * Limits a fetch to the tags its refspecs name. By default JGit follows every tag pointing into the
+     * fetched history and, over protocol v2, asks the server to list all of {@code refs/tags/} for that;
+     * without tag following, the refspecs alone become the {@code ref-prefix} filter of the {@code ls-refs}
+     * request, so the server only advertises the release tags. JGit speaks protocol v2 unless
+     * {@code protocol.version} says otherwise, in which case the server still advertises every ref.
+     *
+     * @param git           the JGit Git instance
+     * @param fetchCmd      the fetch command whose refspecs include the tags wanted
+     * @param configuration the Git configuration holding the tag prefix
+     */
+    private static void narrowTags(Git git, FetchCommand fetchCmd, GitConfiguration configuration) {
+        fetchCmd.setTagOpt(TagOpt.NO_TAGS);
+        String protocol = git.getRepository().getConfig().getString("protocol", null, "version");
+        if (!configuration.getTagPrefix().isEmpty() && protocol != null && !"2".equals(protocol)) {
+            GitLogUtils.warn("protocol.version=" + protocol + ": the remote lists all its refs, only "
+                    + Constants.R_TAGS + configuration.getTagPrefix() + "* are fetched");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,275 @@
+package com.mockholm.utils;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the {@code groupId:artifactId:version} of the modules of a {@link ModuleTree} from their raw models,
+ * without building the projects.
+ * <p>
+ * A module that declares no groupId or version inherits the one of its {@code <parent>}. Expressions in the
+ * coordinates are interpolated only as far as coordinates need: {@code ${project.groupId}},
+ * {@code ${project.version}}, {@code ${project.parent.version}} and their {@code pom.} and {@code parent.} forms,
+ * and properties such as {@code ${revision}}, looked up first in the user properties given on the command line,
+ * then in the {@code <properties>} of the module and of its parents within the tree, then in the system
+ * properties. Anything else, such as a property defined only in a parent outside the tree or overridden by a
+ * profile, cannot be resolved here and throws an {@link IllegalStateException}, so the caller can fall back to the
+ * Maven project builder.
+ */
+public class ModuleCoordinates {
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+
+    /** Nesting depth after which an expression is considered to refer to itself. */
+    private static final int MAX_DEPTH = 16;
+
+    private final ModuleTree tree;
+    private final Properties userProperties;
+    private final Properties systemProperties;
+    private final Map<ModuleTree.Module, String> groupIds = new HashMap<>();
+    private final Map<ModuleTree.Module, String> versions = new HashMap<>();
+
+    /** Coordinates being resolved, to detect expressions that refer back to them. */
+    private final Set<String> resolving = new HashSet<>();
+
+    /**
+     * Creates a resolver for the modules of a tree.
+     *
+     * @param tree             the module tree
+     * @param userProperties   the user properties of the build, e.g. {@code -Drevision=1.2.0}, or {@code null}
+     * @param systemProperties the system properties of the build, or {@code null}
+     */
+    public ModuleCoordinates(ModuleTree tree, Properties userProperties, Properties systemProperties) {
+        this.tree = tree;
+        this.userProperties = userProperties == null ? new Properties() : userProperties;
+        this.systemProperties = systemProperties == null ? new Properties() : systemProperties;
+    }
+
+    /**
+     * Gets the groupId of a module, inherited from its parent when it declares none.
+     *
+     * @param module a module of the tree
+     * @return the interpolated groupId
+     * @throws IllegalStateException if the groupId cannot be resolved from the raw models
+     */
+    public String getGroupId(ModuleTree.Module module) {
+        String groupId = groupIds.get(module);
+        if (groupId == null) {
+            Model model = module.getModel();
+            String raw = model.getGroupId() != null ? model.getGroupId()
+                    : model.getParent() != null ? model.getParent().getGroupId() : null;
+            groupId = require(module, "groupId", raw);
+            groupIds.put(module, groupId);
+        }
+        return groupId;
+    }
+
+    /**
+     * Gets the artifactId of a module.
+     *
+     * @param module a module of the tree
+     * @return the interpolated artifactId
+     * @throws IllegalStateException if the artifactId cannot be resolved from the raw models
+     */
+    public String getArtifactId(ModuleTree.Module module) {
+        return require(module, "artifactId", module.getModel().getArtifactId());
+    }
+
+    /**
+     * Gets the version of a module, inherited from its parent when it declares none.
+     *
+     * @param module a module of the tree
+     * @return the interpolated version
+     * @throws IllegalStateException if the version cannot be resolved from the raw models
+     */
+    public String getVersion(ModuleTree.Module module) {
+        String version = versions.get(module);
+        if (version == null) {
+            Model model = module.getModel();
+            String raw = model.getVersion() != null ? model.getVersion()
+                    : model.getParent() != null ? model.getParent().getVersion() : null;
+            version = require(module, "version", raw);
+            versions.put(module, version);
+        }
+        return version;
+    }
+
+    /**
+     * Gets the coordinates of a module.
+     *
+     * @param module a module of the tree
+     * @return the coordinates in the format {@code groupId:artifactId:version}
+     * @throws IllegalStateException if a coordinate cannot be resolved from the raw models
+     */
+    public String getCoordinates(ModuleTree.Module module) {
+        return getGroupId(module) + ":" + getArtifactId(module) + ":" + getVersion(module);
+    }
+
+    /**
+     * Interpolates the expressions of a value in the context of a module.
+     *
+     * @param module a module of the tree
+     * @param value  the raw value, e.g. {@code ${revision}${changelist}}
+     * @return the value with every expression replaced
+     * @throws IllegalStateException if an expression cannot be resolved from the raw models
+     */
+    public String interpolate(ModuleTree.Module module, String value) {
+        return interpolate(module, value, new HashSet<>(), 0);
+    }
+
+    /**
+     * Looks a property up for a module: in the user properties, then in the {@code <properties>} of the module and
+     * of its parents within the tree, then in the system properties.
+     *
+     * @param module a module of the tree
+     * @param name   the property name
+     * @return the raw value, or {@code null} if no model or property set defines it
+     * @throws IllegalStateException if the value depends on a profile or on a parent outside the tree
+     */
+    public String getProperty(ModuleTree.Module module, String name) {
+        String value = userProperties.getProperty(name);
+        if (value != null) {
+            return value;
+        }
+        ModuleTree.Module owner;
+        try {
+            owner = getPropertyOwner(module, name);
+        } catch (IllegalStateException e) {
+            value = systemProperties.getProperty(name);
+            if (value != null) {
+                return value;
+            }
+            throw e;
+        }
+        return owner != null ? owner.getModel().getProperties().getProperty(name)
+                : systemProperties.getProperty(name);
+    }
+
+    /**
+     * Finds the module whose {@code <properties>} define a property for a module: the module itself or the
+     * nearest of its parents within the tree that declares it.
+     *
+     * @param module a module of the tree
+     * @param name   the property name
+     * @return the declaring module, or {@code null} if no model of the parent chain declares the property
+     * @throws IllegalStateException if the value depends on a profile or may come from a parent outside the tree
+     */
+    public ModuleTree.Module getPropertyOwner(ModuleTree.Module module, String name) {
+        ModuleTree.Module current = module;
+        Set<ModuleTree.Module> seen = new HashSet<>();
+        while (current != null && seen.add(current)) {
+            Model model = current.getModel();
+            for (Profile profile : model.getProfiles()) {
+                if (profile.getProperties().containsKey(name)) {
+                    throw new IllegalStateException(String.format("Property %s of %s is set by profile %s",
+                            name, current, profile.getId()));
+                }
+            }
+            if (model.getProperties().containsKey(name)) {
+                return current;
+            }
+            ModuleTree.Module parent = getParent(current);
+            if (parent == null && model.getParent() != null) {
+                throw new IllegalStateException(String.format("Property %s of %s may come from parent %s:%s",
+                        name, module, model.getParent().getGroupId(), model.getParent().getArtifactId()));
+            }
+            current = parent;
+        }
+        return null;
+    }
+
+    private String require(ModuleTree.Module module, String field, String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            throw new IllegalStateException("No " + field + " in " + module.getPomFile());
+        }
+        String key = module.getPomFile() + "#" + field;
+        if (!resolving.add(key)) {
+            throw new IllegalStateException("The " + field + " of " + module.getPomFile() + " refers to itself");
+        }
+        try {
+            return interpolate(module, raw.trim());
+        } finally {
+            resolving.remove(key);
+        }
+    }
+
+    private String interpolate(ModuleTree.Module module, String value, Set<String> resolving, int depth) {
+        if (value.indexOf("${") < 0) {
+            return value;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("Expression nested too deeply in " + module + ": " + value);
+        }
+        Matcher matcher = EXPRESSION.matcher(value);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String expression = matcher.group(1).trim();
+            if (!resolving.add(expression)) {
+                throw new IllegalStateException("Expression ${" + expression + "} of " + module + " refers to itself");
+            }
+            String resolved = interpolate(module, resolve(module, expression), resolving, depth + 1);
+            resolving.remove(expression);
+            matcher.appendReplacement(result, Matcher.quoteReplacement(resolved));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * Resolves one expression to its raw value, which may hold further expressions.
+     */
+    private String resolve(ModuleTree.Module module, String expression) {
+        Model model = module.getModel();
+        Parent parent = model.getParent();
+        switch (expression) {
+            case "project.groupId":
+            case "pom.groupId":
+            case "groupId":
+                return getGroupId(module);
+            case "project.artifactId":
+            case "pom.artifactId":
+            case "artifactId":
+                return getArtifactId(module);
+            case "project.version":
+            case "pom.version":
+            case "version":
+                return getVersion(module);
+            case "project.parent.groupId":
+            case "parent.groupId":
+                if (parent != null && parent.getGroupId() != null) {
+                    return parent.getGroupId();
+                }
+                break;
+            case "project.parent.version":
+            case "parent.version":
+                if (parent != null && parent.getVersion() != null) {
+                    return parent.getVersion();
+                }
+                break;
+            default:
+                String value = getProperty(module, expression);
+                if (value != null) {
+                    return value;
+                }
+        }
+        throw new IllegalStateException("Cannot resolve ${" + expression + "} in " + module.getPomFile());
+    }
+
+    private ModuleTree.Module getParent(ModuleTree.Module module) {
+        try {
+            return tree.getParent(module);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot resolve the parent of " + module + ": " + e.getMessage(), e);
+        }
+    }
+}
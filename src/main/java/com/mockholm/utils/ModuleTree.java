@@ -0,0 +1,358 @@
+package com.mockholm.utils;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The modules of a Maven build, found by following the {@code <modules>} of the root POM and of every nested
+ * aggregator, however deep.
+ * <p>
+ * The POMs are read through the {@link PomModelCache} on a {@link ForkJoinPool} of bounded size, each aggregator
+ * forking one task per module, so a large tree is parsed on several cores. The time spent reading each POM is kept
+ * for reporting. {@link #getParent(Module)} resolves the parent of a module within the tree the way Maven does:
+ * first through the {@code relativePath} of the parent, {@code ../pom.xml} unless stated otherwise, then by the
+ * coordinates of the parent.
+ * <p>
+ * Modules the raw POMs cannot account for make the tree incomplete, see {@link #getIncompleteReasons()}: a module
+ * whose POM is missing, and modules declared inside a profile, which only the project builder knows to be active.
+ */
+public class ModuleTree {
+
+    /** Default number of threads reading POMs. */
+    public static final int DEFAULT_PARALLELISM = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    private final Module root;
+    private final List<Module> modules;
+    private final Map<File, Module> byFile = new HashMap<>();
+    private final Map<String, Module> byCoordinates = new HashMap<>();
+    private final List<String> incompleteReasons;
+
+    private ModuleTree(Module root, List<String> incompleteReasons) {
+        this.root = root;
+        this.incompleteReasons = Collections.unmodifiableList(incompleteReasons);
+        List<Module> ordered = new ArrayList<>();
+        collect(root, ordered);
+        this.modules = Collections.unmodifiableList(ordered);
+        for (Module module : ordered) {
+            byFile.put(module.pomFile, module);
+            byCoordinates.putIfAbsent(module.getGroupId() + ":" + module.getArtifactId(), module);
+        }
+    }
+
+    /**
+     * Reads the tree of modules below a POM.
+     *
+     * @param rootPom     the {@code pom.xml} of the top-level project
+     * @param parallelism the number of threads reading POMs
+     * @return the module tree
+     * @throws IOException if a POM cannot be read or is not valid
+     */
+    public static ModuleTree walk(File rootPom, int parallelism) throws IOException {
+        return walk(rootPom, Collections.emptyMap(), parallelism);
+    }
+
+    /**
+     * Reads the tree of modules below a POM, taking the modules of the listed POMs from the given lists rather
+     * than from their raw {@code <modules>}, e.g. the modules the project builder found with the active profiles.
+     *
+     * @param rootPom         the {@code pom.xml} of the top-level project
+     * @param declaredModules the {@code <module>} entries of the POMs whose modules are known, by canonical POM
+     *                        file; the other POMs use their raw {@code <modules>}
+     * @param parallelism     the number of threads reading POMs
+     * @return the module tree
+     * @throws IOException if a POM cannot be read or is not valid
+     */
+    public static ModuleTree walk(File rootPom, Map<File, List<String>> declaredModules, int parallelism)
+            throws IOException {
+        File root = rootPom.getCanonicalFile();
+        Set<File> visited = ConcurrentHashMap.newKeySet();
+        visited.add(root);
+        ConcurrentLinkedQueue<String> incompleteReasons = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            Module module = pool.invoke(new WalkTask(root, null, declaredModules, visited, incompleteReasons));
+            return new ModuleTree(module, new ArrayList<>(incompleteReasons));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Gets the top-level project.
+     *
+     * @return the root module
+     */
+    public Module getRoot() {
+        return root;
+    }
+
+    /**
+     * Lists every module of the tree, the root first and each aggregator before its modules, in declaration order.
+     *
+     * @return the modules
+     */
+    public List<Module> getModules() {
+        return modules;
+    }
+
+    /**
+     * Gets the module of a POM.
+     *
+     * @param pomFile the {@code pom.xml} file
+     * @return the module, or {@code null} if the POM is not part of the tree
+     * @throws IOException if the path cannot be resolved
+     */
+    public Module get(File pomFile) throws IOException {
+        return byFile.get(pomFile.getCanonicalFile());
+    }
+
+    /**
+     * Gets the parent of a module when the parent is part of the tree.
+     *
+     * @param module a module of the tree
+     * @return the parent module, or {@code null} if the module has no parent or inherits from a POM outside the tree
+     * @throws IOException if the path cannot be resolved
+     */
+    public Module getParent(Module module) throws IOException {
+        Parent parent = module.model.getParent();
+        if (parent == null) {
+            return null;
+        }
+        String coordinates = parent.getGroupId() + ":" + parent.getArtifactId();
+        String relativePath = parent.getRelativePath();
+        if (relativePath != null && !relativePath.trim().isEmpty()) {
+            File parentPom = new File(module.pomFile.getParentFile(), relativePath.trim());
+            if (parentPom.isDirectory()) {
+                parentPom = new File(parentPom, "pom.xml");
+            }
+            Module candidate = get(parentPom);
+            if (candidate != null
+                    && coordinates.equals(candidate.getGroupId() + ":" + candidate.getArtifactId())) {
+                return candidate;
+            }
+        }
+        return byCoordinates.get(coordinates);
+    }
+
+    /**
+     * Tells why the tree may lack modules the project builder would include.
+     *
+     * @return the missing module POMs and the profiles declaring modules, empty if the raw POMs list every module
+     */
+    public List<String> getIncompleteReasons() {
+        return incompleteReasons;
+    }
+
+    /**
+     * Gets the number of modules, the root included.
+     *
+     * @return the number of modules
+     */
+    public int size() {
+        return modules.size();
+    }
+
+    private static void collect(Module module, List<Module> ordered) {
+        ordered.add(module);
+        for (Module child : module.children) {
+            collect(child, ordered);
+        }
+    }
+
+    /**
+     * Resolves a {@code <module>} entry, which names a directory holding a {@code pom.xml} or the POM file itself.
+     */
+    private static File resolveModule(File aggregatorPom, String module) throws IOException {
+        File file = new File(aggregatorPom.getParentFile(), module.trim());
+        if (file.isDirectory()) {
+            file = new File(file, "pom.xml");
+        }
+        return file.getCanonicalFile();
+    }
+
+    /**
+     * Reads one POM and forks the reading of its modules.
+     */
+    private static final class WalkTask extends RecursiveTask<Module> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File pomFile;
+        private final Module aggregator;
+        private final Map<File, List<String>> declaredModules;
+        private final Set<File> visited;
+        private final Collection<String> incompleteReasons;
+
+        private WalkTask(File pomFile, Module aggregator, Map<File, List<String>> declaredModules, Set<File> visited,
+                Collection<String> incompleteReasons) {
+            this.pomFile = pomFile;
+            this.aggregator = aggregator;
+            this.declaredModules = declaredModules;
+            this.visited = visited;
+            this.incompleteReasons = incompleteReasons;
+        }
+
+        @Override
+        protected Module compute() {
+            try {
+                long start = System.nanoTime();
+                Model model = PomModelCache.get(pomFile);
+                Module module = new Module(pomFile, model, aggregator, System.nanoTime() - start);
+
+                List<String> names = declaredModules.get(pomFile);
+                if (names == null) {
+                    names = model.getModules();
+                    for (Profile profile : model.getProfiles()) {
+                        if (!profile.getModules().isEmpty()) {
+                            incomplete(String.format("%s declares modules in profile %s", pomFile, profile.getId()));
+                        }
+                    }
+                }
+
+                List<WalkTask> tasks = new ArrayList<>();
+                for (String name : names) {
+                    File modulePom = resolveModule(pomFile, name);
+                    if (!modulePom.isFile()) {
+                        incomplete("Module pom.xml not found: " + modulePom);
+                    } else if (visited.add(modulePom)) {
+                        tasks.add(new WalkTask(modulePom, module, declaredModules, visited, incompleteReasons));
+                    }
+                }
+                for (WalkTask task : invokeAll(tasks)) {
+                    module.children.add(task.join());
+                }
+                return module;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (XmlPullParserException e) {
+                throw new UncheckedIOException(new IOException("Invalid POM " + pomFile + ": " + e.getMessage(), e));
+            }
+        }
+
+        private void incomplete(String reason) {
+            GitLogUtils.warn(reason);
+            incompleteReasons.add(reason);
+        }
+    }
+
+    /**
+     * A POM of the tree.
+     */
+    public static final class Module {
+
+        private final File pomFile;
+        private final Model model;
+        private final Module aggregator;
+        private final long readNanos;
+        private final List<Module> children = new ArrayList<>();
+
+        private Module(File pomFile, Model model, Module aggregator, long readNanos) {
+            this.pomFile = pomFile;
+            this.model = model;
+            this.aggregator = aggregator;
+            this.readNanos = readNanos;
+        }
+
+        /**
+         * Gets the POM file.
+         *
+         * @return the canonical {@code pom.xml} file
+         */
+        public File getPomFile() {
+            return pomFile;
+        }
+
+        /**
+         * Gets the model, shared with the {@link PomModelCache}.
+         *
+         * @return the raw model of the POM, not interpolated
+         */
+        public Model getModel() {
+            return model;
+        }
+
+        /**
+         * Gets the POM listing this module in its {@code <modules>}.
+         *
+         * @return the aggregator, or {@code null} for the root
+         */
+        public Module getAggregator() {
+            return aggregator;
+        }
+
+        /**
+         * Gets the modules this POM aggregates.
+         *
+         * @return the direct modules, in declaration order
+         */
+        public List<Module> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Gets the groupId, inherited from the parent when the POM declares none.
+         *
+         * @return the groupId
+         */
+        public String getGroupId() {
+            if (model.getGroupId() == null && model.getParent() != null) {
+                return model.getParent().getGroupId();
+            }
+            return model.getGroupId();
+        }
+
+        /**
+         * Gets the artifactId.
+         *
+         * @return the artifactId
+         */
+        public String getArtifactId() {
+            return model.getArtifactId();
+        }
+
+        /**
+         * Gets the version, inherited from the parent when the POM declares none.
+         *
+         * @return the version as read from the POM
+         */
+        public String getVersion() {
+            if (model.getVersion() == null && model.getParent() != null) {
+                return model.getParent().getVersion();
+            }
+            return model.getVersion();
+        }
+
+        /**
+         * Gets the time spent reading the POM, from the file or the cache.
+         *
+         * @return the time in nanoseconds
+         */
+        public long getReadNanos() {
+            return readNanos;
+        }
+
+        @Override
+        public String toString() {
+            return getGroupId() + ":" + getArtifactId();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.mockholm.utils;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of the parsed {@code pom.xml} models of a plugin execution.
+ * <p>
+ * Models are keyed by the canonical path of the POM and the Git blob id of the content they were parsed from,
+ * so a POM is parsed only when its content was never seen before, and every reader,
+ * {@link com.mockholm.commands.PomCommand} as well as {@link PomUtils}, shares the same model. A pristine copy of
+ * each content is kept, so switching back to a branch whose POMs were already read, or that this cache wrote,
+ * clones the model instead of parsing the XML again.
+ * <p>
+ * Version changes go through {@link #setProjectVersion(File, String)}, {@link #setParentVersion(File, String)},
+ * {@link #setDependencyVersion(File, Dependency, boolean, String)} and {@link #setProperty(File, String, String)},
+ * which change the model and record the edit in a {@link PomVersionRewriter}, so the file keeps its comments and
+ * formatting. Callers that change a model in any
+ * other way mark it with {@link #markDirty(File)}, and the whole model is written. {@link #flush(Log, File)} writes
+ * each modified POM of one project exactly once, however many changes it received, and a step that fails before
+ * writing its changes drops them with {@link #discard(File)}. Changes are also dropped when the file changed on
+ * disk since they were made, e.g. by a branch switch, so they never end up in another branch. The cache lives as
+ * long as the repositories of the execution and is emptied by {@link GitRepositoryRegistry#closeAll(Log)}.
+ * <p>
+ * Each POM is locked on its own, so different POMs can be read and changed from several threads at once, as
+ * {@link ModuleTree} does when it walks the modules in parallel.
+ */
+public class PomModelCache {
+
+    /** Number of contents remembered per POM, e.g. the development and the release branch version. */
+    private static final int MAX_SNAPSHOTS = 4;
+
+    /** Cached models keyed by the canonical POM file. */
+    private static final Map<File, Entry> models = new ConcurrentHashMap<>();
+
+    /** Number of times a POM had to be parsed. */
+    private static final AtomicInteger parseCount = new AtomicInteger();
+
+    /** Number of times a cached model was handed out again. */
+    private static final AtomicInteger hitCount = new AtomicInteger();
+
+    /** Number of POMs written in full because a change could not be made in place. */
+    private static final AtomicInteger regeneratedCount = new AtomicInteger();
+
+    private PomModelCache() {
+    }
+
+    /**
+     * Gets the model of a POM, parsing it only if its current content was never read or written before.
+     * A model with unwritten changes is returned as is while the file still has the content the changes were
+     * made to.
+     *
+     * @param pomFile the {@code pom.xml} file
+     * @return the shared model; callers that change it use the version setters of this class or call
+     *         {@link #markDirty(File)}
+     * @throws IOException            if the file cannot be read
+     * @throws XmlPullParserException if the file is not a valid POM
+     */
+    public static Model get(File pomFile) throws IOException, XmlPullParserException {
+        Entry entry = getEntry(pomFile);
+        synchronized (entry) {
+            entry.load();
+            return entry.model;
+        }
+    }
+
+    /**
+     * Sets the version of a POM's project, changing only the version text in the file when it is written.
+     *
+     * @param pomFile the {@code pom.xml} file
+     * @param version the new version
+     * @throws IOException            if the file cannot be read
+     * @throws XmlPullParserException if the file is not a valid POM
+     */
+    public static void setProjectVersion(File pomFile, String version) throws IOException, XmlPullParserException {
+        Entry entry = getEntry(pomFile);
+        synchronized (entry) {
+            entry.load();
+            entry.model.setVersion(version);
+            PomVersionRewriter rewriter = entry.getRewriter();
+            entry.edited(rewriter != null && rewriter.setProjectVersion(version));
+        }
+    }
+
+    /**
+     * Sets the parent version of a POM, changing only the version text in the file when it is written.
+     *
+     * @param pomFile the {@code pom.xml} file
+     * @param version the new parent version
+     * @throws IOException            if the file cannot be read
+     * @throws XmlPullParserException if the file is not a valid POM
+     * @throws IllegalStateException  if the POM has no parent
+     */
+    public static void setParentVersion(File pomFile, String version) throws IOException, XmlPullParserException {
+        Entry entry = getEntry(pomFile);
+        synchronized (entry) {
+            entry.load();
+            if (entry.model.getParent() == null) {
+                throw new IllegalStateException("POM has no parent: " + pomFile);
+            }
+            entry.model.getParent().setVersion(version);
+            PomVersionRewriter rewriter = entry.getRewriter();
+            entry.edited(rewriter != null && rewriter.setParentVersion(version));
+        }
+    }
+
+    /**
+     * Sets the version of a dependency of a POM, changing only the version text in the file when it is written.
+     *
+     * @param pomFile    the {@code pom.xml} file
+     * @param dependency the dependency, taken from the model returned by {@link #get(File)}
+     * @param management true if the dependency is declared in the dependency management
+     * @param version    the new version
+     * @throws IOException            if the file cannot be read
+     * @throws XmlPullParserException if the file is not a valid POM
+     */
+    public static void setDependencyVersion(File pomFile, Dependency dependency, boolean management, String version)
+            throws IOException, XmlPullParserException {
+        Entry entry = getEntry(pomFile);
+        synchronized (entry) {
+            entry.load();
+            dependency.setVersion(version);
+            PomVersionRewriter rewriter = entry.getRewriter();
+            entry.edited(rewriter != null && rewriter.setDependencyVersion(management, dependency.getGroupId(),
+                    dependency.getArtifactId(), version));
+        }
+    }
+
+    /**
+     * Sets the value of a project property of a POM, changing only the property text in the file when it is
+     * written.
+     *
+     * @param pomFile the {@code pom.xml} file
+     * @param name    the property name
+     * @param value   the new value
+     * @throws IOException            if the file cannot be read
+     * @throws XmlPullParserException if the file is not a valid POM
+     */
+    public static void setProperty(File pomFile, String name, String value) throws IOException, XmlPullParserException {
+        Entry entry = getEntry(pomFile);
+        synchronized (entry) {
+            entry.load();
+            entry.model.getProperties().setProperty(name, value);
+            PomVersionRewriter rewriter = entry.getRewriter();
+            entry.edited(rewriter != null && rewriter.setProperty(name, value));
+        }
+    }
+
+    /**
+     * Marks the cached model of a POM as changed, so the next {@link #flush(Log, File)} writes it.
+     *
+     * @param pomFile the {@code pom.xml} file whose model was changed
+     * @throws IOException if the path cannot be resolved
+     * @throws IllegalStateException if the POM was never read through this cache
+     */
+    public static void markDirty(File pomFile) throws IOException {
+        Entry entry = models.get(pomFile.getCanonicalFile());
+        if (entry == null) {
+            throw new IllegalStateException("POM not loaded: " + pomFile);
+        }
+        synchronized (entry) {
+            if (entry.model == null) {
+                throw new IllegalStateException("POM not loaded: " + pomFile);
+            }
+            entry.dirty = true;
+            entry.regenerate = true;
+        }
+    }
+
+    /**
+     * Writes every changed model of the POMs below a directory back to its POM, once each. Changes to POMs
+     * elsewhere, e.g. in another repository updated at the same time, are left for their own flush.
+     *
+     * @param log       the Maven logger, or {@code null} to log to the console
+     * @param directory the directory of the project whose POMs are written
+     * @return the number of POMs written
+     * @throws IOException if a POM cannot be written or the directory cannot be resolved
+     */
+    public static synchronized int flush(Log log, File directory) throws IOException {
+        GitLogUtils.setLog(log);
+        Path root = directory.getCanonicalFile().toPath();
+        int written = 0;
+        for (Entry entry : models.values()) {
+            synchronized (entry) {
+                if (!entry.dirty || !entry.file.toPath().startsWith(root)) {
+                    continue;
+                }
+                if (!hash(Files.readAllBytes(entry.file.toPath())).equals(entry.id)) {
+                    GitLogUtils.warn("Dropping unwritten changes to " + entry.file + ", the file changed on disk");
+                    entry.reset();
+                    continue;
+                }
+                byte[] content;
+                if (entry.regenerate) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    new MavenXpp3Writer().write(out, entry.model);
+                    content = out.toByteArray();
+                    regeneratedCount.incrementAndGet();
+                } else {
+                    content = entry.rewriter.toBytes();
+                }
+                Files.write(entry.file.toPath(), content);
+                // the written content is what the model now stands for, so it is not parsed again
+                entry.setModel(entry.model, hash(content), content);
+                entry.snapshots.put(entry.id, entry.model.clone());
+                written++;
+            }
+        }
+        if (written > 0) {
+            GitLogUtils.info(String.format("Wrote %d POM(s); %d parsed, %d served from cache, %d regenerated in full",
+                    written, parseCount.get(), hitCount.get(), regeneratedCount.get()));
+        }
+        return written;
+    }
+
+    /**
+     * Drops the unwritten changes of the POMs below a directory, e.g. after a step failed before writing them.
+     * The next read of such a POM returns the model of its content on disk.
+     *
+     * @param directory the directory of the project whose changes are dropped
+     * @return the number of POMs whose changes were dropped
+     * @throws IOException if the directory cannot be resolved
+     */
+    public static synchronized int discard(File directory) throws IOException {
+        Path root = directory.getCanonicalFile().toPath();
+        int discarded = 0;
+        for (Entry entry : models.values()) {
+            synchronized (entry) {
+                if (entry.dirty && entry.file.toPath().startsWith(root)) {
+                    entry.reset();
+                    discarded++;
+                }
+            }
+        }
+        return discarded;
+    }
+
+    /**
+     * Empties the cache, dropping unwritten changes, and resets its counters. Called when the repositories of an
+     * execution are closed, so nothing is carried over to a later execution in the same JVM.
+     */
+    public static synchronized void clear() {
+        models.clear();
+        parseCount.set(0);
+        hitCount.set(0);
+        regeneratedCount.set(0);
+    }
+
+    private static Entry getEntry(File pomFile) throws IOException {
+        return models.computeIfAbsent(pomFile.getCanonicalFile(), Entry::new);
+    }
+
+    private static ObjectId hash(byte[] content) {
+        return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, content);
+    }
+
+    /**
+     * The live model of a POM, the content it stands for, the edits made to that content, and pristine models of
+     * the contents seen before. Guarded by its own monitor.
+     */
+    private static final class Entry {
+
+        private final File file;
+        private final Map<ObjectId, Model> snapshots = new LinkedHashMap<>(MAX_SNAPSHOTS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ObjectId, Model> eldest) {
+                return size() > MAX_SNAPSHOTS;
+            }
+        };
+        private Model model;
+        private ObjectId id;
+        private byte[] content;
+        private PomVersionRewriter rewriter;
+        private boolean dirty;
+
+        /** Whether the model has changes the rewriter cannot express, so it is written in full. */
+        private boolean regenerate;
+
+        private Entry(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Brings the model up to date with the current content of the file. Unwritten changes are kept while the
+         * file still has the content they were made to, and dropped if it changed.
+         */
+        private void load() throws IOException, XmlPullParserException {
+            byte[] content = Files.readAllBytes(file.toPath());
+            ObjectId id = hash(content);
+            if (id.equals(this.id)) {
+                hitCount.incrementAndGet();
+                return;
+            }
+            if (dirty) {
+                GitLogUtils.warn("Dropping unwritten changes to " + file + ", the file changed on disk");
+            }
+
+            Model snapshot = snapshots.get(id);
+            if (snapshot != null) {
+                hitCount.incrementAndGet();
+                setModel(snapshot.clone(), id, content);
+                return;
+            }
+
+            Model model = new MavenXpp3Reader().read(new ByteArrayInputStream(content));
+            parseCount.incrementAndGet();
+            snapshots.put(id, model.clone());
+            setModel(model, id, content);
+        }
+
+        /**
+         * Forgets the model and its unwritten changes, keeping the pristine snapshots.
+         */
+        private void reset() {
+            setModel(null, null, null);
+        }
+
+        private void setModel(Model model, ObjectId id, byte[] content) {
+            this.model = model;
+            this.id = id;
+            this.content = content;
+            this.rewriter = null;
+            this.dirty = false;
+            this.regenerate = false;
+        }
+
+        /**
+         * Gets the rewriter collecting the version edits of the content.
+         *
+         * @return the rewriter, or {@code null} if the content cannot be scanned
+         */
+        private PomVersionRewriter getRewriter() {
+            if (rewriter == null && !regenerate) {
+                try {
+                    rewriter = new PomVersionRewriter(content);
+                } catch (IllegalArgumentException e) {
+                    GitLogUtils.warn("Cannot edit POM in place, it will be rewritten in full: " + e.getMessage());
+                }
+            }
+            return rewriter;
+        }
+
+        private void edited(boolean inPlace) {
+            dirty = true;
+            regenerate |= !inPlace;
+        }
+    }
+}
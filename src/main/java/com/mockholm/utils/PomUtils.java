@@ -1,16 +1,14 @@
 package com.mockholm.utils;
 
-import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 /**
  * Utility class for reading Maven project metadata from a {@code pom.xml} file.
  * Provides methods to extract the project version from a given file or directory.
+ * Models are read through the {@link PomModelCache}, so repeated reads of an unchanged POM do not parse it again.
  */
 public class PomUtils {
 
@@ -22,10 +20,8 @@ public class PomUtils {
      * @throws RuntimeException if the file cannot be read or parsed
      */
     public static String getVersion(File pomFile) {
-        try (FileReader reader = new FileReader(pomFile)) {
-            MavenXpp3Reader xpp3Reader = new MavenXpp3Reader();
-            Model model = xpp3Reader.read(reader);
-            return model.getVersion();
+        try {
+            return PomModelCache.get(pomFile).getVersion();
         } catch (IOException | XmlPullParserException e) {
             throw new RuntimeException("Failed to read version from pom.xml: " + pomFile.getAbsolutePath(), e);
         }
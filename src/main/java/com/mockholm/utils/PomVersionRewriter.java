@@ -0,0 +1,394 @@
+package com.mockholm.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Changes version elements of a {@code pom.xml} in place, leaving every other byte of the file untouched.
+ * <p>
+ * The POM is scanned once, without building a model, to find the text of the project {@code <version>}, the
+ * parent {@code <version>}, the {@code <version>} of each dependency in {@code <dependencies>} and
+ * {@code <dependencyManagement>}, and each of the project {@code <properties>}. Setters then replace just that
+ * text, so comments, formatting, element order and line endings survive and a version bump is a one-line diff. Edits that need a new element, such as giving a
+ * version to a dependency that has none, are refused so the caller can fall back to writing the whole model.
+ * <p>
+ * Tag names are matched without namespace prefix; comments, CDATA sections, processing instructions and
+ * declarations are skipped. Only the top-level sections are recognised, as {@link org.apache.maven.model.Model}
+ * exposes them; dependencies inside profiles or plugins are not. The file is handled as bytes, which is safe
+ * for UTF-8 and any other ASCII-compatible encoding as long as the new versions are ASCII.
+ */
+public class PomVersionRewriter {
+
+    /** Depth of a {@code <dependency>} in the project dependencies. */
+    private static final int DEPENDENCIES = 3;
+
+    /** Depth of a {@code <dependency>} in the dependency management. */
+    private static final int MANAGED_DEPENDENCIES = 4;
+
+    /** Element names the scan looks for. */
+    private static final String[] NAMES = { "version", "groupId", "artifactId", "dependency", "dependencies",
+            "parent", "project", "dependencyManagement", "properties" };
+
+    private final byte[] content;
+
+    /** Text range of the project version, or {@code null}. */
+    private int[] projectVersion;
+
+    /** Text range of the parent version, or {@code null}. */
+    private int[] parentVersion;
+
+    private final List<DependencyVersion> dependencies = new ArrayList<>();
+
+    /** Text ranges of the project properties by name. */
+    private final Map<String, int[]> properties = new HashMap<>();
+
+    /** Pending replacements keyed by the start of the replaced range. */
+    private final Map<Integer, Replacement> replacements = new TreeMap<>();
+
+    /**
+     * Scans a POM for its version elements.
+     *
+     * @param content the bytes of the {@code pom.xml}
+     * @throws IllegalArgumentException if the content is not well-formed enough to be scanned
+     */
+    public PomVersionRewriter(byte[] content) {
+        this.content = content;
+        scan();
+    }
+
+    /**
+     * Sets the version of the project.
+     *
+     * @param version the new version
+     * @return false if the POM declares no project version, so the edit cannot be made in place
+     */
+    public boolean setProjectVersion(String version) {
+        return replace(projectVersion, version);
+    }
+
+    /**
+     * Sets the version of the parent.
+     *
+     * @param version the new version
+     * @return false if the POM has no parent version, so the edit cannot be made in place
+     */
+    public boolean setParentVersion(String version) {
+        return replace(parentVersion, version);
+    }
+
+    /**
+     * Sets the version of every declaration of a dependency in one section.
+     *
+     * @param management true for {@code <dependencyManagement>}, false for the project {@code <dependencies>}
+     * @param groupId    the groupId as written in the POM
+     * @param artifactId the artifactId as written in the POM
+     * @param version    the new version
+     * @return false if the dependency is not declared in the section or a declaration has no version element,
+     *         so the edit cannot be made in place
+     */
+    public boolean setDependencyVersion(boolean management, String groupId, String artifactId, String version) {
+        List<DependencyVersion> matches = new ArrayList<>();
+        for (DependencyVersion dependency : dependencies) {
+            if (dependency.management == management && groupId.equals(dependency.groupId)
+                    && artifactId.equals(dependency.artifactId)) {
+                if (dependency.version == null) {
+                    return false;
+                }
+                matches.add(dependency);
+            }
+        }
+        for (DependencyVersion match : matches) {
+            replace(match.version, version);
+        }
+        return !matches.isEmpty();
+    }
+
+    /**
+     * Sets the value of a project property, e.g. one a dependency takes its version from.
+     *
+     * @param name  the property name
+     * @param value the new value
+     * @return false if the POM does not declare the property with a value, so the edit cannot be made in place
+     */
+    public boolean setProperty(String name, String value) {
+        return replace(properties.get(name), value);
+    }
+
+    /**
+     * Checks whether any setter changed a version.
+     *
+     * @return true if {@link #toBytes()} differs from the scanned content
+     */
+    public boolean isChanged() {
+        return !replacements.isEmpty();
+    }
+
+    /**
+     * Builds the POM with the changed versions.
+     *
+     * @return the new bytes of the {@code pom.xml}
+     */
+    public byte[] toBytes() {
+        if (replacements.isEmpty()) {
+            return content;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + 16 * replacements.size());
+        int copied = 0;
+        for (Replacement replacement : replacements.values()) {
+            out.write(content, copied, replacement.start - copied);
+            out.writeBytes(replacement.text);
+            copied = replacement.end;
+        }
+        out.write(content, copied, content.length - copied);
+        return out.toByteArray();
+    }
+
+    private boolean replace(int[] range, String version) {
+        if (range == null) {
+            return false;
+        }
+        byte[] text = escape(version).getBytes(StandardCharsets.UTF_8);
+        if (equalsRange(range, text)) {
+            replacements.remove(range[0]);
+        } else {
+            replacements.put(range[0], new Replacement(range[0], range[1], text));
+        }
+        return true;
+    }
+
+    private boolean equalsRange(int[] range, byte[] text) {
+        if (range[1] - range[0] != text.length) {
+            return false;
+        }
+        for (int i = 0; i < text.length; i++) {
+            if (content[range[0] + i] != text[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks the tags of the POM, recording the text ranges of the version elements.
+     */
+    private void scan() {
+        List<String> path = new ArrayList<>();
+        int textStart = -1;
+        String groupId = null;
+        String artifactId = null;
+        int[] version = null;
+
+        int i = 0;
+        while (i < content.length) {
+            if (content[i] != '<') {
+                i++;
+                continue;
+            }
+            if (startsWith(i, "<!--")) {
+                i = skipPast(i + 4, "-->");
+            } else if (startsWith(i, "<![CDATA[")) {
+                i = skipPast(i + 9, "]]>");
+            } else if (startsWith(i, "<?")) {
+                i = skipPast(i + 2, "?>");
+            } else if (startsWith(i, "<!")) {
+                i = skipPast(i + 2, ">");
+            } else if (i + 1 < content.length && content[i + 1] == '/') {
+                int tagStart = i;
+                String name = readName(i + 2);
+                i = skipPast(i + 2, ">");
+                if (path.isEmpty() || !path.get(path.size() - 1).equals(name)) {
+                    throw new IllegalArgumentException("Unbalanced </" + name + "> at offset " + tagStart);
+                }
+
+                int section = getDependencySection(path);
+                if (name.equals("version") && path.size() == 2 && path.get(0).equals("project")) {
+                    projectVersion = trim(textStart, tagStart);
+                } else if (name.equals("version") && path.size() == 3 && isPath(path, "project", "parent")) {
+                    parentVersion = trim(textStart, tagStart);
+                } else if (path.size() == 3 && isPath(path, "project", "properties")) {
+                    properties.put(name, trim(textStart, tagStart));
+                } else if (section >= 0 && path.size() == section + 1) {
+                    int[] text = trim(textStart, tagStart);
+                    if (name.equals("groupId")) {
+                        groupId = text(text);
+                    } else if (name.equals("artifactId")) {
+                        artifactId = text(text);
+                    } else if (name.equals("version")) {
+                        version = text;
+                    }
+                } else if (name.equals("dependency") && section >= 0 && path.size() == section) {
+                    dependencies.add(new DependencyVersion(section == MANAGED_DEPENDENCIES, groupId, artifactId, version));
+                    groupId = null;
+                    artifactId = null;
+                    version = null;
+                }
+                path.remove(path.size() - 1);
+            } else {
+                String name = readName(i + 1);
+                int end = findTagEnd(i + 1);
+                if (content[end - 1] != '/') {
+                    path.add(name);
+                    textStart = end + 1;
+                }
+                i = end + 1;
+            }
+        }
+        if (!path.isEmpty()) {
+            throw new IllegalArgumentException("Unclosed <" + path.get(path.size() - 1) + ">");
+        }
+    }
+
+    /**
+     * Gets the depth of the {@code <dependency>} element the path is in or at, when that dependency belongs to the
+     * project dependencies ({@value #DEPENDENCIES}) or the dependency management ({@value #MANAGED_DEPENDENCIES}),
+     * else -1.
+     */
+    private static int getDependencySection(List<String> path) {
+        if (isPath(path, "project", "dependencies", "dependency")) {
+            return DEPENDENCIES;
+        }
+        if (isPath(path, "project", "dependencyManagement", "dependencies", "dependency")) {
+            return MANAGED_DEPENDENCIES;
+        }
+        return -1;
+    }
+
+    private static boolean isPath(List<String> path, String... names) {
+        if (path.size() < names.length) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!path.get(i).equals(names[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int offset, String prefix) {
+        if (offset + prefix.length() > content.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (content[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipPast(int from, String terminator) {
+        for (int i = from; i <= content.length - terminator.length(); i++) {
+            if (startsWith(i, terminator)) {
+                return i + terminator.length();
+            }
+        }
+        throw new IllegalArgumentException("Missing " + terminator + " after offset " + from);
+    }
+
+    /**
+     * Finds the {@code >} closing a start tag, ignoring any inside quoted attribute values.
+     */
+    private int findTagEnd(int from) {
+        byte quote = 0;
+        for (int i = from; i < content.length; i++) {
+            byte b = content[i];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unclosed tag after offset " + from);
+    }
+
+    /**
+     * Reads a tag name, dropping any namespace prefix. The names the scan looks for are returned without
+     * decoding the bytes.
+     */
+    private String readName(int from) {
+        int end = from;
+        int local = from;
+        while (end < content.length && !isNameEnd(content[end])) {
+            if (content[end] == ':') {
+                local = end + 1;
+            }
+            end++;
+        }
+        for (String name : NAMES) {
+            if (name.length() == end - local && startsWith(local, name)) {
+                return name;
+            }
+        }
+        return new String(content, local, end - local, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private int[] trim(int start, int end) {
+        while (start < end && isBlank(content[start])) {
+            start++;
+        }
+        while (end > start && isBlank(content[end - 1])) {
+            end--;
+        }
+        return new int[] { start, end };
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private String text(int[] range) {
+        return new String(content, range[0], range[1] - range[0], StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * A dependency declaration and the text range of its version.
+     */
+    private static final class DependencyVersion {
+
+        private final boolean management;
+        private final String groupId;
+        private final String artifactId;
+        private final int[] version;
+
+        private DependencyVersion(boolean management, String groupId, String artifactId, int[] version) {
+            this.management = management;
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+        }
+    }
+
+    /**
+     * New text for a range of the content.
+     */
+    private static final class Replacement {
+
+        private final int start;
+        private final int end;
+        private final byte[] text;
+
+        private Replacement(int start, int end, byte[] text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.mockholm.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The order in which a set of repositories that depend on each other can be released.
+ * <p>
+ * Each repository is added with the artifacts it builds and the artifacts it uses, as {@code groupId:artifactId}
+ * without version. A repository depends on another when it uses an artifact the other builds, through a parent,
+ * a dependency or a managed dependency. {@link #getWaves()} layers the repositories with Kahn's algorithm: the
+ * first wave holds the repositories that depend on no other, and each further wave the repositories whose
+ * upstreams are all released in earlier waves. Repositories within a wave do not depend on each other and can be
+ * released at the same time, so the train takes as many steps as the longest chain of dependencies instead of
+ * one per repository.
+ */
+public class ReleaseTrain {
+
+    /** Artifacts built by each repository, in the order the repositories were added. */
+    private final Map<String, Set<String>> artifacts = new LinkedHashMap<>();
+
+    /** Artifacts used by each repository. */
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    /** The repository building each artifact. */
+    private final Map<String, String> owners = new HashMap<>();
+
+    /**
+     * Adds a repository to the train.
+     *
+     * @param repository the repository with the artifacts it builds and uses
+     * @return this ReleaseTrain instance
+     * @throws IllegalArgumentException if the repository was already added
+     */
+    public ReleaseTrain addRepository(Repository repository) {
+        String name = repository.getName();
+        if (artifacts.containsKey(name)) {
+            throw new IllegalArgumentException("Repository added twice: " + name);
+        }
+        artifacts.put(name, repository.getArtifacts());
+        dependencies.put(name, repository.getDependencies());
+        for (String artifact : repository.getArtifacts()) {
+            String owner = owners.putIfAbsent(artifact, name);
+            if (owner != null) {
+                GitLogUtils.warn(String.format("%s is built by both %s and %s, %s is released first",
+                        artifact, owner, name, owner));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Gets the repositories of the train.
+     *
+     * @return the repositories, in the order they were added
+     */
+    public List<String> getRepositories() {
+        return new ArrayList<>(artifacts.keySet());
+    }
+
+    /**
+     * Gets the repositories a repository depends on, and why.
+     *
+     * @param repository a repository of the train
+     * @return the artifacts the repository uses from each other repository of the train, by repository
+     */
+    public Map<String, Set<String>> getUpstreams(String repository) {
+        Map<String, Set<String>> upstreams = new LinkedHashMap<>();
+        for (String dependency : dependencies.getOrDefault(repository, Collections.emptySet())) {
+            String owner = owners.get(dependency);
+            if (owner != null && !owner.equals(repository)) {
+                upstreams.computeIfAbsent(owner, key -> new LinkedHashSet<>()).add(dependency);
+            }
+        }
+        return upstreams;
+    }
+
+    /**
+     * Orders the repositories in release waves.
+     *
+     * @return the waves, each holding repositories that only depend on repositories of earlier waves, in the
+     *         order the repositories were added
+     * @throws IllegalStateException if the repositories depend on each other in a cycle, which no order can
+     *                               release
+     */
+    public List<List<String>> getWaves() {
+        Map<String, Integer> order = new HashMap<>();
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> downstreams = new HashMap<>();
+        List<String> wave = new ArrayList<>();
+        for (String repository : artifacts.keySet()) {
+            order.put(repository, order.size());
+            Set<String> upstreams = getUpstreams(repository).keySet();
+            pending.put(repository, upstreams.size());
+            for (String upstream : upstreams) {
+                downstreams.computeIfAbsent(upstream, key -> new ArrayList<>()).add(repository);
+            }
+            if (upstreams.isEmpty()) {
+                wave.add(repository);
+            }
+        }
+
+        List<List<String>> waves = new ArrayList<>();
+        int placed = 0;
+        while (!wave.isEmpty()) {
+            waves.add(wave);
+            placed += wave.size();
+            List<String> next = new ArrayList<>();
+            for (String repository : wave) {
+                for (String downstream : downstreams.getOrDefault(repository, Collections.emptyList())) {
+                    if (pending.merge(downstream, -1, Integer::sum) == 0) {
+                        next.add(downstream);
+                    }
+                }
+            }
+            next.sort(Comparator.comparing(order::get));
+            wave = next;
+        }
+
+        if (placed < artifacts.size()) {
+            Map<String, Set<String>> remaining = new LinkedHashMap<>();
+            for (String repository : artifacts.keySet()) {
+                if (pending.get(repository) > 0) {
+                    Set<String> upstreams = new LinkedHashSet<>(getUpstreams(repository).keySet());
+                    upstreams.removeIf(upstream -> pending.get(upstream) == 0);
+                    remaining.put(repository, upstreams);
+                }
+            }
+            throw new IllegalStateException("Repositories depend on each other in a cycle: "
+                    + String.join(" -> ", findCycle(remaining)));
+        }
+        return waves;
+    }
+
+    /**
+     * Finds a cycle among repositories that all still wait for an upstream.
+     *
+     * @param remaining the upstreams of each repository that could not be placed in a wave
+     * @return the repositories of one cycle, the first one repeated at the end
+     */
+    private static List<String> findCycle(Map<String, Set<String>> remaining) {
+        // every repository left has an upstream left, so following the first one must come back to a repository
+        List<String> path = new ArrayList<>();
+        Map<String, Integer> positions = new HashMap<>();
+        String current = remaining.keySet().iterator().next();
+        while (!positions.containsKey(current)) {
+            positions.put(current, path.size());
+            path.add(current);
+            current = remaining.get(current).iterator().next();
+        }
+        List<String> cycle = new ArrayList<>(path.subList(positions.get(current), path.size()));
+        cycle.add(current);
+        return cycle;
+    }
+
+    /**
+     * A repository of the train and the artifacts it builds and uses, as {@code groupId:artifactId}.
+     */
+    public static final class Repository {
+
+        private final String name;
+        private final Set<String> artifacts = new LinkedHashSet<>();
+        private final Set<String> dependencies = new LinkedHashSet<>();
+
+        /**
+         * Creates a repository that builds and uses nothing yet.
+         *
+         * @param name the repository, e.g. its URL
+         */
+        public Repository(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the name of the repository.
+         *
+         * @return the repository, e.g. its URL
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the artifacts the repository builds.
+         *
+         * @return the {@code groupId:artifactId} of every module of the repository
+         */
+        public Set<String> getArtifacts() {
+            return artifacts;
+        }
+
+        /**
+         * Gets the artifacts the repository uses.
+         *
+         * @return the {@code groupId:artifactId} of every parent and dependency its modules use
+         */
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        /**
+         * Adds an artifact the repository builds.
+         *
+         * @param groupId    the groupId
+         * @param artifactId the artifactId
+         * @return this Repository instance
+         */
+        public Repository withArtifact(String groupId, String artifactId) {
+            artifacts.add(groupId + ":" + artifactId);
+            return this;
+        }
+
+        /**
+         * Adds an artifact the repository uses.
+         *
+         * @param groupId    the groupId
+         * @param artifactId the artifactId
+         * @return this Repository instance
+         */
+        public Repository withDependency(String groupId, String artifactId) {
+            dependencies.add(groupId + ":" + artifactId);
+            return this;
+        }
+    }
+}
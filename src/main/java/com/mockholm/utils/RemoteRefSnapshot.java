@@ -0,0 +1,183 @@
+package com.mockholm.utils;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Snapshot of the branches and tags advertised by a remote, taken with a single ls-remote.
+ * <p>
+ * {@link com.mockholm.commands.GitCommand} steps use the snapshot to decide whether a branch or tag
+ * exists remotely, and whether a remote-tracking ref is already current, instead of running their own
+ * fetch or ls-remote. A snapshot is reused until its time-to-live expires or until it is invalidated
+ * after the plugin pushes to, or deletes from, the remote.
+ */
+public class RemoteRefSnapshot {
+
+    /**
+     * Lists the refs advertised by a remote, usually through {@code git ls-remote}.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * Lists the refs advertised by the remote.
+         *
+         * @return the advertised refs
+         * @throws GitAPIException if the remote cannot be listed
+         */
+        Collection<Ref> load() throws GitAPIException;
+    }
+
+    /** Refs advertised by each remote, keyed by remote name. */
+    private final Map<String, Map<String, Ref>> refsByRemote = new HashMap<>();
+
+    /** The {@link System#nanoTime()} at which each remote was listed. */
+    private final Map<String, Long> takenAt = new HashMap<>();
+
+    /** Refs fetched during this execution and the ids they were fetched at, keyed by remote name. */
+    private final Map<String, Map<String, ObjectId>> fetchedByRemote = new HashMap<>();
+
+    /** How long a listing stays valid. */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /** Number of times a remote had to be listed. */
+    private int roundTrips;
+
+    /** Number of lookups answered from an existing listing. */
+    private int hits;
+
+    /**
+     * Sets how long a listing stays valid. A zero or negative duration lists the remote on every lookup.
+     *
+     * @param ttl the time-to-live
+     */
+    public synchronized void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * Gets the refs advertised by the remote, listing it only when there is no valid listing.
+     *
+     * @param remote the remote name
+     * @param loader lists the remote when the cached listing is missing or expired
+     * @return the advertised refs keyed by their full name
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    public synchronized Map<String, Ref> getRefs(String remote, Loader loader) throws GitAPIException {
+        Map<String, Ref> refs = refsByRemote.get(remote);
+        Long listedAt = takenAt.get(remote);
+        if (refs != null && listedAt != null && System.nanoTime() - listedAt < ttl.toNanos()) {
+            hits++;
+            return refs;
+        }
+
+        Map<String, Ref> loaded = new HashMap<>();
+        for (Ref ref : loader.load()) {
+            loaded.put(ref.getName(), ref);
+        }
+        refs = Collections.unmodifiableMap(loaded);
+        refsByRemote.put(remote, refs);
+        takenAt.put(remote, System.nanoTime());
+        roundTrips++;
+        return refs;
+    }
+
+    /**
+     * Gets the object id the remote advertises for the given ref.
+     *
+     * @param remote  the remote name
+     * @param refName the full ref name, e.g. {@code refs/heads/develop}
+     * @param loader  lists the remote when needed
+     * @return the advertised object id, or empty if the remote does not have the ref
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    public Optional<ObjectId> getObjectId(String remote, String refName, Loader loader) throws GitAPIException {
+        return Optional.ofNullable(getRefs(remote, loader).get(refName))
+                .map(Ref::getObjectId);
+    }
+
+    /**
+     * Checks whether the remote has the given branch.
+     *
+     * @param remote the remote name
+     * @param branch the short branch name
+     * @param loader lists the remote when needed
+     * @return true if the remote advertises {@code refs/heads/<branch>}
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    public boolean hasBranch(String remote, String branch, Loader loader) throws GitAPIException {
+        return getRefs(remote, loader).containsKey("refs/heads/" + branch);
+    }
+
+    /**
+     * Checks whether the remote has the given tag.
+     *
+     * @param remote the remote name
+     * @param tag    the short tag name
+     * @param loader lists the remote when needed
+     * @return true if the remote advertises {@code refs/tags/<tag>}
+     * @throws GitAPIException if the remote cannot be listed
+     */
+    public boolean hasTag(String remote, String tag, Loader loader) throws GitAPIException {
+        return getRefs(remote, loader).containsKey("refs/tags/" + tag);
+    }
+
+    /**
+     * Records that a ref was fetched from the remote at the given id, so later steps
+     * can skip fetching it again.
+     *
+     * @param remote  the remote name
+     * @param refName the full ref name
+     * @param id      the id the ref was fetched at
+     */
+    public synchronized void markFetched(String remote, String refName, ObjectId id) {
+        fetchedByRemote.computeIfAbsent(remote, key -> new HashMap<>()).put(refName, id);
+    }
+
+    /**
+     * Gets the id a ref was fetched at during this execution.
+     *
+     * @param remote  the remote name
+     * @param refName the full ref name
+     * @return the fetched id, or empty if the ref has not been fetched since the last invalidation
+     */
+    public synchronized Optional<ObjectId> getFetched(String remote, String refName) {
+        return Optional.ofNullable(fetchedByRemote.getOrDefault(remote, Collections.emptyMap()).get(refName));
+    }
+
+    /**
+     * Drops every listing and fetch record, so the next lookup lists the remote again.
+     * Called after the plugin changes refs on the remote.
+     */
+    public synchronized void invalidateAll() {
+        refsByRemote.clear();
+        takenAt.clear();
+        fetchedByRemote.clear();
+    }
+
+    /**
+     * Returns how many times a remote was listed.
+     *
+     * @return the number of ls-remote round trips
+     */
+    public synchronized int getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * Returns how many lookups were answered without contacting the remote.
+     *
+     * @return the number of snapshot hits
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+}
@@ -1,6 +1,6 @@
 package com.mockholm.utils;
 
-
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 /**
@@ -9,8 +9,13 @@ import java.util.regex.Pattern;
  * <p>
  * This class supports parsing and rendering of semantic versions compliant with
  * the Semantic Versioning 2.0.0 specification.
+ * <p>
+ * Versions are ordered by semver precedence: major, minor and patch numerically, then a version with a
+ * pre-release before the same version without one, pre-release identifiers compared dot by dot (numeric
+ * identifiers numerically and below alphanumeric ones). Build metadata does not take part in the ordering,
+ * nor in {@link #equals(Object)}.
  */
-public class SemanticVersion {
+public class SemanticVersion implements Comparable<SemanticVersion> {
     /**
      * Regular expression pattern for parsing semantic version components.
      * Captures major, minor, patch, optional pre-release, and build segments.
@@ -80,6 +85,113 @@ public class SemanticVersion {
         return new SemanticVersion(major, minor, patch, preRelease, build);
     }
 
+    /**
+     * Parses a semantic version string, returning {@code null} instead of throwing when it is not one.
+     *
+     * @param version the version string to parse
+     * @return the parsed version, or {@code null} if the input does not match the expected format
+     */
+    public static SemanticVersion tryParse(String version) {
+        if (version == null || version.isEmpty() || !Character.isDigit(version.charAt(0))) {
+            return null;
+        }
+        try {
+            return parse(version);
+        } catch (IllegalArgumentException e) {
+            // also covers numbers too large for an int
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether this version carries a pre-release label.
+     *
+     * @return true for versions such as {@code 1.2.0-rc.1}
+     */
+    public boolean isPreRelease() {
+        return preRelease != null && !preRelease.isEmpty();
+    }
+
+    /**
+     * Compares two versions by semver precedence.
+     *
+     * @param other the version to compare with
+     * @return a negative number, zero or a positive number as this version is lower than, equal to or higher than the other
+     */
+    @Override
+    public int compareTo(SemanticVersion other) {
+        int result = Integer.compare(major, other.major);
+        if (result == 0) {
+            result = Integer.compare(minor, other.minor);
+        }
+        if (result == 0) {
+            result = Integer.compare(patch, other.patch);
+        }
+        if (result != 0) {
+            return result;
+        }
+        if (!isPreRelease() || !other.isPreRelease()) {
+            // the release itself ranks above its pre-releases
+            return Boolean.compare(!isPreRelease(), !other.isPreRelease());
+        }
+        return comparePreRelease(preRelease, other.preRelease);
+    }
+
+    /**
+     * Checks whether two versions have the same precedence; build metadata is ignored.
+     *
+     * @param o the object to compare with
+     * @return true if the other object is a version of the same precedence
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof SemanticVersion && compareTo((SemanticVersion) o) == 0);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(major, minor, patch, isPreRelease() ? preRelease : null);
+    }
+
+    private static int comparePreRelease(String left, String right) {
+        String[] leftIds = left.split("\\.");
+        String[] rightIds = right.split("\\.");
+        for (int i = 0; i < Math.min(leftIds.length, rightIds.length); i++) {
+            boolean leftNumeric = isNumeric(leftIds[i]);
+            boolean rightNumeric = isNumeric(rightIds[i]);
+            int result;
+            if (leftNumeric && rightNumeric) {
+                // compare by length first so identifiers of any size are ordered numerically
+                result = Integer.compare(leftIds[i].length(), rightIds[i].length());
+                if (result == 0) {
+                    result = leftIds[i].compareTo(rightIds[i]);
+                }
+            } else if (leftNumeric != rightNumeric) {
+                result = leftNumeric ? -1 : 1;
+            } else {
+                result = leftIds[i].compareTo(rightIds[i]);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(leftIds.length, rightIds.length);
+    }
+
+    private static boolean isNumeric(String identifier) {
+        for (int i = 0; i < identifier.length(); i++) {
+            if (!Character.isDigit(identifier.charAt(i))) {
+                return false;
+            }
+        }
+        return !identifier.isEmpty();
+    }
+
     /**
      * Returns the full semantic version string assembled from its components.
      *
@@ -0,0 +1,218 @@
+package com.mockholm.utils;
+
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FtpChannel;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.RemoteSession2;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.transport.sshd.SshdSession;
+import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
+import org.eclipse.jgit.util.FS;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * An {@link SshSessionFactory} that keeps authenticated SSH sessions open for the whole mojo execution.
+ * <p>
+ * JGit asks its session factory for a session on every fetch, push and ls-remote, and normally
+ * disconnects it again when the transport closes. This pool builds one {@link SshdSessionFactory} per
+ * server id and hands out the same session for every request to the same {@code user@host:port}, so the
+ * key exchange and authentication run once. Each git command runs on its own channel of that session.
+ * Connections are opened outside the pool's lock, so a slow handshake to one server does not hold up
+ * requests for the others. A session the server closed is reconnected before the next command is sent;
+ * a command that fails once sent is never run again, since it may have reached the server.
+ * Sessions are disconnected by {@link #closeAll()}, which {@link GitRepositoryRegistry#closeAll} calls when
+ * the mojo execution ends.
+ */
+public class SshSessionPool extends SshSessionFactory {
+
+    /** Pools keyed by the server id from settings.xml. */
+    private static final Map<String, SshSessionPool> pools = new LinkedHashMap<>();
+
+    /** The factory that performs the actual connection and authentication. */
+    private final SshdSessionFactory delegate;
+
+    /** Open sessions keyed by {@code user@host:port}. */
+    private final Map<String, PooledSession> sessions = new LinkedHashMap<>();
+
+    /** Number of SSH handshakes performed. */
+    private final AtomicInteger handshakes = new AtomicInteger();
+
+    /** Number of session requests answered with an already authenticated session. */
+    private final AtomicInteger reuses = new AtomicInteger();
+
+    private SshSessionPool(SshdSessionFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Gets the pool for the given server id, creating its {@link SshdSessionFactory} on first use.
+     *
+     * @param serverId the server id, used only as the cache key
+     * @param factory  builds the session factory when the server id has no pool yet
+     * @return the shared pool for the server id
+     */
+    public static synchronized SshSessionPool get(String serverId, Supplier<SshdSessionFactory> factory) {
+        String key = serverId == null ? "default" : serverId;
+        return pools.computeIfAbsent(key, id -> new SshSessionPool(factory.get()));
+    }
+
+    /**
+     * Disconnects every pooled session, closes the underlying factories and logs how many
+     * handshakes were performed and saved per server id.
+     */
+    public static synchronized void closeAll() {
+        for (Map.Entry<String, SshSessionPool> entry : pools.entrySet()) {
+            SshSessionPool pool = entry.getValue();
+            pool.disconnectAll();
+            GitLogUtils.info(String.format("SSH sessions for server %s: %d handshakes performed, %d saved",
+                    entry.getKey(), pool.getHandshakes(), pool.getReuses()));
+        }
+        pools.clear();
+    }
+
+    @Override
+    public RemoteSession getSession(URIish uri, CredentialsProvider credentialsProvider,
+                                    FS fs, int tms) throws TransportException {
+        String key = String.format("%s@%s:%d", uri.getUser(), uri.getHost(), uri.getPort());
+        PooledSession session;
+        synchronized (this) {
+            session = sessions.computeIfAbsent(key, k -> new PooledSession(uri, credentialsProvider, fs, tms));
+        }
+        // connecting only locks the session, requests for other servers go on meanwhile
+        if (!session.ensureConnected()) {
+            reuses.incrementAndGet();
+        }
+        return session;
+    }
+
+    @Override
+    public String getType() {
+        return delegate.getType();
+    }
+
+    /**
+     * Keeps the session open so the next git command can reuse it.
+     *
+     * @param session the session JGit is done with
+     */
+    @Override
+    public void releaseSession(RemoteSession session) {
+        // sessions are disconnected in closeAll
+    }
+
+    /**
+     * Returns how many SSH handshakes this pool performed.
+     *
+     * @return the handshake count
+     */
+    public int getHandshakes() {
+        return handshakes.get();
+    }
+
+    /**
+     * Returns how many handshakes were saved by reusing an open session.
+     *
+     * @return the reuse count
+     */
+    public int getReuses() {
+        return reuses.get();
+    }
+
+    private synchronized void disconnectAll() {
+        for (PooledSession session : sessions.values()) {
+            session.disconnect();
+        }
+        sessions.clear();
+        delegate.close();
+    }
+
+    /**
+     * A pooled session that connects on first use, and again when the server closed the connection since the
+     * previous command. Guarded by its own monitor.
+     */
+    private class PooledSession implements RemoteSession2 {
+
+        private final URIish uri;
+        private final CredentialsProvider credentialsProvider;
+        private final FS fs;
+        private final int tms;
+        private RemoteSession session;
+
+        /** Set by the session's close listener when the connection is gone. */
+        private volatile boolean closed;
+
+        PooledSession(URIish uri, CredentialsProvider credentialsProvider, FS fs, int tms) {
+            this.uri = uri;
+            this.credentialsProvider = credentialsProvider;
+            this.fs = fs;
+            this.tms = tms;
+        }
+
+        /**
+         * Connects the session unless it is open.
+         *
+         * @return true if a handshake was performed
+         * @throws TransportException if the connection or authentication fails
+         */
+        synchronized boolean ensureConnected() throws TransportException {
+            if (session != null && !closed) {
+                return false;
+            }
+            if (session != null) {
+                session.disconnect();
+                session = null;
+            }
+            handshakes.incrementAndGet();
+            RemoteSession connected = delegate.getSession(uri, credentialsProvider, fs, tms);
+            closed = false;
+            if (connected instanceof SshdSession) {
+                ((SshdSession) connected).addCloseListener(s -> closed = true);
+            }
+            session = connected;
+            return true;
+        }
+
+        @Override
+        public Process exec(String commandName, int timeout) throws IOException {
+            return getOpenSession().exec(commandName, timeout);
+        }
+
+        @Override
+        public Process exec(String commandName, Map<String, String> environment, int timeout) throws IOException {
+            RemoteSession open = getOpenSession();
+            if (!(open instanceof RemoteSession2)) {
+                return open.exec(commandName, timeout);
+            }
+            return ((RemoteSession2) open).exec(commandName, environment, timeout);
+        }
+
+        @Override
+        public FtpChannel getFtpChannel() {
+            return session.getFtpChannel();
+        }
+
+        @Override
+        public synchronized void disconnect() {
+            if (session != null) {
+                session.disconnect();
+                session = null;
+            }
+        }
+
+        /**
+         * Gets the session, reconnecting first if the server closed it. Nothing has been sent at this point,
+         * so reconnecting cannot run a command twice.
+         */
+        private synchronized RemoteSession getOpenSession() throws TransportException {
+            ensureConnected();
+            return session;
+        }
+    }
+}
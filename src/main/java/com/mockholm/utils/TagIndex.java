@@ -0,0 +1,507 @@
+package com.mockholm.utils;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.internal.storage.file.LockFile;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the repository's tags by the {@link SemanticVersion} in their names, with the commit each tag peels to.
+ * <p>
+ * The index is stored in {@code mutatio/tag-index} inside the Git directory, one line per tag holding its name,
+ * the object the ref points at and the peeled commit, followed by one {@code branch} line per branch entry.
+ * {@link #open(Repository)} lists the tag refs and only peels tags that are new or point somewhere else since the
+ * index was written; deleted tags are dropped, and any change to the tags drops the branch entries.
+ * The tag names are parsed once, when a tag enters the index. Releases are kept in sorted maps, so
+ * {@link #getPreviousRelease(String, SemanticVersion)}, {@link #getLatestRelease(String)} and
+ * {@link #getReleases(String)} are lookups that read no commits, and the order follows the versions rather than
+ * the time the tags happened to be made. The index also keeps, per branch, the latest release the branch contains
+ * with the tip it was found for, so {@link #getLatestRelease(Repository, String, String)} reads no commits while
+ * the branch and the tags stay as they are, and only the new commits when the branch moved forward.
+ * <p>
+ * The version of a tag is read from its name starting at the first digit that begins a version, and the part
+ * before it is the tag's prefix, e.g. {@code release-} for {@code release-1.2.0} or {@code v} for {@code v1.2.0}.
+ * Each prefix is a separate release line, so tags of other tooling such as {@code build-1.2.0} never stand in
+ * for a release. Tags whose name holds no version, or that do not point at a commit, are remembered so they
+ * are not peeled again, but are not releases. Pre-release versions are indexed but are not returned by the
+ * release lookups. When several tags of a prefix carry the same version, the one with the smallest name wins.
+ */
+public class TagIndex {
+
+    /** Path of the index, relative to the Git directory. */
+    static final String FILE = "mutatio/tag-index";
+
+    /** Format version written to the index; an index with another version is rebuilt. */
+    private static final String VERSION = "2";
+
+    /** Written instead of the commit for tags that are not releases. */
+    private static final String NO_COMMIT = "-";
+
+    /** Written instead of the prefix of a branch entry that considers every prefix. */
+    private static final String ALL_PREFIXES = "*";
+
+    /** Starts the lines of branch entries. */
+    private static final String BRANCH = "branch";
+
+    private final Map<String, Tag> tags = new HashMap<>();
+    private final Map<String, NavigableMap<SemanticVersion, Tag>> versions = new HashMap<>();
+    private final Map<String, NavigableMap<SemanticVersion, Tag>> releases = new HashMap<>();
+    private final Map<String, BranchEntry> branches = new HashMap<>();
+
+    private TagIndex() {
+    }
+
+    /**
+     * Loads the stored index of the repository and brings it up to date with the current tags,
+     * writing it back if any tag was added, moved or deleted.
+     *
+     * @param repository the repository
+     * @return the current index
+     * @throws IOException if the tags cannot be read or peeled
+     */
+    public static TagIndex open(Repository repository) throws IOException {
+        TagIndex index = load(repository);
+        if (index.update(repository)) {
+            // any added, moved or deleted tag may change the latest release of any branch
+            index.branches.clear();
+            try {
+                index.save(repository);
+            } catch (IOException e) {
+                // the index is only a cache, the lookups are still answered from memory
+                GitLogUtils.warn("Unable to write tag index: " + e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gets the highest release lower than the given version, skipping pre-releases.
+     *
+     * @param prefix  the tag prefix, e.g. {@code release-}, or {@code null} to consider every prefix
+     * @param version the version, which does not need to be tagged
+     * @return the previous release, or {@code null} if there is none
+     */
+    public Tag getPreviousRelease(String prefix, SemanticVersion version) {
+        Tag previous = null;
+        for (NavigableMap<SemanticVersion, Tag> line : getLines(prefix)) {
+            Map.Entry<SemanticVersion, Tag> lower = line.lowerEntry(version);
+            if (lower != null && (previous == null || lower.getKey().compareTo(previous.version) > 0)) {
+                previous = lower.getValue();
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Gets the highest release.
+     *
+     * @param prefix the tag prefix, e.g. {@code release-}, or {@code null} to consider every prefix
+     * @return the latest release, or {@code null} if no tag is a release
+     */
+    public Tag getLatestRelease(String prefix) {
+        Tag latest = null;
+        for (NavigableMap<SemanticVersion, Tag> line : getLines(prefix)) {
+            Tag last = line.lastEntry().getValue();
+            if (latest == null || last.version.compareTo(latest.version) > 0) {
+                latest = last;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Gets the highest release contained in a branch.
+     * <p>
+     * The answer is kept in the index with the tip of the branch it was found for. While the tip and the tags do
+     * not change, the lookup reads no commits. When the branch moved forward, only the commits added since are
+     * walked; otherwise, e.g. after a rewrite or once tags changed, the history of the branch is walked once,
+     * without commit bodies, looking every commit up among the releases.
+     *
+     * @param repository the repository
+     * @param prefix     the tag prefix, e.g. {@code release-}, or {@code null} to consider every prefix
+     * @param branch     the branch or any other ref
+     * @return the latest release contained in the branch, or {@code null} if there is none
+     * @throws IOException if the branch cannot be resolved or its history cannot be read
+     */
+    public Tag getLatestRelease(Repository repository, String prefix, String branch) throws IOException {
+        ObjectId tip = repository.resolve(branch + "^{commit}");
+        if (tip == null) {
+            return null;
+        }
+        BranchEntry known = branches.get(getBranchKey(branch, prefix));
+        if (known != null && known.tip.equals(tip)) {
+            return known.release == null ? null : tags.get(known.release);
+        }
+
+        Map<ObjectId, Tag> byCommit = new HashMap<>();
+        for (Tag release : getReleases(prefix)) {
+            byCommit.merge(release.commit, release, (a, b) -> a.version.compareTo(b.version) >= 0 ? a : b);
+        }
+        Tag latest = null;
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            RevCommit head = walk.parseCommit(tip);
+            RevCommit base = known == null ? null : parseCommitIfPresent(walk, known.tip);
+            boolean forward = base != null && walk.isMergedInto(base, head);
+            walk.reset();
+            walk.markStart(head);
+            if (forward) {
+                latest = known.release == null ? null : tags.get(known.release);
+                walk.markUninteresting(base);
+            }
+            for (RevCommit commit : walk) {
+                Tag release = byCommit.get(commit);
+                if (release != null && (latest == null || release.version.compareTo(latest.version) > 0)) {
+                    latest = release;
+                }
+            }
+        }
+
+        branches.put(getBranchKey(branch, prefix),
+                new BranchEntry(branch, prefix, tip.copy(), latest == null ? null : latest.name));
+        try {
+            save(repository);
+        } catch (IOException e) {
+            GitLogUtils.warn("Unable to write tag index: " + e.getMessage());
+        }
+        return latest;
+    }
+
+    private static RevCommit parseCommitIfPresent(RevWalk walk, ObjectId id) throws IOException {
+        try {
+            return walk.parseCommit(id);
+        } catch (MissingObjectException e) {
+            return null;
+        }
+    }
+
+    private static String getBranchKey(String branch, String prefix) {
+        return branch + " " + (prefix == null ? ALL_PREFIXES : "=" + prefix);
+    }
+
+    /**
+     * Lists the releases of a prefix, lowest version first.
+     *
+     * @param prefix the tag prefix, e.g. {@code release-}, or {@code null} for the releases of every prefix
+     * @return the releases, skipping pre-releases
+     */
+    public List<Tag> getReleases(String prefix) {
+        List<Tag> matching = new ArrayList<>();
+        for (NavigableMap<SemanticVersion, Tag> line : getLines(prefix)) {
+            matching.addAll(line.values());
+        }
+        if (prefix == null) {
+            matching.sort((a, b) -> a.version.compareTo(b.version));
+        }
+        return matching;
+    }
+
+    /**
+     * Reads the version from a tag name: the tail of the name, starting at the first digit that does not
+     * continue a number, that is a semantic version.
+     *
+     * @param tagName the short tag name
+     * @return the version, or {@code null} if the name holds none
+     */
+    public static SemanticVersion parseVersion(String tagName) {
+        int start = getVersionStart(tagName);
+        return start < 0 ? null : SemanticVersion.parse(tagName.substring(start));
+    }
+
+    /**
+     * Gets the part of a tag name before its version.
+     *
+     * @param tagName the short tag name
+     * @return the prefix, e.g. {@code release-} for {@code release-1.2.0}, or {@code null} if the name holds no version
+     */
+    public static String getPrefix(String tagName) {
+        int start = getVersionStart(tagName);
+        return start < 0 ? null : tagName.substring(0, start);
+    }
+
+    private static int getVersionStart(String tagName) {
+        for (int i = 0; i < tagName.length(); i++) {
+            if (isVersionStart(tagName, i) && SemanticVersion.tryParse(tagName.substring(i)) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isVersionStart(String tagName, int i) {
+        return Character.isDigit(tagName.charAt(i))
+                && (i == 0 || (!Character.isDigit(tagName.charAt(i - 1)) && tagName.charAt(i - 1) != '.'));
+    }
+
+    private Collection<NavigableMap<SemanticVersion, Tag>> getLines(String prefix) {
+        if (prefix == null) {
+            return releases.values();
+        }
+        NavigableMap<SemanticVersion, Tag> line = releases.get(prefix);
+        return line == null ? List.of() : List.of(line);
+    }
+
+    /**
+     * Brings the index up to date with the tag refs, peeling only tags that changed.
+     *
+     * @return true if any tag was added, moved or deleted
+     */
+    private boolean update(Repository repository) throws IOException {
+        Map<String, Tag> stale = new HashMap<>(tags);
+        boolean changed = false;
+        try (ObjectReader reader = repository.newObjectReader()) {
+            for (Ref ref : repository.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+                String name = Repository.shortenRefName(ref.getName());
+                Tag known = stale.remove(name);
+                if (known != null && known.object.equals(ref.getObjectId())) {
+                    continue;
+                }
+                if (known != null) {
+                    remove(known);
+                }
+                add(newTag(name, ref.getObjectId().copy(), peel(repository, reader, ref)));
+                changed = true;
+            }
+        }
+        for (Tag deleted : stale.values()) {
+            remove(deleted);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the commit a tag ref points at, using the peeled id recorded in {@code packed-refs} when there is one.
+     *
+     * @return the commit, or {@code null} if the tag holds no version or does not point at a commit
+     */
+    private static ObjectId peel(Repository repository, ObjectReader reader, Ref ref) throws IOException {
+        if (getVersionStart(Repository.shortenRefName(ref.getName())) < 0) {
+            return null;
+        }
+        Ref peeled = ref.isPeeled() ? ref : repository.getRefDatabase().peel(ref);
+        ObjectId target = peeled.getPeeledObjectId() != null ? peeled.getPeeledObjectId() : peeled.getObjectId();
+        if (!reader.has(target) || reader.open(target).getType() != Constants.OBJ_COMMIT) {
+            return null;
+        }
+        return target.copy();
+    }
+
+    private static Tag newTag(String name, ObjectId object, ObjectId commit) {
+        for (int i = 0; commit != null && i < name.length(); i++) {
+            SemanticVersion version = isVersionStart(name, i) ? SemanticVersion.tryParse(name.substring(i)) : null;
+            if (version != null) {
+                return new Tag(name, object, commit, name.substring(0, i), version);
+            }
+        }
+        return new Tag(name, object, null, null, null);
+    }
+
+    private void add(Tag tag) {
+        tags.put(tag.name, tag);
+        if (tag.version == null) {
+            return;
+        }
+        NavigableMap<SemanticVersion, Tag> line = versions.computeIfAbsent(tag.prefix, key -> new TreeMap<>());
+        Tag other = line.get(tag.version);
+        if (other == null || tag.name.compareTo(other.name) < 0) {
+            line.put(tag.version, tag);
+            if (!tag.version.isPreRelease()) {
+                releases.computeIfAbsent(tag.prefix, key -> new TreeMap<>()).put(tag.version, tag);
+            }
+        }
+    }
+
+    private void remove(Tag tag) {
+        tags.remove(tag.name);
+        if (tag.version == null || versions.get(tag.prefix).get(tag.version) != tag) {
+            return;
+        }
+        versions.get(tag.prefix).remove(tag.version);
+        NavigableMap<SemanticVersion, Tag> line = releases.get(tag.prefix);
+        if (line != null) {
+            line.remove(tag.version);
+            if (line.isEmpty()) {
+                releases.remove(tag.prefix);
+            }
+        }
+        // another tag of the prefix with the same version may take its place
+        for (Tag other : tags.values()) {
+            if (tag.prefix.equals(other.prefix) && tag.version.equals(other.version)) {
+                add(other);
+            }
+        }
+    }
+
+    private static TagIndex load(Repository repository) {
+        TagIndex index = new TagIndex();
+        File file = new File(repository.getDirectory(), FILE);
+        if (!file.isFile()) {
+            return index;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!("version=" + VERSION).equals(reader.readLine())) {
+                return new TagIndex();
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ");
+                if (fields.length == 5 && BRANCH.equals(fields[0])) {
+                    String prefix = ALL_PREFIXES.equals(fields[2]) ? null : fields[2].substring(1);
+                    index.branches.put(getBranchKey(fields[1], prefix), new BranchEntry(fields[1], prefix,
+                            ObjectId.fromString(fields[3]), NO_COMMIT.equals(fields[4]) ? null : fields[4]));
+                    continue;
+                }
+                if (fields.length != 3) {
+                    throw new IllegalArgumentException("Malformed line: " + line);
+                }
+                ObjectId commit = NO_COMMIT.equals(fields[2]) ? null : ObjectId.fromString(fields[2]);
+                index.add(newTag(fields[0], ObjectId.fromString(fields[1]), commit));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            GitLogUtils.warn("Rebuilding unreadable tag index " + file + ": " + e.getMessage());
+            return new TagIndex();
+        }
+        return index;
+    }
+
+    private void save(Repository repository) throws IOException {
+        File file = new File(repository.getDirectory(), FILE);
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Cannot create " + file.getParentFile());
+        }
+        LockFile lock = new LockFile(file);
+        if (!lock.lock()) {
+            throw new IOException("Cannot lock " + file);
+        }
+        try {
+            try (BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(lock.getOutputStream(), StandardCharsets.UTF_8))) {
+                writer.write("version=" + VERSION + "\n");
+                for (Tag tag : tags.values()) {
+                    writer.write(tag.name + " " + tag.object.name() + " "
+                            + (tag.commit == null ? NO_COMMIT : tag.commit.name()) + "\n");
+                }
+                for (BranchEntry entry : branches.values()) {
+                    writer.write(BRANCH + " " + entry.branch + " "
+                            + (entry.prefix == null ? ALL_PREFIXES : "=" + entry.prefix) + " " + entry.tip.name()
+                            + " " + (entry.release == null ? NO_COMMIT : entry.release) + "\n");
+                }
+            }
+            if (!lock.commit()) {
+                throw new IOException("Cannot commit " + file);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The latest release found in a branch, for the tip the branch had then.
+     */
+    private static final class BranchEntry {
+
+        private final String branch;
+        private final String prefix;
+        private final ObjectId tip;
+        private final String release;
+
+        private BranchEntry(String branch, String prefix, ObjectId tip, String release) {
+            this.branch = branch;
+            this.prefix = prefix;
+            this.tip = tip;
+            this.release = release;
+        }
+    }
+
+    /**
+     * A tag in the index.
+     */
+    public static final class Tag {
+
+        private final String name;
+        private final ObjectId object;
+        private final ObjectId commit;
+        private final String prefix;
+        private final SemanticVersion version;
+
+        private Tag(String name, ObjectId object, ObjectId commit, String prefix, SemanticVersion version) {
+            this.name = name;
+            this.object = object;
+            this.commit = commit;
+            this.prefix = prefix;
+            this.version = version;
+        }
+
+        /**
+         * Gets the short tag name.
+         *
+         * @return the name, e.g. {@code release-1.2.0}
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the object the tag ref points at: the tag object of an annotated tag, else the commit.
+         *
+         * @return the object id
+         */
+        public ObjectId getObjectId() {
+            return object;
+        }
+
+        /**
+         * Gets the commit the tag peels to.
+         *
+         * @return the commit id, or {@code null} if the tag is not a release
+         */
+        public ObjectId getCommitId() {
+            return commit;
+        }
+
+        /**
+         * Gets the part of the tag name before the version.
+         *
+         * @return the prefix, e.g. {@code release-}, or {@code null} if the tag is not a release
+         */
+        public String getPrefix() {
+            return prefix;
+        }
+
+        /**
+         * Gets the version in the tag name.
+         *
+         * @return the version, or {@code null} if the tag is not a release
+         */
+        public SemanticVersion getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
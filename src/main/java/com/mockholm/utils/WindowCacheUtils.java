@@ -0,0 +1,152 @@
+package com.mockholm.utils;
+
+import com.mockholm.config.PackCacheConfiguration;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+import org.eclipse.jgit.util.StringUtils;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Sizes and installs JGit's process-wide pack window cache.
+ * <p>
+ * JGit's defaults (a 10 MiB packed git limit, 8 KiB windows and no memory mapping) suit small
+ * repositories, but make revision walks and checkouts on multi-gigabyte packs re-read the same
+ * windows over and over. Values the user did not set are derived from the total pack size of the
+ * repository and the maximum JVM heap.
+ */
+public class WindowCacheUtils {
+
+    /** Packs at least this large are read through 64 KiB windows. */
+    private static final long LARGE_PACK = 64L * WindowCacheConfig.MB;
+
+    /** Packs at least this large are read through 1 MiB windows. */
+    private static final long HUGE_PACK = 1024L * WindowCacheConfig.MB;
+
+    private WindowCacheUtils() {
+    }
+
+    /**
+     * Builds the cache configuration for the given repository and installs it.
+     * The hit and miss counters are reset so {@link #logStats()} reports on this execution only.
+     *
+     * @param configuration the user's settings; unset values are auto-sized
+     * @param repository    the repository whose packs are measured
+     * @return the installed configuration
+     */
+    public static WindowCacheConfig install(PackCacheConfiguration configuration, Repository repository) {
+        long packBytes = getPackSize(repository);
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        WindowCacheConfig cacheConfig = resolve(configuration, packBytes, maxHeap);
+        cacheConfig.install();
+        WindowCacheStats.getStats().resetCounters();
+
+        GitLogUtils.info(String.format(
+                "Pack cache: packedGitLimit=%s, windowSize=%s, mmap=%s, deltaBaseCacheLimit=%s, "
+                        + "streamFileThreshold=%s (packs %s, max heap %s)",
+                StringUtils.formatWithSuffix(cacheConfig.getPackedGitLimit()),
+                StringUtils.formatWithSuffix(cacheConfig.getPackedGitWindowSize()),
+                cacheConfig.isPackedGitMMAP(),
+                StringUtils.formatWithSuffix(cacheConfig.getDeltaBaseCacheLimit()),
+                StringUtils.formatWithSuffix(cacheConfig.getStreamFileThreshold()),
+                StringUtils.formatWithSuffix(packBytes),
+                StringUtils.formatWithSuffix(maxHeap)));
+        return cacheConfig;
+    }
+
+    /**
+     * Builds a cache configuration from the user's settings, sizing every unset value
+     * from the pack size and heap.
+     *
+     * @param configuration the user's settings, or {@code null} to auto-size everything
+     * @param packBytes     the total size of the repository's pack files
+     * @param maxHeap       the maximum JVM heap
+     * @return the cache configuration, not yet installed
+     * @throws IllegalArgumentException if a size cannot be parsed
+     */
+    public static WindowCacheConfig resolve(PackCacheConfiguration configuration, long packBytes, long maxHeap) {
+        PackCacheConfiguration settings = Optional.ofNullable(configuration).orElseGet(PackCacheConfiguration::new);
+        WindowCacheConfig defaults = new WindowCacheConfig();
+        WindowCacheConfig cacheConfig = new WindowCacheConfig();
+
+        // Packs that do not fit in a quarter of the heap are mapped instead of copied onto it
+        boolean mmap = Optional.ofNullable(settings.getPackedGitMMAP())
+                .orElse(packBytes > maxHeap / 4);
+        cacheConfig.setPackedGitMMAP(mmap);
+
+        long autoLimit = mmap ? packBytes : Math.min(packBytes, maxHeap / 4);
+        cacheConfig.setPackedGitLimit(parseSize(settings.getPackedGitLimit(), "packedGitLimit")
+                .orElse(Math.max(defaults.getPackedGitLimit(), autoLimit)));
+
+        int autoWindow = packBytes >= HUGE_PACK ? WindowCacheConfig.MB
+                : packBytes >= LARGE_PACK ? 64 * WindowCacheConfig.KB
+                : defaults.getPackedGitWindowSize();
+        int windowSize = parseSize(settings.getPackedGitWindowSize(), "packedGitWindowSize")
+                .map(WindowCacheUtils::toInt)
+                .orElse(autoWindow);
+        // the window cannot be larger than the cache that holds it
+        cacheConfig.setPackedGitWindowSize((int) Math.min(windowSize, cacheConfig.getPackedGitLimit()));
+
+        long autoDeltaBase = Math.min(packBytes / 32, maxHeap / 16);
+        cacheConfig.setDeltaBaseCacheLimit(parseSize(settings.getDeltaBaseCacheLimit(), "deltaBaseCacheLimit")
+                .map(WindowCacheUtils::toInt)
+                .orElse(toInt(Math.max(defaults.getDeltaBaseCacheLimit(), autoDeltaBase))));
+
+        long autoThreshold = Math.min(maxHeap / 8, 1024L * WindowCacheConfig.MB);
+        cacheConfig.setStreamFileThreshold(parseSize(settings.getStreamFileThreshold(), "streamFileThreshold")
+                .map(WindowCacheUtils::toInt)
+                .orElse(toInt(Math.max(defaults.getStreamFileThreshold(), autoThreshold))));
+
+        return cacheConfig;
+    }
+
+    /**
+     * Logs the pack window cache hit ratio since the cache was installed.
+     */
+    public static void logStats() {
+        WindowCacheStats stats = WindowCacheStats.getStats();
+        if (stats.getRequestCount() == 0) {
+            return;
+        }
+        GitLogUtils.info(String.format("Pack cache: %.1f%% hit ratio (%d hits, %d misses, %d evictions)",
+                stats.getHitRatio() * 100, stats.getHitCount(), stats.getMissCount(), stats.getEvictionCount()));
+    }
+
+    /**
+     * Sums the size of the pack files in the repository's object directory.
+     *
+     * @param repository the repository
+     * @return the total pack size in bytes, 0 if the repository has no packs
+     */
+    public static long getPackSize(Repository repository) {
+        if (repository.getDirectory() == null) {
+            return 0;
+        }
+        File[] packs = new File(repository.getDirectory(), "objects/pack")
+                .listFiles((dir, name) -> name.endsWith(".pack"));
+        long total = 0;
+        if (packs != null) {
+            for (File pack : packs) {
+                total += pack.length();
+            }
+        }
+        return total;
+    }
+
+    private static Optional<Long> parseSize(String value, String name) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(StringUtils.parseLongWithSuffix(value, false));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid size for " + name + ": " + value, e);
+        }
+    }
+
+    private static int toInt(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,124 @@
+package com.mockholm.notes;
+
+import com.mockholm.config.ChangelogPosition;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Tests of {@link ChangelogWriter}: where the new section lands and which existing sections it replaces.
+ */
+public class ChangelogWriterTest extends TestCase {
+
+    private Path directory;
+    private Path changelog;
+
+    @Override
+    protected void setUp() throws IOException {
+        directory = Files.createTempDirectory("changelog");
+        changelog = directory.resolve("changelog.md");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public void testNewChangelog() throws IOException {
+        write(ChangelogPosition.TOP, "release-1.0.0", "### release-1.0.0\n\n- first\n");
+
+        assertEquals("### release-1.0.0\n\n- first\n", read());
+    }
+
+    public void testTopInsertsBeforeFirstSection() throws IOException {
+        existing("# Changelog\n\n### release-1.0.0\n\n- first\n");
+
+        write(ChangelogPosition.TOP, "release-1.1.0", "### release-1.1.0\n\n- second\n");
+
+        assertEquals("# Changelog\n\n### release-1.1.0\n\n- second\n\n### release-1.0.0\n\n- first\n", read());
+    }
+
+    public void testBottomAppendsAfterLastSection() throws IOException {
+        existing("# Changelog\n\n### release-1.0.0\n\n- first");
+
+        write(ChangelogPosition.BOTTOM, "release-1.1.0", "### release-1.1.0\n\n- second\n");
+
+        assertEquals("# Changelog\n\n### release-1.0.0\n\n- first\n\n### release-1.1.0\n\n- second\n", read());
+    }
+
+    public void testRerunReplacesSectionOfSameRef() throws IOException {
+        existing("# Changelog\n\n### release-1.1.0 — 2025-01-31\n\n- old\n\n### release-1.1.0-rc\n\n- candidate\n\n"
+                + "### release-1.0.0\n\n- first\n");
+
+        write(ChangelogPosition.TOP, "release-1.1.0", "### release-1.1.0\n\n- new\n");
+
+        assertEquals("# Changelog\n\n### release-1.1.0\n\n- new\n\n### release-1.1.0-rc\n\n- candidate\n\n"
+                + "### release-1.0.0\n\n- first\n", read());
+    }
+
+    public void testReplacedSectionEndsAtOuterHeading() throws IOException {
+        existing("# Changelog\n\n### release-1.0.0\n\n- first\n\n## Older\n\n#### release-1.0.0\n\nkept\n");
+
+        write(ChangelogPosition.BOTTOM, "release-1.0.0", "### release-1.0.0\n\n- again\n");
+
+        assertEquals("# Changelog\n\n## Older\n\n#### release-1.0.0\n\nkept\n\n### release-1.0.0\n\n- again\n",
+                read());
+    }
+
+    public void testReplacesSectionsOfEveryRef() throws IOException {
+        existing("### module-b-1.0.0\n\n- b\n\n### module-a-1.0.0\n\n- a\n\n### release-0.9.0\n\n- old\n");
+
+        try (ChangelogWriter writer = new ChangelogWriter(changelog, ChangelogPosition.TOP,
+                List.of("module-a-1.0.0", "module-b-1.0.0"))) {
+            writer.getWriter().write("### module-a-1.0.0\n\n- a2\n\n### module-b-1.0.0\n\n- b2\n");
+            writer.commit();
+        }
+
+        assertEquals("### module-a-1.0.0\n\n- a2\n\n### module-b-1.0.0\n\n- b2\n\n### release-0.9.0\n\n- old\n",
+                read());
+    }
+
+    public void testNullRefKeepsEverySection() throws IOException {
+        existing("### release-1.0.0\n\n- first\n");
+
+        write(ChangelogPosition.TOP, null, "### release-1.0.0\n\n- again\n");
+
+        assertEquals("### release-1.0.0\n\n- again\n\n### release-1.0.0\n\n- first\n", read());
+    }
+
+    public void testCloseWithoutCommitLeavesChangelogUntouched() throws IOException {
+        existing("### release-1.0.0\n\n- first\n");
+
+        try (ChangelogWriter writer = new ChangelogWriter(changelog, ChangelogPosition.TOP, "release-1.0.0")) {
+            writer.getWriter().write("### release-1.0.0\n\n- half");
+        }
+
+        assertEquals("### release-1.0.0\n\n- first\n", read());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private void existing(String content) throws IOException {
+        Files.writeString(changelog, content, StandardCharsets.UTF_8);
+    }
+
+    private void write(ChangelogPosition position, String ref, String section) throws IOException {
+        try (ChangelogWriter writer = new ChangelogWriter(changelog, position, ref)) {
+            writer.getWriter().write(section);
+            writer.commit();
+        }
+    }
+
+    private String read() throws IOException {
+        return Files.readString(changelog, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,165 @@
+package com.mockholm.utils;
+
+import com.mockholm.config.BranchType;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Benchmark of {@link CommitClassifier} against the per-commit scans it replaced, over a million commit headers.
+ * <p>
+ * The headers mix 16 shapes: plain, scoped, breaking, upper case and whitespace variants of known types, and
+ * headers that are not Conventional Commits. Each round times, for every header:
+ * <ul>
+ * <li>the old BRANCH layout: {@code toLowerCase} and a stream over {@link BranchType#values()};</li>
+ * <li>the new BRANCH layout: {@link CommitClassifier#classify(CharSequence)};</li>
+ * <li>the old CATEGORY layout: its chain of {@code startsWith} checks;</li>
+ * <li>the new CATEGORY layout: {@link CommitClassifier#classify(CharSequence)} mapped to the same sections.</li>
+ * </ul>
+ * The bytes allocated per header are read from the HotSpot thread allocation counter when it is available.
+ * Before timing, the old and new BRANCH layouts are compared on the plain {@code type:} headers, where their
+ * results must not differ.
+ * <p>
+ * Run it from the project directory after {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/classes:target/test-classes com.mockholm.utils.CommitClassifierBenchmark [headers] [rounds]
+ * </pre>
+ */
+public class CommitClassifierBenchmark {
+
+    private static final String[] SHAPES = {
+            "feat: add the %d endpoint",
+            "fix: handle an empty %d response",
+            "chore: bump dependency %d",
+            "docs: describe option %d",
+            "feat(api): add filter %d",
+            "fix(core)!: drop the %d fallback",
+            "refactor(notes): split formatter %d",
+            "perf: cache lookup %d",
+            "Feat: capitalised type %d",
+            "feat (api): space before scope %d",
+            " build : spaced colon %d",
+            "hotfix!: patch %d",
+            "Merge branch 'feature/%d' into develop",
+            "WIP %d",
+            "featured: not a type %d",
+            "release(release/1.%d.0): Updated dependency",
+    };
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+
+        String[] headers = new String[count];
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            headers[i] = String.format(SHAPES[random.nextInt(SHAPES.length)], i);
+        }
+
+        int differences = 0;
+        for (String header : headers) {
+            if (isPlain(header) && oldBranch(header) != newBranch(header)) {
+                differences++;
+            }
+        }
+        System.out.printf("%d headers, %d differences on plain type: headers%n", count, differences);
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.printf("round %d%n", round);
+            run("old BRANCH (stream + toLowerCase)", headers, CommitClassifierBenchmark::oldBranch);
+            run("new BRANCH (classifier)", headers, CommitClassifierBenchmark::newBranch);
+            run("old CATEGORY (startsWith chain)", headers, CommitClassifierBenchmark::oldCategory);
+            run("new CATEGORY (classifier)", headers, CommitClassifierBenchmark::newCategory);
+        }
+    }
+
+    private interface Layout {
+        Object apply(String header);
+    }
+
+    private static void run(String name, String[] headers, Layout layout) {
+        long bytes = allocatedBytes();
+        if (bytes < 0) {
+            bytes = Long.MAX_VALUE;
+        }
+        long start = System.nanoTime();
+        for (String header : headers) {
+            sink = layout.apply(header);
+        }
+        long nanos = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+        System.out.printf("  %-36s %8.1f ms %6d ns/header %6s B/header%n", name, nanos / 1e6,
+                nanos / headers.length, bytes < 0 ? "n/a" : String.valueOf(bytes / headers.length));
+    }
+
+    /** The BRANCH layout before the classifier, with the FEATURE fallback it used. */
+    private static BranchType oldBranch(String message) {
+        return Arrays.stream(BranchType.values())
+                .filter(type -> message.toLowerCase().startsWith(type.getValue() + ":"))
+                .findFirst()
+                .orElse(BranchType.FEATURE);
+    }
+
+    private static BranchType newBranch(String message) {
+        BranchType type = CommitClassifier.classify(message);
+        return type == null ? BranchType.FEATURE : type;
+    }
+
+    /** The CATEGORY layout before the classifier. */
+    private static String oldCategory(String message) {
+        if (message.startsWith("feat:")) {
+            return "Features";
+        } else if (message.startsWith("fix:")) {
+            return "Fixes";
+        } else if (message.startsWith("chore:")) {
+            return "Chores";
+        } else if (message.startsWith("docs:")) {
+            return "Documentation";
+        }
+        return "Others";
+    }
+
+    private static String newCategory(String message) {
+        BranchType type = CommitClassifier.classify(message);
+        if (type == null) {
+            return "Others";
+        }
+        switch (type) {
+            case FEATURE:
+                return "Features";
+            case FIX:
+                return "Fixes";
+            case CHORE:
+                return "Chores";
+            case DOCS:
+                return "Documentation";
+            default:
+                return "Others";
+        }
+    }
+
+    /** Whether a header is a lower case {@code type: description} header, where both BRANCH layouts agree. */
+    private static boolean isPlain(String header) {
+        int colon = header.indexOf(':');
+        if (colon <= 0) {
+            return false;
+        }
+        for (int i = 0; i < colon; i++) {
+            if (header.charAt(i) < 'a' || header.charAt(i) > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
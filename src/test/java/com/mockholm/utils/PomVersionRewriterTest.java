@@ -0,0 +1,232 @@
+package com.mockholm.utils;
+
+import junit.framework.TestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tests of {@link PomVersionRewriter}: each edit changes the version text and nothing else.
+ */
+public class PomVersionRewriterTest extends TestCase {
+
+    private static final String POM = String.join("\n",
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+            "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">",
+            "  <modelVersion>4.0.0</modelVersion>",
+            "  <parent>",
+            "    <groupId>com.example</groupId>",
+            "    <artifactId>parent</artifactId>",
+            "    <version>1.0.0</version>",
+            "  </parent>",
+            "  <artifactId>app</artifactId>",
+            "  <version>1.1.0-SNAPSHOT</version>",
+            "  <properties>",
+            "    <lib.version>2.0.0</lib.version>",
+            "  </properties>",
+            "  <dependencies>",
+            "    <dependency>",
+            "      <groupId>com.example</groupId>",
+            "      <artifactId>lib</artifactId>",
+            "      <version>${lib.version}</version>",
+            "    </dependency>",
+            "    <dependency>",
+            "      <groupId>com.example</groupId>",
+            "      <artifactId>core</artifactId>",
+            "      <version>3.0.0</version>",
+            "    </dependency>",
+            "  </dependencies>",
+            "</project>",
+            "");
+
+    public void testUnchangedRoundTripsByteForByte() {
+        byte[] content = POM.getBytes(StandardCharsets.UTF_8);
+        PomVersionRewriter rewriter = new PomVersionRewriter(content);
+
+        assertFalse(rewriter.isChanged());
+        assertSame(content, rewriter.toBytes());
+    }
+
+    public void testSameVersionRoundTripsByteForByte() {
+        byte[] content = POM.replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8);
+        PomVersionRewriter rewriter = new PomVersionRewriter(content);
+
+        assertTrue(rewriter.setProjectVersion("1.1.0-SNAPSHOT"));
+        assertTrue(rewriter.setParentVersion("1.0.0"));
+        assertTrue(rewriter.setDependencyVersion(false, "com.example", "core", "3.0.0"));
+        assertTrue(rewriter.setProperty("lib.version", "2.0.0"));
+
+        assertFalse(rewriter.isChanged());
+        assertTrue(Arrays.equals(content, rewriter.toBytes()));
+    }
+
+    public void testVersionsChangeInPlace() {
+        PomVersionRewriter rewriter = rewriter(POM);
+
+        assertTrue(rewriter.setProjectVersion("1.1.0"));
+        assertTrue(rewriter.setParentVersion("1.0.1"));
+        assertTrue(rewriter.setDependencyVersion(false, "com.example", "core", "3.1.0"));
+
+        assertTrue(rewriter.isChanged());
+        assertEquals(POM
+                .replace("<version>1.1.0-SNAPSHOT</version>", "<version>1.1.0</version>")
+                .replace("<version>1.0.0</version>", "<version>1.0.1</version>")
+                .replace("<version>3.0.0</version>", "<version>3.1.0</version>"), text(rewriter));
+    }
+
+    public void testPropertyRewrite() {
+        PomVersionRewriter rewriter = rewriter(POM);
+
+        assertTrue(rewriter.setProperty("lib.version", "2.1.0"));
+        assertFalse(rewriter.setProperty("missing.version", "1.0.0"));
+
+        assertEquals(POM.replace("<lib.version>2.0.0</lib.version>", "<lib.version>2.1.0</lib.version>"),
+                text(rewriter));
+    }
+
+    public void testCommentsAndCdataAroundVersion() {
+        String pom = String.join("\n",
+                "<project>",
+                "  <!-- <version>0.0.1</version> -->",
+                "  <artifactId>app</artifactId>",
+                "  <version><![CDATA[1.0.0]]></version><!-- bumped by the release -->",
+                "  <description><![CDATA[<version>9.9.9</version>]]></description>",
+                "  <dependencies>",
+                "    <dependency>",
+                "      <groupId>com.example</groupId>",
+                "      <!-- <artifactId>other</artifactId> -->",
+                "      <artifactId>lib</artifactId>",
+                "      <version>2.0.0</version> <!-- <version>1.0.0</version> -->",
+                "    </dependency>",
+                "  </dependencies>",
+                "</project>");
+        PomVersionRewriter rewriter = rewriter(pom);
+
+        assertTrue(rewriter.setProjectVersion("1.1.0"));
+        assertTrue(rewriter.setDependencyVersion(false, "com.example", "lib", "2.1.0"));
+        assertFalse(rewriter.setDependencyVersion(false, "com.example", "other", "2.1.0"));
+
+        assertEquals(pom
+                .replace("<version><![CDATA[1.0.0]]></version>", "<version>1.1.0</version>")
+                .replace("<version>2.0.0</version>", "<version>2.1.0</version>"), text(rewriter));
+    }
+
+    public void testNamespacedTags() {
+        String pom = String.join("\n",
+                "<pom:project xmlns:pom=\"http://maven.apache.org/POM/4.0.0\">",
+                "  <pom:version>1.0.0</pom:version>",
+                "  <pom:dependencyManagement>",
+                "    <pom:dependencies>",
+                "      <pom:dependency>",
+                "        <pom:groupId>com.example</pom:groupId>",
+                "        <pom:artifactId>lib</pom:artifactId>",
+                "        <pom:version>2.0.0</pom:version>",
+                "      </pom:dependency>",
+                "    </pom:dependencies>",
+                "  </pom:dependencyManagement>",
+                "</pom:project>");
+        PomVersionRewriter rewriter = rewriter(pom);
+
+        assertTrue(rewriter.setProjectVersion("1.1.0"));
+        assertFalse(rewriter.setDependencyVersion(false, "com.example", "lib", "2.1.0"));
+        assertTrue(rewriter.setDependencyVersion(true, "com.example", "lib", "2.1.0"));
+
+        assertEquals(pom
+                .replace("<pom:version>1.0.0</pom:version>", "<pom:version>1.1.0</pom:version>")
+                .replace("<pom:version>2.0.0</pom:version>", "<pom:version>2.1.0</pom:version>"), text(rewriter));
+    }
+
+    public void testSelfClosingElementsAreNotEdited() {
+        String pom = String.join("\n",
+                "<project>",
+                "  <parent/>",
+                "  <version>1.0.0</version>",
+                "  <properties/>",
+                "  <dependencies>",
+                "    <dependency>",
+                "      <groupId>com.example</groupId>",
+                "      <artifactId>lib</artifactId>",
+                "      <version/>",
+                "      <optional />",
+                "    </dependency>",
+                "  </dependencies>",
+                "</project>");
+        PomVersionRewriter rewriter = rewriter(pom);
+
+        assertFalse(rewriter.setParentVersion("1.0.0"));
+        assertFalse(rewriter.setProperty("lib.version", "2.0.0"));
+        assertFalse(rewriter.setDependencyVersion(false, "com.example", "lib", "2.0.0"));
+        assertTrue(rewriter.setProjectVersion("1.1.0"));
+
+        assertEquals(pom.replace("<version>1.0.0</version>", "<version>1.1.0</version>"), text(rewriter));
+    }
+
+    public void testExclusionsAndProfilesAreLeftAlone() {
+        String pom = String.join("\n",
+                "<project>",
+                "  <dependencies>",
+                "    <dependency>",
+                "      <groupId>com.example</groupId>",
+                "      <artifactId>app</artifactId>",
+                "      <version>1.0.0</version>",
+                "      <exclusions>",
+                "        <exclusion>",
+                "          <groupId>com.example</groupId>",
+                "          <artifactId>lib</artifactId>",
+                "        </exclusion>",
+                "      </exclusions>",
+                "    </dependency>",
+                "  </dependencies>",
+                "  <profiles>",
+                "    <profile>",
+                "      <id>extra</id>",
+                "      <properties>",
+                "        <lib.version>2.0.0</lib.version>",
+                "      </properties>",
+                "      <dependencies>",
+                "        <dependency>",
+                "          <groupId>com.example</groupId>",
+                "          <artifactId>lib</artifactId>",
+                "          <version>2.0.0</version>",
+                "        </dependency>",
+                "      </dependencies>",
+                "    </profile>",
+                "  </profiles>",
+                "</project>");
+        PomVersionRewriter rewriter = rewriter(pom);
+
+        assertFalse(rewriter.setDependencyVersion(false, "com.example", "lib", "2.1.0"));
+        assertFalse(rewriter.setDependencyVersion(true, "com.example", "lib", "2.1.0"));
+        assertFalse(rewriter.setProperty("lib.version", "2.1.0"));
+        assertFalse(rewriter.setProjectVersion("1.1.0"));
+        assertTrue(rewriter.setDependencyVersion(false, "com.example", "app", "1.1.0"));
+
+        assertEquals(pom.replace("<version>1.0.0</version>", "<version>1.1.0</version>"), text(rewriter));
+    }
+
+    public void testValuesAreEscaped() {
+        PomVersionRewriter rewriter = rewriter(POM);
+
+        assertTrue(rewriter.setProperty("lib.version", "[2.0,3.0)&<"));
+
+        assertEquals(POM.replace("<lib.version>2.0.0</lib.version>",
+                "<lib.version>[2.0,3.0)&amp;&lt;</lib.version>"), text(rewriter));
+    }
+
+    public void testUnbalancedTagsAreRejected() {
+        try {
+            rewriter("<project><version>1.0.0</project>");
+            fail("Unbalanced tags were scanned");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    private static PomVersionRewriter rewriter(String pom) {
+        return new PomVersionRewriter(pom.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(PomVersionRewriter rewriter) {
+        return new String(rewriter.toBytes(), StandardCharsets.UTF_8);
+    }
+}
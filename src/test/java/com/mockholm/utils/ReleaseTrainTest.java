@@ -0,0 +1,113 @@
+package com.mockholm.utils;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests of {@link ReleaseTrain}: repositories are released in waves after everything they use.
+ */
+public class ReleaseTrainTest extends TestCase {
+
+    public void testIndependentRepositoriesShareOneWave() {
+        ReleaseTrain train = new ReleaseTrain()
+                .addRepository(new ReleaseTrain.Repository("b").withArtifact("com.example", "b"))
+                .addRepository(new ReleaseTrain.Repository("a").withArtifact("com.example", "a"));
+
+        assertEquals(List.of(List.of("b", "a")), train.getWaves());
+    }
+
+    public void testDiamond() {
+        ReleaseTrain train = new ReleaseTrain()
+                .addRepository(new ReleaseTrain.Repository("app")
+                        .withArtifact("com.example", "app")
+                        .withDependency("com.example", "web")
+                        .withDependency("com.example", "store"))
+                .addRepository(new ReleaseTrain.Repository("web")
+                        .withArtifact("com.example", "web")
+                        .withDependency("com.example", "core"))
+                .addRepository(new ReleaseTrain.Repository("store")
+                        .withArtifact("com.example", "store")
+                        .withArtifact("com.example", "store-api")
+                        .withDependency("com.example", "core"))
+                .addRepository(new ReleaseTrain.Repository("core")
+                        .withArtifact("com.example", "core")
+                        .withDependency("org.external", "lib"));
+
+        assertEquals(List.of(List.of("core"), List.of("web", "store"), List.of("app")), train.getWaves());
+    }
+
+    public void testWaveFollowsLongestChain() {
+        ReleaseTrain train = new ReleaseTrain()
+                .addRepository(new ReleaseTrain.Repository("top")
+                        .withArtifact("com.example", "top")
+                        .withDependency("com.example", "base")
+                        .withDependency("com.example", "middle"))
+                .addRepository(new ReleaseTrain.Repository("middle")
+                        .withArtifact("com.example", "middle")
+                        .withDependency("com.example", "base"))
+                .addRepository(new ReleaseTrain.Repository("base")
+                        .withArtifact("com.example", "base"));
+
+        assertEquals(List.of(List.of("base"), List.of("middle"), List.of("top")), train.getWaves());
+    }
+
+    public void testOwnArtifactsAreNotUpstreams() {
+        ReleaseTrain train = new ReleaseTrain()
+                .addRepository(new ReleaseTrain.Repository("multi")
+                        .withArtifact("com.example", "multi-api")
+                        .withArtifact("com.example", "multi-impl")
+                        .withDependency("com.example", "multi-api"));
+
+        assertTrue(train.getUpstreams("multi").isEmpty());
+        assertEquals(List.of(List.of("multi")), train.getWaves());
+    }
+
+    public void testUpstreamsNameTheArtifacts() {
+        ReleaseTrain train = new ReleaseTrain()
+                .addRepository(new ReleaseTrain.Repository("app")
+                        .withArtifact("com.example", "app")
+                        .withDependency("com.example", "core-api")
+                        .withDependency("com.example", "core-impl"))
+                .addRepository(new ReleaseTrain.Repository("core")
+                        .withArtifact("com.example", "core-api")
+                        .withArtifact("com.example", "core-impl"));
+
+        Map<String, Set<String>> upstreams = train.getUpstreams("app");
+
+        assertEquals(Set.of("core"), upstreams.keySet());
+        assertEquals(Set.of("com.example:core-api", "com.example:core-impl"), upstreams.get("core"));
+    }
+
+    public void testCycleIsReported() {
+        ReleaseTrain train = new ReleaseTrain()
+                .addRepository(new ReleaseTrain.Repository("base").withArtifact("com.example", "base"))
+                .addRepository(new ReleaseTrain.Repository("a")
+                        .withArtifact("com.example", "a")
+                        .withDependency("com.example", "base")
+                        .withDependency("com.example", "b"))
+                .addRepository(new ReleaseTrain.Repository("b")
+                        .withArtifact("com.example", "b")
+                        .withDependency("com.example", "a"));
+
+        try {
+            train.getWaves();
+            fail("A cycle was ordered");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("a -> b -> a"));
+        }
+    }
+
+    public void testRepositoryAddedTwiceIsRejected() {
+        ReleaseTrain train = new ReleaseTrain().addRepository(new ReleaseTrain.Repository("a"));
+
+        try {
+            train.addRepository(new ReleaseTrain.Repository("a"));
+            fail("A repository was added twice");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}